@@ -0,0 +1,129 @@
+package org.example.bench;
+
+import org.example.interfaces.ApplyQueue;
+import org.example.util.MpscApplyQueue;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contention benchmark: many producer threads enqueue Lamport-ordered updates while one applier
+ * thread drains them, comparing the original {@code synchronized PriorityQueue} + wait/notifyAll
+ * hand-off against {@link MpscApplyQueue}.
+ * <p>
+ * Reports enqueue latency percentiles (time spent inside offer, per producer call) and apply
+ * throughput (updates taken by the consumer per second, until all producers' updates are applied).
+ * </p>
+ * Run with:
+ * <pre>
+ * mvn -Pbench test-compile
+ * java -cp "target/classes:target/test-classes:target/dependency/*" org.example.bench.ApplyQueueBenchmark [producers] [perProducer]
+ * </pre>
+ */
+public final class ApplyQueueBenchmark {
+
+    private record Update(long lamportTs, String fromNode, long seq) {}
+
+    private static final Comparator<Update> ORDER = Comparator
+            .comparingLong(Update::lamportTs)
+            .thenComparing(u -> u.fromNode() == null ? "" : u.fromNode())
+            .thenComparingLong(Update::seq);
+
+    /** Verbatim shape of the original AggregationServer hand-off. */
+    private static final class MonitorQueue implements ApplyQueue<Update> {
+        private final PriorityQueue<Update> q = new PriorityQueue<>(ORDER);
+
+        @Override
+        public void offer(Update u) {
+            synchronized (q) {
+                q.add(u);
+                q.notifyAll();
+            }
+        }
+
+        @Override
+        public Update poll(long timeoutMs) {
+            synchronized (q) {
+                if (q.isEmpty()) {
+                    try { q.wait(timeoutMs); } catch (InterruptedException e) { return null; }
+                }
+                return q.poll();
+            }
+        }
+
+        @Override
+        public List<Update> pollBatch(int max, long timeoutMs, long lingerMs) {
+            Update u = poll(timeoutMs);
+            return (u == null) ? List.of() : List.of(u);
+        }
+
+        @Override
+        public int size() {
+            synchronized (q) { return q.size(); }
+        }
+    }
+
+    private ApplyQueueBenchmark() {}
+
+    public static void main(String[] args) throws Exception {
+        int producers = (args.length > 0) ? Integer.parseInt(args[0]) : 64;
+        int perProducer = (args.length > 1) ? Integer.parseInt(args[1]) : 20_000;
+        System.out.println("producers=" + producers + " perProducer=" + perProducer);
+        for (int round = 0; round < 3; round++) { // first rounds are JIT warm-up
+            run("synchronized", new MonitorQueue(), producers, perProducer);
+            run("mpsc", new MpscApplyQueue<>(ORDER), producers, perProducer);
+        }
+    }
+
+    private static void run(String name, ApplyQueue<Update> q, int producers, int perProducer) throws Exception {
+        int total = producers * perProducer;
+        AtomicLong seq = new AtomicLong();
+        long[][] latencies = new long[producers][perProducer];
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(producers);
+
+        for (int p = 0; p < producers; p++) {
+            int id = p;
+            Thread t = new Thread(() -> {
+                try { start.await(); } catch (InterruptedException e) { return; }
+                String node = "CS-" + id;
+                long[] lat = latencies[id];
+                for (int i = 0; i < perProducer; i++) {
+                    Update u = new Update(i, node, seq.incrementAndGet());
+                    long t0 = System.nanoTime();
+                    q.offer(u);
+                    lat[i] = System.nanoTime() - t0;
+                }
+                done.countDown();
+            }, "producer-" + p);
+            t.setDaemon(true);
+            t.start();
+        }
+
+        long[] applied = new long[1];
+        Thread applier = new Thread(() -> {
+            while (applied[0] < total) {
+                if (q.poll(100) != null) applied[0]++;
+            }
+        }, "applier");
+
+        long t0 = System.nanoTime();
+        applier.start();
+        start.countDown();
+        done.await();
+        applier.join(TimeUnit.MINUTES.toMillis(2));
+        long elapsed = System.nanoTime() - t0;
+
+        long[] all = new long[total];
+        for (int p = 0; p < producers; p++) System.arraycopy(latencies[p], 0, all, p * perProducer, perProducer);
+        Arrays.sort(all);
+        System.out.printf("%-13s enqueue p50=%6dns p99=%8dns p99.9=%9dns   apply %,12.0f updates/s%n",
+                name, all[total / 2], all[(int) (total * 0.99)], all[(int) (total * 0.999)],
+                applied[0] / (elapsed / 1e9));
+    }
+}
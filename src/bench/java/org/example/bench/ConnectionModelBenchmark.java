@@ -0,0 +1,72 @@
+package org.example.bench;
+
+import org.example.util.BoundedConnectionExecutor;
+import org.example.util.BoundedConnectionExecutor.Mode;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares connection threading models at 1k and 10k concurrent connections.
+ * <p>
+ * Each simulated connection blocks for {@code holdMs} (standing in for socket I/O and the GET
+ * catch-up wait), so the numbers reflect thread creation, stack memory and scheduling cost.
+ * </p>
+ * Run with:
+ * <pre>
+ * mvn -Pbench test-compile
+ * java -cp "target/classes:target/test-classes:target/dependency/*" org.example.bench.ConnectionModelBenchmark [holdMs]
+ * </pre>
+ */
+public final class ConnectionModelBenchmark {
+
+    private ConnectionModelBenchmark() {}
+
+    public static void main(String[] args) throws Exception {
+        long holdMs = (args.length > 0) ? Long.parseLong(args[0]) : 50L;
+        int[] loads = {1_000, 10_000};
+        Mode[] modes = {Mode.THREAD_PER_CONNECTION, Mode.POOL, Mode.VIRTUAL};
+
+        System.out.printf("%-22s %8s %10s %12s %12s %10s%n",
+                "mode", "conns", "wall ms", "conn/s", "peak threads", "rejected");
+        for (int n : loads) {
+            for (Mode m : modes) {
+                run(m, n, n, holdMs);          // cap == load: measures the model itself
+            }
+            run(Mode.POOL, n, n / 4, holdMs);  // cap < load: exercises the reject path
+        }
+    }
+
+    private static void run(Mode mode, int connections, int cap, long holdMs) throws InterruptedException {
+        ThreadMXBean mx = ManagementFactory.getThreadMXBean();
+        mx.resetPeakThreadCount();
+        System.gc();
+
+        try (BoundedConnectionExecutor exec = new BoundedConnectionExecutor(mode, cap, 256)) {
+            CountDownLatch done = new CountDownLatch(connections);
+            long start = System.nanoTime();
+            for (int i = 0; i < connections; i++) {
+                boolean ok = exec.trySubmit(() -> {
+                    try {
+                        Thread.sleep(holdMs);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                });
+                if (!ok) done.countDown();
+            }
+            done.await(5, TimeUnit.MINUTES);
+            long wallMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            String label = exec.mode() + (cap < connections ? " (cap " + cap + ")" : "");
+            System.out.printf("%-22s %8d %10d %12.0f %12d %10d%n",
+                    label, connections, wallMs,
+                    connections * 1000.0 / Math.max(1L, wallMs),
+                    mx.getPeakThreadCount(), exec.rejectedCount());
+        }
+    }
+}
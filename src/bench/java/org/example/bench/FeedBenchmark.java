@@ -0,0 +1,97 @@
+package org.example.bench;
+
+import org.example.http.DefaultHttpHandler;
+import org.example.http.FeedDocument;
+import org.example.http.PreEncodedResponse;
+import org.example.interfaces.HttpHandler;
+import org.example.interfaces.LamportClock;
+import org.example.util.AtomicLamportClock;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Microbenchmark: aggregated GET with one station updated between requests, comparing a full
+ * re-render of the JSON array (String join + encode, as in the first multi-station version) against
+ * {@link FeedDocument}, which re-encodes only the changed segment.
+ * <p>
+ * Output goes to a counting sink, so only rendering/assembly is measured, not copying into a socket buffer.
+ * </p>
+ * Run with:
+ * <pre>
+ * mvn -Pbench test-compile
+ * java -cp "target/classes:target/test-classes:target/dependency/*" org.example.bench.FeedBenchmark [stations]
+ * </pre>
+ */
+public final class FeedBenchmark {
+
+    private static final HttpHandler HTTP = new DefaultHttpHandler();
+    private static final LamportClock CLOCK = new AtomicLamportClock();
+
+    private static final class CountingSink extends OutputStream {
+        long n;
+        @Override public void write(int b) { n++; }
+        @Override public void write(byte[] b, int off, int len) { n += len; }
+    }
+
+    private static final CountingSink SINK = new CountingSink();
+
+    private FeedBenchmark() {}
+
+    public static void main(String[] args) throws IOException {
+        int stations = (args.length > 0) ? Integer.parseInt(args[0]) : 10_000;
+        int iterations = (args.length > 1) ? Integer.parseInt(args[1]) : 2_000;
+
+        Map<String, String> docs = new LinkedHashMap<>();
+        FeedDocument feed = new FeedDocument("AGG-SERVER", HTTP);
+        for (int i = 0; i < stations; i++) {
+            String id = "ST" + i;
+            docs.put(id, doc(id, 0));
+            feed.upsert(id, docs.get(id));
+        }
+
+        System.out.println("stations=" + stations);
+        for (int round = 0; round < 3; round++) { // first rounds are JIT warm-up
+            report("full-render", iterations, i -> {
+                String id = "ST" + (i % stations);
+                docs.put(id, doc(id, i));
+                StringBuilder sb = new StringBuilder().append('[');
+                boolean first = true;
+                for (String json : docs.values()) {
+                    if (!first) sb.append(',');
+                    sb.append(json);
+                    first = false;
+                }
+                new PreEncodedResponse(i, HttpHandler.OK, sb.append(']').toString(), "AGG-SERVER", HTTP)
+                        .writeTo(SINK, CLOCK, true);
+            });
+            report("incremental", iterations, i -> {
+                String id = "ST" + (i % stations);
+                feed.upsert(id, doc(id, i));
+                feed.snapshot().response().writeTo(SINK, CLOCK, true);
+            });
+        }
+        if (SINK.n == 42) System.out.println();
+    }
+
+    private static String doc(String id, int v) {
+        return "{\"id\":\"" + id + "\",\"name\":\"Station " + id + "\",\"air_temp\":" + (v % 40) +
+                ",\"rel_hum\":60,\"wind_dir\":\"S\",\"wind_spd_kmh\":15}";
+    }
+
+    private interface Op { void run(int i) throws IOException; }
+
+    private static void report(String name, int iterations, Op op) throws IOException {
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long tid = Thread.currentThread().getId();
+        long bytes0 = mx.getThreadAllocatedBytes(tid);
+        long t0 = System.nanoTime();
+        for (int i = 0; i < iterations; i++) op.run(i);
+        long ns = System.nanoTime() - t0;
+        long bytes = mx.getThreadAllocatedBytes(tid) - bytes0;
+        System.out.printf("%-12s %10.1f us/op %10d B/op%n", name, ns / 1000.0 / iterations, bytes / iterations);
+    }
+}
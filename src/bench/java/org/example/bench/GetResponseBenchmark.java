@@ -0,0 +1,62 @@
+package org.example.bench;
+
+import org.example.http.DefaultHttpHandler;
+import org.example.http.PreEncodedResponse;
+import org.example.interfaces.HttpHandler;
+import org.example.interfaces.LamportClock;
+import org.example.util.AtomicLamportClock;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Microbenchmark: GET 200 rendering via {@link DefaultHttpHandler#writeJson} (encode payload and
+ * concatenate headers per request) versus a {@link PreEncodedResponse} built once per applied version.
+ * <p>
+ * The output stream is reset and reused, so the numbers are the serialization cost alone.
+ * </p>
+ * Run with:
+ * <pre>
+ * mvn -Pbench test-compile
+ * java -cp "target/classes:target/test-classes:target/dependency/*" org.example.bench.GetResponseBenchmark
+ * </pre>
+ */
+public final class GetResponseBenchmark {
+
+    private static final String PAYLOAD = "{\"id\":\"IDS60901\",\"name\":\"Adelaide (West Terrace /  ngayirdapira)\"," +
+            "\"state\":\"SA\",\"time_zone\":\"CST\",\"lat\":-34.9,\"lon\":138.6,\"local_date_time\":\"15/04:00pm\"," +
+            "\"local_date_time_full\":\"20230715160000\",\"air_temp\":13.3,\"apparent_t\":9.5,\"cloud\":\"Partly cloudy\"," +
+            "\"dewpt\":5.7,\"press\":1023.9,\"rel_hum\":60,\"wind_dir\":\"S\",\"wind_spd_kmh\":15,\"wind_spd_kt\":8}";
+
+    private static final HttpHandler HTTP = new DefaultHttpHandler();
+    private static final LamportClock CLOCK = new AtomicLamportClock();
+    private static final PreEncodedResponse CACHED = new PreEncodedResponse(1L, HttpHandler.OK, PAYLOAD, "AGG-SERVER", HTTP);
+    private static final ByteArrayOutputStream OUT = new ByteArrayOutputStream(4096);
+
+    private GetResponseBenchmark() {}
+
+    public static void main(String[] args) throws IOException {
+        int iterations = (args.length > 0) ? Integer.parseInt(args[0]) : 2_000_000;
+        for (int round = 0; round < 3; round++) { // first rounds are JIT warm-up
+            report("writeJson", iterations, () -> HTTP.writeJson(OUT, HttpHandler.OK, PAYLOAD, CLOCK, "AGG-SERVER", true));
+            report("pre-encoded", iterations, () -> CACHED.writeTo(OUT, CLOCK, true));
+        }
+    }
+
+    private interface Op { void run() throws IOException; }
+
+    private static void report(String name, int iterations, Op op) throws IOException {
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long tid = Thread.currentThread().getId();
+        long bytes0 = mx.getThreadAllocatedBytes(tid);
+        long t0 = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            OUT.reset();
+            op.run();
+        }
+        long ns = System.nanoTime() - t0;
+        long bytes = mx.getThreadAllocatedBytes(tid) - bytes0;
+        System.out.printf("%-12s %8.1f ns/op %8d B/op%n", name, ns / (double) iterations, bytes / iterations);
+    }
+}
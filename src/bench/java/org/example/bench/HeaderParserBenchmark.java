@@ -0,0 +1,146 @@
+package org.example.bench;
+
+import org.example.http.HttpRequest;
+import org.example.http.HttpRequestParser;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Microbenchmark: legacy byte-by-byte header reader + per-header rescans versus {@link HttpRequestParser}
+ * (fresh parser per request, and one parser reused across pipelined keep-alive requests).
+ * <p>
+ * The legacy path is a verbatim copy of the original {@code AggregationServer} helpers.
+ * Input comes from an in-memory stream, so the legacy numbers exclude the per-byte syscalls it
+ * pays on a real socket; the gap in production is larger than shown here.
+ * </p>
+ * Run with:
+ * <pre>
+ * mvn -Pbench test-compile
+ * java -cp "target/classes:target/test-classes:target/dependency/*" org.example.bench.HeaderParserBenchmark
+ * </pre>
+ */
+public final class HeaderParserBenchmark {
+
+    private static final byte[] REQUEST = ("PUT /weather.json HTTP/1.1\r\n" +
+            "Host: localhost:4567\r\n" +
+            "User-Agent: ContentServer/1.0\r\n" +
+            "X-Lamport-Node: CS-1\r\n" +
+            "X-Lamport-Clock: 12345\r\n" +
+            "Content-Type: application/json; charset=utf-8\r\n" +
+            "Connection: close\r\n" +
+            "Content-Length: 42\r\n\r\n").getBytes(StandardCharsets.UTF_8);
+
+    private static long sink;
+
+    private HeaderParserBenchmark() {}
+
+    public static void main(String[] args) throws IOException {
+        int iterations = (args.length > 0) ? Integer.parseInt(args[0]) : 2_000_000;
+        for (int round = 0; round < 3; round++) { // first rounds are JIT warm-up
+            report("legacy", iterations, HeaderParserBenchmark::legacy);
+            report("single-pass", iterations, HeaderParserBenchmark::singlePass);
+            report("keep-alive", iterations, HeaderParserBenchmark::keepAlive);
+        }
+        if (sink == 42) System.out.println();
+    }
+
+    private interface Op { void run() throws IOException; }
+
+    private static void report(String name, int iterations, Op op) throws IOException {
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long tid = Thread.currentThread().getId();
+        long bytes0 = mx.getThreadAllocatedBytes(tid);
+        long t0 = System.nanoTime();
+        for (int i = 0; i < iterations; i++) op.run();
+        long ns = System.nanoTime() - t0;
+        long bytes = mx.getThreadAllocatedBytes(tid) - bytes0;
+        System.out.printf("%-12s %8.1f ns/op %8d B/op%n", name, ns / (double) iterations, bytes / iterations);
+    }
+
+    private static void singlePass() throws IOException {
+        HttpRequest r = new HttpRequestParser(new ByteArrayInputStream(REQUEST)).next();
+        sink += r.contentLength() + r.lamportClock() + r.lamportNode().length();
+    }
+
+    // One parser per connection serving PIPELINE requests: the buffer cost is amortised as with keep-alive.
+    private static final int PIPELINE = 1_000;
+    private static final byte[] PIPELINED = repeated(PIPELINE);
+    private static HttpRequestParser shared;
+    private static int left;
+
+    private static void keepAlive() throws IOException {
+        if (left == 0) {
+            shared = new HttpRequestParser(new ByteArrayInputStream(PIPELINED));
+            left = PIPELINE;
+        }
+        left--;
+        HttpRequest r = shared.next();
+        sink += r.contentLength() + r.lamportClock() + r.lamportNode().length();
+    }
+
+    private static byte[] repeated(int n) {
+        byte[] all = new byte[REQUEST.length * n];
+        for (int i = 0; i < n; i++) System.arraycopy(REQUEST, 0, all, i * REQUEST.length, REQUEST.length);
+        return all;
+    }
+
+    private static void legacy() throws IOException {
+        String[] lines = readHeaderLines(new ByteArrayInputStream(REQUEST));
+        String[] parts = lines[0].split(" ");
+        sink += contentLengthFrom(lines) + parseLamportFromHeaders(lines)
+                + parseHeaderValue(lines, "X-Lamport-Node").length() + parts.length;
+    }
+
+    /* ---- original AggregationServer helpers (baseline) ---- */
+
+    private static String[] readHeaderLines(InputStream in) throws IOException {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        int state = 0;
+        int b;
+        while ((b = in.read()) != -1) {
+            buf.write(b);
+            if (state == 0 && b == '\r') state = 1;
+            else if (state == 1 && b == '\n') state = 2;
+            else if (state == 2 && b == '\r') state = 3;
+            else if (state == 3 && b == '\n') break;
+            else state = 0;
+        }
+        String headersStr = buf.toString(StandardCharsets.UTF_8);
+        return headersStr.isEmpty() ? new String[0] : headersStr.split("\r\n");
+    }
+
+    private static int contentLengthFrom(String[] headerLines) {
+        for (String line : headerLines) {
+            String lower = line.toLowerCase();
+            if (lower.startsWith("content-length:")) {
+                try { return Integer.parseInt(line.substring(15).trim()); } catch (Exception ignored) {}
+            }
+        }
+        return 0;
+    }
+
+    private static long parseLamportFromHeaders(String[] headerLines) {
+        for (String line : headerLines) {
+            int i = line.indexOf(':');
+            if (i > 0 && "X-Lamport-Clock".equalsIgnoreCase(line.substring(0, i).trim())) {
+                try { return Long.parseLong(line.substring(i + 1).trim()); } catch (Exception ignored) {}
+            }
+        }
+        return 0L;
+    }
+
+    private static String parseHeaderValue(String[] headerLines, String wantedName) {
+        for (String line : headerLines) {
+            int i = line.indexOf(':');
+            if (i > 0 && wantedName.equalsIgnoreCase(line.substring(0, i).trim())) {
+                return line.substring(i + 1).trim();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,116 @@
+package org.example.bench;
+
+import org.example.interfaces.LamportSynchronizer;
+import org.example.util.IndexedLamportSynchronizer;
+import org.example.util.SimpleLamportSynchronizer;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * GET catch-up benchmark: many GET threads wait for Lamport targets slightly ahead of the applied
+ * watermark while one applier advances it by one at a fixed rate, comparing
+ * {@link SimpleLamportSynchronizer} (monitor, notifyAll, 10 ms re-check) against
+ * {@link IndexedLamportSynchronizer} (waiters indexed by target, targeted unpark).
+ * <p>
+ * Reports wake-up latency percentiles (time from the {@code onPutApplied} that covers a waiter's
+ * target to the waiter returning) and the CPU time burned by the GET threads while waiting.
+ * </p>
+ * Run with:
+ * <pre>
+ * mvn -Pbench test-compile
+ * java -cp "target/classes:target/test-classes:target/dependency/*" org.example.bench.LamportSyncBenchmark [getThreads] [applies] [applyIntervalMicros]
+ * </pre>
+ */
+public final class LamportSyncBenchmark {
+
+    private static final ThreadMXBean MX = ManagementFactory.getThreadMXBean();
+
+    private LamportSyncBenchmark() {}
+
+    public static void main(String[] args) throws Exception {
+        int getThreads = (args.length > 0) ? Integer.parseInt(args[0]) : 64;
+        int applies = (args.length > 1) ? Integer.parseInt(args[1]) : 5_000;
+        long intervalMicros = (args.length > 2) ? Long.parseLong(args[2]) : 200L;
+        System.out.println("getThreads=" + getThreads + " applies=" + applies + " applyInterval=" + intervalMicros + "us");
+        for (int round = 0; round < 3; round++) { // first rounds are JIT warm-up
+            run("monitor", new SimpleLamportSynchronizer(), getThreads, applies, intervalMicros);
+            run("indexed", new IndexedLamportSynchronizer(), getThreads, applies, intervalMicros);
+        }
+    }
+
+    private static void run(String name, LamportSynchronizer sync, int getThreads, int applies,
+                            long intervalMicros) throws Exception {
+        long[] publishedAt = new long[applies + 1];
+        long[][] latencies = new long[getThreads][];
+        int[] counts = new int[getThreads];
+        long[] cpu = new long[getThreads];
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(getThreads);
+
+        for (int g = 0; g < getThreads; g++) {
+            int id = g;
+            latencies[id] = new long[applies];
+            Thread t = new Thread(() -> {
+                try { start.await(); } catch (InterruptedException e) { return; }
+                long cpu0 = MX.getCurrentThreadCpuTime();
+                long[] lat = latencies[id];
+                int n = 0;
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                while (n < lat.length) {
+                    long target = sync.lastApplied() + 1 + rnd.nextInt(4);
+                    if (target > applies) break;
+                    if (!sync.awaitUpTo(target, 2000L)) continue;
+                    long returned = System.nanoTime();
+                    long published = publishedAt[(int) target];
+                    if (published != 0L) lat[n++] = returned - published;
+                }
+                counts[id] = n;
+                cpu[id] = MX.getCurrentThreadCpuTime() - cpu0;
+                done.countDown();
+            }, "get-" + g);
+            t.setDaemon(true);
+            t.start();
+        }
+
+        start.countDown();
+        long intervalNanos = TimeUnit.MICROSECONDS.toNanos(intervalMicros);
+        long next = System.nanoTime();
+        long t0 = next;
+        for (int ts = 1; ts <= applies; ts++) {
+            next += intervalNanos;
+            long wait;
+            while ((wait = next - System.nanoTime()) > 0) LockSupport.parkNanos(wait);
+            publishedAt[ts] = System.nanoTime(); // written before the release, read after the waiter wakes
+            sync.onPutApplied(ts);
+        }
+        done.await(30, TimeUnit.SECONDS);
+        long elapsed = System.nanoTime() - t0;
+
+        long cpuTotal = 0L;
+        int total = 0;
+        for (int g = 0; g < getThreads; g++) {
+            cpuTotal += cpu[g];
+            total += counts[g];
+        }
+        long[] all = new long[total];
+        int k = 0;
+        for (int g = 0; g < getThreads; g++) {
+            System.arraycopy(latencies[g], 0, all, k, counts[g]);
+            k += counts[g];
+        }
+        Arrays.sort(all);
+        if (total == 0) {
+            System.out.printf("%-8s no GET completed%n", name);
+            return;
+        }
+        System.out.printf("%-8s wake-up p50=%8dns p99=%10dns max=%10dns   GET cpu %6.1f ms (%4.1f%% of wall)  gets=%d%n",
+                name, all[total / 2], all[(int) (total * 0.99)], all[total - 1],
+                cpuTotal / 1e6, 100.0 * cpuTotal / elapsed, total);
+    }
+}
@@ -0,0 +1,83 @@
+package org.example.bench.jmh;
+
+import org.example.http.DefaultHttpHandler;
+import org.example.http.PreEncodedResponse;
+import org.example.interfaces.HttpHandler;
+import org.example.interfaces.LamportClock;
+import org.example.util.AtomicLamportClock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link DefaultHttpHandler} request and response encoding, and the pre-encoded GET response that
+ * replaces per-request encoding on the read path.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HttpEncodingBench {
+
+    private static final String JSON = "{\"id\":\"IDS60901\",\"name\":\"Adelaide (West Terrace /  ngayirdapira)\"," +
+            "\"state\":\"SA\",\"time_zone\":\"CST\",\"lat\":-34.9,\"lon\":138.6,\"air_temp\":13.3," +
+            "\"apparent_t\":9.5,\"cloud\":\"Partly cloudy\",\"dewpt\":5.7,\"press\":1023.9," +
+            "\"rel_hum\":60,\"wind_dir\":\"S\",\"wind_spd_kmh\":15,\"wind_spd_kt\":8}";
+
+    private final HttpHandler http = new DefaultHttpHandler();
+    private final LamportClock clock = new AtomicLamportClock();
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(1024);
+    private final Map<String, String> headers = new LinkedHashMap<>();
+    private PreEncodedResponse preEncoded;
+
+    @Setup
+    public void setUp() {
+        headers.put("User-Agent", "ContentServer/1.0");
+        headers.put("X-Lamport-Node", "CS-1");
+        headers.put("X-Lamport-Clock", "42");
+        headers.put("Content-Type", "application/json; charset=utf-8");
+        headers.put("Connection", "close");
+        preEncoded = new PreEncodedResponse(1L, HttpHandler.OK, JSON, "AGG-1", http);
+    }
+
+    @Benchmark
+    public String buildRequest() {
+        return http.buildRequest("PUT", "/weather.json", "localhost", 4567, headers, JSON.length());
+    }
+
+    @Benchmark
+    public int writeJson() throws IOException {
+        out.reset();
+        http.writeJson(out, HttpHandler.OK, JSON, clock, "AGG-1", true);
+        return out.size();
+    }
+
+    @Benchmark
+    public int writeEmpty() throws IOException {
+        out.reset();
+        http.writeEmpty(out, HttpHandler.CREATED, clock, "AGG-1", true);
+        return out.size();
+    }
+
+    @Benchmark
+    public int writePreEncoded() throws IOException {
+        out.reset();
+        preEncoded.writeTo(out, clock, true);
+        return out.size();
+    }
+}
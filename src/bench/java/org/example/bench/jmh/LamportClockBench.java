@@ -0,0 +1,52 @@
+package org.example.bench.jmh;
+
+import org.example.interfaces.LamportClock;
+import org.example.util.AtomicLamportClock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AtomicLamportClock} under contention: every request thread ticks on send and merges the
+ * remote clock on receive, all on one shared clock.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LamportClockBench {
+
+    private final LamportClock clock = new AtomicLamportClock();
+
+    @Benchmark
+    @Threads(1)
+    public long tickUncontended() {
+        return clock.tick();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long tickContended() {
+        return clock.tick();
+    }
+
+    /** Remote clocks a little ahead of or behind the local one, as on a busy server. */
+    @Benchmark
+    @Threads(4)
+    public long updateContended() {
+        long remote = clock.get() + ThreadLocalRandom.current().nextInt(-8, 8);
+        return clock.update(remote);
+    }
+}
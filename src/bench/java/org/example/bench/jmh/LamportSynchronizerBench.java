@@ -0,0 +1,74 @@
+package org.example.bench.jmh;
+
+import org.example.interfaces.LamportSynchronizer;
+import org.example.util.IndexedLamportSynchronizer;
+import org.example.util.SimpleLamportSynchronizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LamportSynchronizer wait/notify: the already-caught-up GET fast path, an apply with no GET
+ * waiting, and an applier releasing GETs that wait one timestamp ahead.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LamportSynchronizerBench {
+
+    @Param({"simple", "indexed"})
+    public String impl;
+
+    private LamportSynchronizer sync;
+    private final AtomicLong next = new AtomicLong();
+
+    @Setup
+    public void setUp() {
+        sync = "simple".equals(impl) ? new SimpleLamportSynchronizer() : new IndexedLamportSynchronizer();
+        sync.onPutApplied(1L);
+        next.set(1L);
+    }
+
+    @Benchmark
+    @Group("caughtUp")
+    public boolean awaitAlreadyApplied() {
+        return sync.awaitUpTo(1L, 1000L);
+    }
+
+    @Benchmark
+    @Group("applyNoWaiters")
+    public void applyWithNoWaiters() {
+        sync.onPutApplied(next.incrementAndGet());
+    }
+
+    /** GETs wait for the next timestamp; bounded so a waiter never outlives the run. */
+    @Benchmark
+    @Group("handOff")
+    @GroupThreads(3)
+    public boolean getter() {
+        return sync.awaitUpTo(sync.lastApplied() + 1, 5L);
+    }
+
+    @Benchmark
+    @Group("handOff")
+    @GroupThreads(1)
+    public void applier() {
+        sync.onPutApplied(next.incrementAndGet());
+    }
+}
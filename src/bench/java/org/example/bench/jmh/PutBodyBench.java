@@ -0,0 +1,119 @@
+package org.example.bench.jmh;
+
+import org.example.http.GzipCodec;
+import org.example.http.HttpRequest;
+import org.example.http.HttpRequestParser;
+import org.example.server.AggregationServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PUT bodies sent plain versus {@code Content-Encoding: gzip}: bytes on the wire (printed once per
+ * trial) and the CPU each side spends per PUT.
+ * <p>
+ * {@code server} is the server's per-request body path: parse the head, read the body, inflate it
+ * if coded (capped, as in {@code AggregationServer}), decode UTF-8 and run {@code validateJsonOrThrow}.
+ * {@code client} is the ContentServer's extra encoding work. Payloads are one station document as
+ * the ContentServer sends it, and a verbose one carrying a day of half-hourly observations.
+ * </p>
+ * Add {@code -prof gc} for allocation per PUT.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PutBodyBench {
+
+    private static final String STATION = "{\"id\":\"IDS60901\",\"name\":\"Adelaide (West Terrace /  ngayirdapira)\"," +
+            "\"state\":\"SA\",\"time_zone\":\"CST\",\"lat\":\"-34.9\",\"lon\":\"138.6\",\"local_date_time\":\"15/04:00pm\"," +
+            "\"local_date_time_full\":\"20230715160000\",\"air_temp\":\"13.3\",\"apparent_t\":\"9.5\"," +
+            "\"cloud\":\"Partly cloudy\",\"dewpt\":\"5.7\",\"press\":\"1023.9\",\"rel_hum\":\"60\",\"wind_dir\":\"S\"," +
+            "\"wind_spd_kmh\":\"15\",\"wind_spd_kt\":\"8\"";
+
+    private static final MethodHandle VALIDATE = validateHandle();
+
+    @Param({"station", "verbose"})
+    public String payload;
+
+    @Param({"identity", "gzip"})
+    public String encoding;
+
+    private byte[] json;
+    private byte[] wire;
+
+    @Setup
+    public void setUp() {
+        json = document(payload).getBytes(StandardCharsets.UTF_8);
+        byte[] body = "gzip".equals(encoding) ? GzipCodec.compress(json) : json;
+        byte[] head = ("PUT /weather.json HTTP/1.1\r\n" +
+                "Host: localhost:4567\r\n" +
+                "User-Agent: ContentServer/1.0\r\n" +
+                "X-Lamport-Node: CS-1\r\n" +
+                "X-Lamport-Clock: 12345\r\n" +
+                "Content-Type: application/json; charset=utf-8\r\n" +
+                ("gzip".equals(encoding) ? "Content-Encoding: gzip\r\n" : "") +
+                "Connection: close\r\n" +
+                "Content-Length: " + body.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+        wire = new byte[head.length + body.length];
+        System.arraycopy(head, 0, wire, 0, head.length);
+        System.arraycopy(body, 0, wire, head.length, body.length);
+        System.out.printf("%n[%s/%s] json %d B, body %d B, request on the wire %d B%n",
+                payload, encoding, json.length, body.length, wire.length);
+    }
+
+    @Benchmark
+    public String server() throws Throwable {
+        HttpRequestParser parser = new HttpRequestParser(new ByteArrayInputStream(wire));
+        HttpRequest req = parser.next();
+        byte[] body = parser.readBody(req.contentLength());
+        if (req.hasGzipBody()) body = GzipCodec.inflate(body, 1 << 20);
+        return (String) VALIDATE.invokeExact(new String(body, StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public byte[] client() {
+        return "gzip".equals(encoding) ? GzipCodec.compress(json) : json.clone();
+    }
+
+    private static String document(String payload) {
+        if ("station".equals(payload)) return STATION + "}";
+        StringBuilder sb = new StringBuilder(STATION).append(",\"observations\":[");
+        for (int i = 0; i < 48; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"local_date_time_full\":\"20230715").append(String.format("%02d%02d", i / 2, (i % 2) * 30))
+                    .append("00\",\"air_temp\":\"").append(10 + (i * 7) % 90 / 10.0)
+                    .append("\",\"rel_hum\":\"").append(50 + (i * 13) % 40)
+                    .append("\",\"press\":\"").append(1020 + (i * 3) % 60 / 10.0)
+                    .append("\",\"wind_dir\":\"S\",\"wind_spd_kmh\":\"").append(10 + i % 9).append("\"}");
+        }
+        return sb.append("]}").toString();
+    }
+
+    private static MethodHandle validateHandle() {
+        try {
+            Method m = AggregationServer.class.getDeclaredMethod("validateJsonOrThrow", String.class);
+            m.setAccessible(true);
+            return MethodHandles.lookup().unreflect(m);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
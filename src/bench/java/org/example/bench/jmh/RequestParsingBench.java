@@ -0,0 +1,94 @@
+package org.example.bench.jmh;
+
+import org.example.http.HttpRequest;
+import org.example.http.HttpRequestParser;
+import org.example.server.AggregationServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request-side parsing: the header helpers kept in {@link AggregationServer} (multi-pass, over
+ * pre-split lines), the single-pass {@link HttpRequestParser#parseHead}, and the PUT body
+ * validation {@code validateJsonOrThrow}.
+ * <p>
+ * The server helpers are private, so they are bound once through method handles (as the unit
+ * tests reach them via reflection); constant handles inline like direct calls.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestParsingBench {
+
+    private static final String HEAD = "PUT /weather.json HTTP/1.1\r\n" +
+            "Host: localhost:4567\r\n" +
+            "User-Agent: ContentServer/1.0\r\n" +
+            "X-Lamport-Node: CS-1\r\n" +
+            "X-Lamport-Clock: 12345\r\n" +
+            "Content-Type: application/json; charset=utf-8\r\n" +
+            "Connection: close\r\n" +
+            "Content-Length: 42\r\n\r\n";
+
+    private static final String JSON = "{\"id\":\"IDS60901\",\"name\":\"Adelaide\",\"state\":\"SA\"," +
+            "\"air_temp\":13.3,\"rel_hum\":60,\"wind_dir\":\"S\",\"wind_spd_kmh\":15}";
+
+    private static final MethodHandle CONTENT_LENGTH = handle("contentLengthFrom", String[].class);
+    private static final MethodHandle LAMPORT = handle("parseLamportFromHeaders", String[].class);
+    private static final MethodHandle HEADER_VALUE = handle("parseHeaderValue", String[].class, String.class);
+    private static final MethodHandle VALIDATE = handle("validateJsonOrThrow", String.class);
+
+    private final byte[] headBytes = HEAD.getBytes(StandardCharsets.UTF_8);
+    private final String[] headLines = HEAD.split("\r\n");
+
+    @Benchmark
+    public int legacyContentLength() throws Throwable {
+        return (int) CONTENT_LENGTH.invokeExact(headLines);
+    }
+
+    @Benchmark
+    public long legacyLamportClock() throws Throwable {
+        return (long) LAMPORT.invokeExact(headLines);
+    }
+
+    @Benchmark
+    public String legacyHeaderValue() throws Throwable {
+        return (String) HEADER_VALUE.invokeExact(headLines, "X-Lamport-Node");
+    }
+
+    /** Everything the three legacy helpers find, in one pass over the raw bytes. */
+    @Benchmark
+    public HttpRequest singlePassHead() {
+        return HttpRequestParser.parseHead(headBytes, 0, headBytes.length);
+    }
+
+    @Benchmark
+    public String validateJson() throws Throwable {
+        return (String) VALIDATE.invokeExact(JSON);
+    }
+
+    private static MethodHandle handle(String name, Class<?>... params) {
+        try {
+            Method m = AggregationServer.class.getDeclaredMethod(name, params);
+            m.setAccessible(true);
+            return MethodHandles.lookup().unreflect(m);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
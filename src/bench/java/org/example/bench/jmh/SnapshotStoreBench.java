@@ -0,0 +1,158 @@
+package org.example.bench.jmh;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import org.example.interfaces.SnapshotStore;
+import org.example.persistance.FileSnapshotStore;
+import org.example.persistance.LogSnapshotStore;
+import org.example.persistance.MappedSnapshotStore;
+import org.example.persistance.SnapshotFormat;
+import org.example.util.MetricsRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * {@link FileSnapshotStore} vs {@link LogSnapshotStore} vs {@link MappedSnapshotStore} save and load of
+ * a feed with {@code stations} station documents, in a temporary directory. The file store writes three
+ * files (snapshot, latest, manifest) with atomic renames per save, as JSON text or, for {@code binary},
+ * in the {@link SnapshotFormat#BINARY} encoding; the log store appends one record; the mapped store copies one
+ * record into a pre-allocated mapping (fsync left to the OS throughout, so these measure the write path,
+ * not the disk flush). Load for the log and mapped stores is a restart: open, recover, close. Restore
+ * adds what startup does with the result (document decoding or JSON parsing). These
+ * measure the file system as much as the code; compare runs on the same machine only.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotStoreBench {
+
+    @Param({"1", "100"})
+    public int stations;
+
+    @Param({"file", "binary", "wal", "mmap"})
+    public String kind;
+
+    private Path dir;
+    private SnapshotStore store;
+    private String feed;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("snapshot-bench");
+        store = switch (kind) {
+            case "wal" -> openLog();
+            case "mmap" -> openMapped();
+            case "binary" -> new FileSnapshotStore(dir, "weather", new MetricsRegistry(), SnapshotFormat.BINARY);
+            default -> new FileSnapshotStore(dir, "weather");
+        };
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < stations; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"id\":\"IDS").append(60000 + i).append("\",\"name\":\"Station ").append(i)
+              .append("\",\"air_temp\":\"13.").append(i % 10).append("\",\"rel_hum\":\"60\",\"wind_dir\":\"S\"")
+              .append(",\"wind_spd_kmh\":15,\"local_date_time_full\":\"20230715160000\"}");
+        }
+        feed = sb.append(']').toString();
+        store.save(feed);
+    }
+
+    /**
+     * Timestamped files accumulate during save(); clear all but the newest (named by the manifest) so
+     * load() keeps a fixed directory size.
+     */
+    @Setup(Level.Iteration)
+    public void trimHistory() throws IOException {
+        if (!(store instanceof FileSnapshotStore)) return; // the log and mapped stores bound themselves
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(p -> p.getFileName().toString().startsWith("weather-"))
+                 .sorted(Comparator.reverseOrder()).skip(1).forEach(SnapshotStoreBench::delete);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (store instanceof AutoCloseable c) {
+            try {
+                c.close();
+            } catch (Exception ignored) {
+                // closing a benchmark store cannot affect results
+            }
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(SnapshotStoreBench::delete);
+        }
+    }
+
+    @Benchmark
+    public void save() {
+        store.save(feed);
+    }
+
+    @Benchmark
+    public String load() {
+        if (store instanceof LogSnapshotStore) {
+            try (LogSnapshotStore restarted = openLog()) {
+                return restarted.load();
+            }
+        }
+        if (store instanceof MappedSnapshotStore) {
+            try (MappedSnapshotStore restarted = openMapped()) {
+                return restarted.load();
+            }
+        }
+        return store.load();
+    }
+
+    /**
+     * What server startup does with the snapshot: documents straight from the store when it can decode
+     * them, otherwise parse the JSON, re-serialize each entry and parse it again for its id.
+     */
+    @Benchmark
+    public int restore() {
+        Map<String, String> docs = store.loadDocuments();
+        if (docs != null) return docs.size();
+        int n = 0;
+        for (JsonElement doc : JsonParser.parseString(load()).getAsJsonArray()) {
+            n += JsonParser.parseString(doc.toString()).getAsJsonObject().get("id").getAsString().length() > 0 ? 1 : 0;
+        }
+        return n;
+    }
+
+    private MappedSnapshotStore openMapped() {
+        return new MappedSnapshotStore(dir, "weather", 16L << 20, LogSnapshotStore.Fsync.OS, 50L, new MetricsRegistry());
+    }
+
+    private LogSnapshotStore openLog() {
+        return new LogSnapshotStore(dir, "weather", LogSnapshotStore.Fsync.OS, 50L, 1L << 20, new MetricsRegistry());
+    }
+
+    private static void delete(Path p) {
+        try {
+            Files.deleteIfExists(p);
+        } catch (IOException ignored) {
+            // best effort cleanup of a temp directory
+        }
+    }
+}
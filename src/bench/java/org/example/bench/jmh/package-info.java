@@ -0,0 +1,15 @@
+/**
+ * JMH microbenchmarks for the core components, used to catch regressions before a build rolls out.
+ * <p>
+ * Unlike the plain {@code main} benchmarks in {@code org.example.bench}, these run under the JMH
+ * harness (forked JVMs, warm-up, error bounds). The bench profile adds JMH and its annotation
+ * processor; the processor generates the harness classes during test-compile.
+ * </p>
+ * Run all, or a subset by regex:
+ * <pre>
+ * mvn -Pbench test-compile dependency:build-classpath -Dmdep.outputFile=target/bench.cp -Dmdep.includeScope=test
+ * java -cp "target/test-classes:target/classes:$(cat target/bench.cp)" org.openjdk.jmh.Main [regex] [-f 1 -wi 3 -i 5]
+ * </pre>
+ * Add {@code -rf json -rff target/jmh.json} to keep a machine-readable baseline for comparison.
+ */
+package org.example.bench.jmh;
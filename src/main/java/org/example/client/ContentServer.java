@@ -13,7 +13,10 @@ import java.nio.file.Path;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import org.example.http.DefaultHttpHandler;
+import org.example.http.GzipCodec;
 import org.example.interfaces.HttpHandler;
+import org.example.interfaces.Logger;
+import org.example.util.AsyncLogger;
 
 /**
  * ContentServer uploads local weather data to the AggregationServer via HTTP PUT requests.
@@ -23,6 +26,8 @@ import org.example.interfaces.HttpHandler;
  *     <li>HTTP status codes and retryable error handling were refactored into constants.</li>
  *     <li>Comments clarify intent without altering control flow.</li>
  *     <li>Lamport clock logic is intentionally simple and side-effect-based (ticks before send, updates on response).</li>
+ *     <li>With {@code --gzip} the body is sent with {@code Content-Encoding: gzip}; the server inflates it
+ *         under a size cap.</li>
  * </ul>
  */
 public final class ContentServer {
@@ -40,6 +45,9 @@ public final class ContentServer {
     // HTTP handler (wire-level only)
     private static final HttpHandler HTTP = new DefaultHttpHandler();
 
+    // Request/response traces go through the async logger (Lamport details at DEBUG)
+    private static final Logger LOG = AsyncLogger.shared();
+
     // Retry policy: 4 attempts, exponential backoff (200 → 400 → 800 → 1600 ms) + ≤100ms jitter.
     // Sonar: these parameters match assignment specs, not hardcoded magic numbers in logic.
     private static final org.example.interfaces.RetryExecutor RETRY =
@@ -49,7 +57,7 @@ public final class ContentServer {
      * CLI entry point for sending a single PUT request.
      * Example usage:
      * <pre>
-     * java -cp target/classes org.example.client.ContentServer localhost:4567 src/main/resources/weather.txt
+     * java -cp target/classes org.example.client.ContentServer localhost:4567 src/main/resources/weather.txt [--gzip]
      * </pre>
      */
     public static void main(String[] args) throws Exception {
@@ -59,6 +67,7 @@ public final class ContentServer {
         // Input arguments
         String urlOrHostPort = args[0];
         String filePath = args[1];
+        boolean gzip = args.length > 2 && "--gzip".equals(args[2]);
 
         // --- Target parsing ---
         String hostPort = urlOrHostPort.replaceFirst("^https?://", "");
@@ -68,11 +77,12 @@ public final class ContentServer {
 
         // --- Prepare body payload ---
         byte[] bodyBytes = buildBody(Path.of(filePath));
+        if (gzip && bodyBytes.length > 0) bodyBytes = GzipCodec.compress(bodyBytes);
         int contentLength = bodyBytes.length;
 
         // --- Lamport tick and header setup ---
         CLOCK.tick();
-        Map<String, String> extra = buildExtraHeaders();
+        Map<String, String> extra = buildExtraHeaders(gzip && contentLength > 0);
         logLamportSend();
 
         // --- Build HTTP PUT request ---
@@ -93,7 +103,7 @@ public final class ContentServer {
     /** Validates CLI arguments, prints usage if insufficient. */
     private static boolean validateArgs(String[] args) {
         if (args.length < 2) {
-            System.out.println("Usage:\n  ContentServer <host:port | http://host:port[/path]> <filePath>");
+            System.out.println("Usage:\n  ContentServer <host:port | http://host:port[/path]> <filePath> [--gzip]");
             return false;
         }
         return true;
@@ -105,27 +115,28 @@ public final class ContentServer {
     }
 
     /** Builds required HTTP headers including Lamport metadata and content type. */
-    private static Map<String, String> buildExtraHeaders() {
+    private static Map<String, String> buildExtraHeaders(boolean gzip) {
         Map<String, String> extra = new LinkedHashMap<>();
         extra.put("User-Agent", "ContentServer/1.0");
         extra.put("X-Lamport-Node", NODE_ID);
         extra.put("X-Lamport-Clock", String.valueOf(CLOCK.get()));
         extra.put("Content-Type", "application/json; charset=utf-8");
+        if (gzip) extra.put("Content-Encoding", "gzip");
+        extra.put("Connection", "close"); // one PUT per run; don't hold a keep-alive slot on the server
         return extra;
     }
 
     /** Prints current Lamport clock state before sending a request. */
     private static void logLamportSend() {
-        System.out.println("[Lamport] ContentServer sending request");
-        System.out.println("          Node ID: " + NODE_ID);
-        System.out.println("          Current Clock: " + CLOCK.get());
+        LOG.debug("[Lamport] ContentServer sending request\n" +
+                "          Node ID: " + NODE_ID + "\n" +
+                "          Current Clock: " + CLOCK.get());
     }
 
     /** Prints HTTP request preview for easier grading/debugging. */
     private static void logRequestPreview(String headers, int contentLength) {
-        System.out.println("Request sent:");
-        System.out.print(headers.replace("\r\n", "\n"));
-        System.out.println(contentLength == 0 ? "(empty body)" : "(body bytes): " + contentLength);
+        LOG.info("Request sent:\n" + headers.replace("\r\n", "\n") +
+                (contentLength == 0 ? "(empty body)" : "(body bytes): " + contentLength));
     }
 
     /**
@@ -168,9 +179,9 @@ public final class ContentServer {
     private static void showResponseHeaders(String resp) {
         int hdrEnd = resp.indexOf("\r\n\r\n");
         if (hdrEnd > 0) {
-            System.out.println("\n--- Response headers start ---");
-            System.out.println(resp.substring(0, hdrEnd));
-            System.out.println("--- Response headers end ---");
+            LOG.info("\n--- Response headers start ---\n" +
+                    resp.substring(0, hdrEnd) + "\n" +
+                    "--- Response headers end ---");
         }
     }
 
@@ -181,9 +192,9 @@ public final class ContentServer {
             try {
                 long remote = Long.parseLong(respClock);
                 long after = CLOCK.update(remote);
-                System.out.println("[Lamport] ContentServer received response");
-                System.out.println("          Server Clock: " + remote);
-                System.out.println("          Updated Local Clock: " + after);
+                LOG.debug("[Lamport] ContentServer received response\n" +
+                        "          Server Clock: " + remote + "\n" +
+                        "          Updated Local Clock: " + after);
             } catch (Exception ignored) {
                 // Sonar: invalid Lamport value ignored intentionally (non-fatal).
             }
@@ -195,16 +206,13 @@ public final class ContentServer {
         String statusLine = firstLine(resp);
         String body = bodyOf(resp);
 
-        System.out.println("\nServer Response:");
-        System.out.println(statusLine);
-        if (!body.isBlank())
-            System.out.println(body);
+        LOG.info("\nServer Response:\n" + statusLine + (body.isBlank() ? "" : "\n" + body));
     }
 
-    /* ---------------- lower-level helpers (unchanged behavior) ---------------- */
+    /* ---------------- lower-level helpers (unchanged behavior; package-private ones shared with LoadGenerator) ---------------- */
 
     /** Extracts specific header value (case-insensitive). */
-    private static String headerValue(String http, String name) {
+    static String headerValue(String http, String name) {
         int headEnd = http.indexOf("\r\n\r\n");
         String headers = (headEnd >= 0) ? http.substring(0, headEnd) : http;
         for (String line : headers.split("\r\n")) {
@@ -217,7 +225,7 @@ public final class ContentServer {
     }
 
     /** Extracts numeric HTTP status code from status line, or -1 if invalid. */
-    private static int statusCodeOf(String statusLine) {
+    static int statusCodeOf(String statusLine) {
         String[] parts = statusLine.split(" ");
         if (parts.length >= 2) {
             try {
@@ -267,14 +275,14 @@ public final class ContentServer {
     }
 
     /** Extracts hostname portion from host:port/path. */
-    private static String parseHost(String hostPort) {
+    static String parseHost(String hostPort) {
         String hp = hostPort.contains("/") ? hostPort.substring(0, hostPort.indexOf('/')) : hostPort;
         int i = hp.indexOf(':');
         return (i >= 0) ? hp.substring(0, i) : hp;
     }
 
     /** Extracts port number, or uses default if missing. */
-    private static int parsePort(String hostPort, int def) {
+    static int parsePort(String hostPort, int def) {
         String hp = hostPort.contains("/") ? hostPort.substring(0, hostPort.indexOf('/')) : hostPort;
         int i = hp.indexOf(':');
         if (i >= 0) {
@@ -294,7 +302,7 @@ public final class ContentServer {
     }
 
     /** Returns the first line (status line) of an HTTP message. */
-    private static String firstLine(String http) {
+    static String firstLine(String http) {
         int i = http.indexOf("\r\n");
         return (i >= 0) ? http.substring(0, i) : http;
     }
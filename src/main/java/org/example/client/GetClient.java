@@ -2,14 +2,25 @@ package org.example.client;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
 import com.google.gson.reflect.TypeToken;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPInputStream;
 import org.example.http.DefaultHttpHandler;
 import org.example.interfaces.HttpHandler;
+import org.example.interfaces.Logger;
+import org.example.util.AsyncLogger;
 
 /**
  * GetClient retrieves the latest weather data from the AggregationServer using HTTP GET.
@@ -18,6 +29,7 @@ import org.example.interfaces.HttpHandler;
  * <ul>
  *     <li>No logic changed — only minor constants and explanatory comments were added.</li>
  *     <li>Lamport clocks are used for causal ordering; each request updates and sends its clock.</li>
+ *     <li>Requests {@code Accept-Encoding: gzip} and gunzips a compressed body before printing it.</li>
  *     <li>All I/O exceptions bubble up for transparency (expected for assignment behavior).</li>
  * </ul>
  */
@@ -37,6 +49,9 @@ public final class GetClient implements org.example.interfaces.GetClient {
 
     private static final HttpHandler HTTP = new DefaultHttpHandler();
 
+    // Request/response traces go through the async logger (Lamport details at DEBUG)
+    private static final Logger LOG = AsyncLogger.shared();
+
     /**
      * CLI entry point for manual testing.
      * Example: {@code java -cp target/classes org.example.client.GetClient localhost:4567 /weather.json}
@@ -52,8 +67,7 @@ public final class GetClient implements org.example.interfaces.GetClient {
 
         String response = new GetClient().fetch(urlOrHostPort, pathOrNull);
         if (!response.isEmpty()) {
-            System.out.println("\nServer Response:");
-            System.out.println(response);
+            LOG.info("\nServer Response:\n" + response);
         }
     }
 
@@ -78,25 +92,25 @@ public final class GetClient implements org.example.interfaces.GetClient {
         Map<String, String> extra = new LinkedHashMap<>();
 
         // --- Lamport human-readable log before sending ---
-        System.out.println("[Lamport] GetClient sending request");
-        System.out.println("          Node ID: " + NODE_ID);
-        System.out.println("          Current Clock: " + CLOCK.get());
+        LOG.debug("[Lamport] GetClient sending request\n" +
+                "          Node ID: " + NODE_ID + "\n" +
+                "          Current Clock: " + CLOCK.get());
 
         extra.put("X-Lamport-Node", NODE_ID);
         extra.put("X-Lamport-Clock", String.valueOf(CLOCK.get()));
+        extra.put("Accept-Encoding", "gzip");
         extra.put("Connection", "close");
 
         // Build GET request with headers
         String req = HTTP.buildRequest("GET", path, host, port, extra, ZERO_CONTENT_LENGTH);
 
         // Print outgoing request (for assignment grading clarity)
-        System.out.println("Request sent:");
-        System.out.print(req.replace("\r\n", "\n"));
+        LOG.info("Request sent:\n" + req.replace("\r\n", "\n").stripTrailing());
 
         // --- Networking block ---
         try (Socket socket = new Socket(host, port); OutputStream out = socket.getOutputStream(); InputStream in = socket.getInputStream()) {
             HTTP.send(out, req, new byte[0]);
-            String resp = HTTP.readRawResponse(in);
+            String resp = decodeResponse(in.readAllBytes());
 
             // --- Lamport clock update from response ---
             String respClock = headerValue(resp, "X-Lamport-Clock");
@@ -105,9 +119,9 @@ public final class GetClient implements org.example.interfaces.GetClient {
                     long remote = Long.parseLong(respClock);
                     long after = CLOCK.update(remote);
 
-                    System.out.println("[Lamport] GetClient received response");
-                    System.out.println("          Remote (Server) Clock: " + remote);
-                    System.out.println("          Updated Local Clock: " + after);
+                    LOG.debug("[Lamport] GetClient received response\n" +
+                            "          Remote (Server) Clock: " + remote + "\n" +
+                            "          Updated Local Clock: " + after);
                 } catch (Exception ignored) {
                     // Sonar: intentionally ignored; invalid clock header should not break flow.
                 }
@@ -163,6 +177,31 @@ public final class GetClient implements org.example.interfaces.GetClient {
         return (i >= 0) ? resp.substring(i + 4) : "";
     }
 
+    /**
+     * Turns raw response bytes into text, gunzipping the body if it has {@code Content-Encoding: gzip}.
+     * Headers are ASCII, so they are decoded separately from the (possibly compressed) body.
+     */
+    private static String decodeResponse(byte[] raw) throws IOException {
+        int headEnd = indexOfBlankLine(raw);
+        if (headEnd < 0) return new String(raw, StandardCharsets.UTF_8);
+        String head = new String(raw, 0, headEnd, StandardCharsets.ISO_8859_1);
+        byte[] body = Arrays.copyOfRange(raw, headEnd + 4, raw.length);
+        if ("gzip".equalsIgnoreCase(headerValue(head, "Content-Encoding"))) {
+            try (InputStream gz = new GZIPInputStream(new ByteArrayInputStream(body))) {
+                body = gz.readAllBytes();
+            }
+        }
+        return head + "\r\n\r\n" + new String(body, StandardCharsets.UTF_8);
+    }
+
+    /** @return index of the first CRLFCRLF, or -1 */
+    private static int indexOfBlankLine(byte[] raw) {
+        for (int i = 0; i + 3 < raw.length; i++) {
+            if (raw[i] == '\r' && raw[i + 1] == '\n' && raw[i + 2] == '\r' && raw[i + 3] == '\n') return i;
+        }
+        return -1;
+    }
+
     /** Returns only the first line (status line) of the HTTP response. */
     private static String statusLineOf(String resp) {
         int i = resp.indexOf("\r\n");
@@ -194,9 +233,25 @@ public final class GetClient implements org.example.interfaces.GetClient {
         return null;
     }
 
-    /** Converts all JSON values to string form and pretty-prints (for visual clarity). */
+    /**
+     * Converts all JSON values to string form and pretty-prints (for visual clarity).
+     * The aggregated feed (a JSON array of station documents) is converted element by element.
+     */
     private static String toPrettyAllStrings(String jsonBody) {
-        Map<String, Object> original = GSON.fromJson(jsonBody, new TypeToken<LinkedHashMap<String, Object>>() {}.getType());
+        JsonElement root = JsonParser.parseString(jsonBody);
+        if (root.isJsonArray()) {
+            List<Map<String, String>> stations = new ArrayList<>();
+            for (JsonElement e : root.getAsJsonArray()) {
+                stations.add(allStrings(e.toString()));
+            }
+            return PRETTY.toJson(stations);
+        }
+        return PRETTY.toJson(allStrings(jsonBody));
+    }
+
+    /** Parses one JSON object and stringifies its values, keeping field order. */
+    private static Map<String, String> allStrings(String jsonObject) {
+        Map<String, Object> original = GSON.fromJson(jsonObject, new TypeToken<LinkedHashMap<String, Object>>() {}.getType());
         LinkedHashMap<String, String> asStrings = new LinkedHashMap<>();
         if (original != null) {
             for (String k : original.keySet()) {
@@ -204,6 +259,6 @@ public final class GetClient implements org.example.interfaces.GetClient {
                 asStrings.put(k, (v == null) ? "null" : String.valueOf(v));
             }
         }
-        return PRETTY.toJson(asStrings);
+        return asStrings;
     }
 }
@@ -0,0 +1,316 @@
+package org.example.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.example.http.DefaultHttpHandler;
+import org.example.interfaces.HttpHandler;
+import org.example.interfaces.Logger;
+import org.example.util.AsyncLogger;
+
+/**
+ * LoadGenerator drives an open-loop mix of PUT and GET requests against a running AggregationServer
+ * and reports throughput plus latency percentiles.
+ * <p>
+ * Requests follow a fixed schedule ({@code rate} per second): request {@code i} is due at
+ * {@code start + i / rate}, whichever worker connection is free picks up the next slot, and latency
+ * is measured from the <i>due</i> time rather than the send time. When the server falls behind, the
+ * queueing it causes is therefore counted instead of silently stretching the schedule
+ * (coordinated-omission correction). The uncorrected send-to-response time is reported alongside.
+ * </p>
+ * <p>
+ * The wire format is the one {@link ContentServer} and {@link GetClient} use: {@link HttpHandler}
+ * request building, Lamport {@code X-Lamport-Clock}/{@code X-Lamport-Node} headers (ticked before
+ * each send, updated from each response) and one {@code Connection: close} exchange per request.
+ * </p>
+ * <b>SonarQube notes:</b>
+ * <ul>
+ *   <li>Every latency sample is kept (per worker, merged at the end), so percentiles are exact.</li>
+ *   <li>Samples due during the warm-up window are sent but not recorded.</li>
+ *   <li>I/O failures are counted separately and excluded from the latency figures.</li>
+ * </ul>
+ */
+public final class LoadGenerator {
+
+    private static final int DEFAULT_PORT = 4567;
+    private static final int SOCKET_TIMEOUT_MS = 10_000;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final String PATH = "/weather.json";
+    private static final String NODE_ID = "LOAD-1";
+
+    private static final org.example.interfaces.LamportClock CLOCK = new org.example.util.AtomicLamportClock();
+    private static final HttpHandler HTTP = new DefaultHttpHandler();
+    private static final Logger LOG = AsyncLogger.shared();
+
+    /** Request types in the mix. */
+    public enum Op { PUT, GET }
+
+    /**
+     * Load shape.
+     *
+     * @param ratePerSecond  scheduled requests per second (open loop)
+     * @param durationSec    measured run length, after warm-up
+     * @param warmupSec      initial seconds whose requests are sent but not recorded
+     * @param putPercent     share of PUTs in the mix, 0..100 (the rest are GETs)
+     * @param connections    worker threads, i.e. the maximum number of requests in flight
+     * @param stations       distinct station ids the PUTs rotate through
+     */
+    public record Config(double ratePerSecond, int durationSec, int warmupSec,
+                         int putPercent, int connections, int stations) {
+        public Config {
+            if (ratePerSecond <= 0 || durationSec <= 0 || warmupSec < 0 || connections <= 0 || stations <= 0
+                    || putPercent < 0 || putPercent > 100) {
+                throw new IllegalArgumentException("invalid load config: rate=" + ratePerSecond + " duration=" +
+                        durationSec + " warmup=" + warmupSec + " put%=" + putPercent + " connections=" +
+                        connections + " stations=" + stations);
+            }
+        }
+    }
+
+    /**
+     * Results for one request type.
+     *
+     * @param responses  responses received (any status)
+     * @param non2xx     responses whose status was not 2xx
+     * @param failures   requests that failed with an I/O error (no latency recorded)
+     * @param corrected  sorted due-to-response latencies, nanoseconds
+     * @param service    sorted send-to-response latencies, nanoseconds
+     */
+    public record OpStats(long responses, long non2xx, long failures, long[] corrected, long[] service) {}
+
+    /**
+     * Results of a run.
+     *
+     * @param config       the load shape
+     * @param elapsedNanos measured window: end of warm-up to the last recorded response
+     * @param ops          per request type
+     */
+    public record Report(Config config, long elapsedNanos, Map<Op, OpStats> ops) {
+
+        /** @return recorded responses per second over the measured window */
+        public double throughput() {
+            long n = 0L;
+            for (OpStats s : ops.values()) n += s.responses();
+            return (elapsedNanos <= 0L) ? 0.0 : n * (double) NANOS_PER_SECOND / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(512);
+            sb.append(String.format(Locale.ROOT, "target %.1f req/s, achieved %.1f req/s over %.2f s (%d connections)%n",
+                    config.ratePerSecond(), throughput(), elapsedNanos / (double) NANOS_PER_SECOND,
+                    config.connections()));
+            sb.append(String.format(Locale.ROOT, "%-4s %9s %7s %7s  %-9s %10s %10s %10s %10s%n",
+                    "op", "responses", "non2xx", "failed", "latency", "p50(ms)", "p99(ms)", "p999(ms)", "max(ms)"));
+            for (Map.Entry<Op, OpStats> e : ops.entrySet()) {
+                OpStats s = e.getValue();
+                row(sb, e.getKey().name(), s, "corrected", s.corrected());
+                row(sb, "", null, "service", s.service());
+            }
+            return sb.toString();
+        }
+
+        private static void row(StringBuilder sb, String op, OpStats s, String kind, long[] sorted) {
+            sb.append(String.format(Locale.ROOT, "%-4s %9s %7s %7s  %-9s %10.2f %10.2f %10.2f %10.2f%n", op,
+                    s == null ? "" : s.responses(), s == null ? "" : s.non2xx(), s == null ? "" : s.failures(),
+                    kind, ms(percentile(sorted, 0.50)), ms(percentile(sorted, 0.99)),
+                    ms(percentile(sorted, 0.999)), ms(percentile(sorted, 1.0))));
+        }
+
+        private static double ms(long nanos) {
+            return nanos / 1e6;
+        }
+    }
+
+    /** Per-worker sample buffers (single writer, merged after the run). */
+    private static final class Recorder {
+        final long[][] corrected = { new long[1024], new long[1024] };
+        final long[][] service = { new long[1024], new long[1024] };
+        final int[] size = new int[2];
+        final long[] non2xx = new long[2];
+        final long[] failures = new long[2];
+        long lastDone = 0L;
+
+        void record(Op op, long correctedNanos, long serviceNanos) {
+            int k = op.ordinal();
+            if (size[k] == corrected[k].length) {
+                corrected[k] = Arrays.copyOf(corrected[k], size[k] * 2);
+                service[k] = Arrays.copyOf(service[k], size[k] * 2);
+            }
+            corrected[k][size[k]] = correctedNanos;
+            service[k][size[k]] = serviceNanos;
+            size[k]++;
+        }
+    }
+
+    private LoadGenerator() {}
+
+    /**
+     * CLI entry point.
+     * Example:
+     * <pre>
+     * java -cp "target/classes:target/dependency/*" org.example.client.LoadGenerator localhost:4567 500 30 20 32 10 5
+     * </pre>
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("Usage:\n  LoadGenerator <host:port> [ratePerSec=500] [durationSec=30] [putPercent=20]" +
+                    " [connections=32] [stations=10] [warmupSec=5]");
+            return;
+        }
+        String hostPort = args[0].replaceFirst("^https?://", "");
+        Config cfg = new Config(
+                (args.length > 1) ? Double.parseDouble(args[1]) : 500.0,
+                (args.length > 2) ? Integer.parseInt(args[2]) : 30,
+                (args.length > 6) ? Integer.parseInt(args[6]) : 5,
+                (args.length > 3) ? Integer.parseInt(args[3]) : 20,
+                (args.length > 4) ? Integer.parseInt(args[4]) : 32,
+                (args.length > 5) ? Integer.parseInt(args[5]) : 10);
+
+        LOG.info("[Load] " + cfg);
+        Report report = run(ContentServer.parseHost(hostPort), ContentServer.parsePort(hostPort, DEFAULT_PORT), cfg);
+        LOG.info("\n" + report);
+        LOG.flush();
+    }
+
+    /**
+     * Runs one load test to completion (warm-up plus duration, then the last in-flight responses).
+     *
+     * @return the measured results
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public static Report run(String host, int port, Config cfg) throws InterruptedException {
+        byte[][] bodies = new byte[cfg.stations()][];
+        for (int s = 0; s < bodies.length; s++) {
+            bodies[s] = ("{\"id\":\"LOAD-" + s + "\",\"name\":\"Load station " + s + "\",\"state\":\"SA\"," +
+                    "\"air_temp\":\"" + (10 + s % 20) + ".5\"}").getBytes(StandardCharsets.UTF_8);
+        }
+
+        double nanosPerRequest = NANOS_PER_SECOND / cfg.ratePerSecond();
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(50); // let every worker start
+        long measureFrom = start + cfg.warmupSec() * NANOS_PER_SECOND;
+        long end = measureFrom + cfg.durationSec() * NANOS_PER_SECOND;
+        AtomicLong next = new AtomicLong();
+
+        Recorder[] recorders = new Recorder[cfg.connections()];
+        Thread[] workers = new Thread[cfg.connections()];
+        for (int w = 0; w < workers.length; w++) {
+            Recorder rec = recorders[w] = new Recorder();
+            workers[w] = new Thread(() -> {
+                while (true) {
+                    long i = next.getAndIncrement();
+                    long due = start + (long) (i * nanosPerRequest);
+                    if (due - end >= 0L) return;
+                    for (long wait = due - System.nanoTime(); wait > 0L; wait = due - System.nanoTime()) {
+                        LockSupport.parkNanos(wait);
+                    }
+                    boolean measured = due - measureFrom >= 0L;
+                    Op op = (ThreadLocalRandom.current().nextInt(100) < cfg.putPercent()) ? Op.PUT : Op.GET;
+                    byte[] body = (op == Op.PUT) ? bodies[(int) (i % bodies.length)] : new byte[0];
+
+                    long sent = System.nanoTime();
+                    int status;
+                    try {
+                        status = exchange(host, port, op, body);
+                    } catch (IOException e) {
+                        if (measured) rec.failures[op.ordinal()]++;
+                        continue;
+                    }
+                    long done = System.nanoTime();
+                    if (measured) {
+                        rec.record(op, done - due, done - sent);
+                        if (status / 100 != 2) rec.non2xx[op.ordinal()]++;
+                        rec.lastDone = done;
+                    }
+                }
+            }, "load-" + w);
+            workers[w].setDaemon(true);
+            workers[w].start();
+        }
+        for (Thread t : workers) t.join();
+
+        long lastDone = measureFrom;
+        Map<Op, OpStats> ops = new LinkedHashMap<>();
+        for (Recorder r : recorders) lastDone = Math.max(lastDone, r.lastDone);
+        for (Op op : Op.values()) ops.put(op, merge(recorders, op));
+        return new Report(cfg, lastDone - measureFrom, ops);
+    }
+
+    /**
+     * Returns the value at quantile {@code q} of an ascending array (nearest rank).
+     *
+     * @return nanoseconds, or 0 if {@code sorted} is empty
+     */
+    static long percentile(long[] sorted, double q) {
+        if (sorted.length == 0) return 0L;
+        int rank = (int) Math.ceil(q * sorted.length);
+        return sorted[Math.min(sorted.length, Math.max(1, rank)) - 1];
+    }
+
+    /* ---------------- helpers ---------------- */
+
+    /** One request/response exchange, exactly as the CLI clients send it; returns the status code. */
+    private static int exchange(String host, int port, Op op, byte[] body) throws IOException {
+        CLOCK.tick();
+        Map<String, String> extra = new LinkedHashMap<>();
+        extra.put("User-Agent", "LoadGenerator/1.0");
+        extra.put("X-Lamport-Node", NODE_ID);
+        extra.put("X-Lamport-Clock", String.valueOf(CLOCK.get()));
+        if (op == Op.PUT) extra.put("Content-Type", "application/json; charset=utf-8");
+        extra.put("Connection", "close");
+        String headers = HTTP.buildRequest(op.name(), PATH, host, port, extra, body.length);
+
+        try (Socket s = new Socket()) {
+            s.connect(new InetSocketAddress(host, port), SOCKET_TIMEOUT_MS);
+            s.setSoTimeout(SOCKET_TIMEOUT_MS);
+            OutputStream out = s.getOutputStream();
+            InputStream in = s.getInputStream();
+            HTTP.send(out, headers, body);
+            String resp = HTTP.readRawResponse(in);
+
+            String remote = ContentServer.headerValue(resp, "X-Lamport-Clock");
+            if (remote != null) {
+                try {
+                    CLOCK.update(Long.parseLong(remote));
+                } catch (NumberFormatException ignored) {
+                    // Sonar: invalid Lamport value ignored intentionally (non-fatal).
+                }
+            }
+            return ContentServer.statusCodeOf(ContentServer.firstLine(resp));
+        }
+    }
+
+    private static OpStats merge(Recorder[] recorders, Op op) {
+        int k = op.ordinal();
+        int n = 0;
+        long non2xx = 0L;
+        long failures = 0L;
+        for (Recorder r : recorders) {
+            n += r.size[k];
+            non2xx += r.non2xx[k];
+            failures += r.failures[k];
+        }
+        long[] corrected = new long[n];
+        long[] service = new long[n];
+        int at = 0;
+        for (Recorder r : recorders) {
+            System.arraycopy(r.corrected[k], 0, corrected, at, r.size[k]);
+            System.arraycopy(r.service[k], 0, service, at, r.size[k]);
+            at += r.size[k];
+        }
+        Arrays.sort(corrected);
+        Arrays.sort(service);
+        return new OpStats(n, non2xx, failures, corrected, service);
+    }
+}
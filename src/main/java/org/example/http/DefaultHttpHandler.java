@@ -87,13 +87,16 @@ public class DefaultHttpHandler implements HttpHandler {
             case NO_CONTENT -> "No Content";
             case BAD_REQUEST -> "Bad Request";
             case NOT_FOUND -> "Not Found";
+            case PAYLOAD_TOO_LARGE -> "Payload Too Large";
+            case UNSUPPORTED_MEDIA_TYPE -> "Unsupported Media Type";
             case INTERNAL_SERVER_ERROR -> "Internal Server Error";
+            case SERVICE_UNAVAILABLE -> "Service Unavailable";
             default -> "Unknown";
         };
     }
 
     /**
-     * Writes an HTTP response with no body.
+     * Writes an HTTP response with no body and {@code Connection: close}.
      * <p>
      * The Lamport clock is ticked before sending (each send counts as an event).
      * </p>
@@ -107,6 +110,21 @@ public class DefaultHttpHandler implements HttpHandler {
     @Override
     public void writeEmpty(OutputStream out, int statusCode,
                            LamportClock clock, String nodeId) throws IOException {
+        writeEmpty(out, statusCode, clock, nodeId, false);
+    }
+
+    /**
+     * Writes an HTTP response with no body.
+     * <p>
+     * The Lamport clock is ticked before sending (each send counts as an event).
+     * </p>
+     *
+     * @param keepAlive   {@code true} to advertise a persistent connection, else {@code Connection: close}.
+     * @throws IOException if writing to the stream fails.
+     */
+    @Override
+    public void writeEmpty(OutputStream out, int statusCode,
+                           LamportClock clock, String nodeId, boolean keepAlive) throws IOException {
         // Tick on every send event (Lamport local event)
         clock.tick();
         String res =
@@ -114,17 +132,13 @@ public class DefaultHttpHandler implements HttpHandler {
                         "X-Lamport-Node: " + nodeId + "\r\n" +
                         "X-Lamport-Clock: " + clock.get() + "\r\n" +
                         "Content-Length: 0\r\n" +
-                        "Connection: close\r\n\r\n";
+                        connectionHeader(keepAlive) + "\r\n";
 
         out.write(res.getBytes(StandardCharsets.UTF_8));
     }
 
     /**
-     * Writes an HTTP JSON response, including Lamport metadata headers.
-     * <p>
-     * Sonar: tick() is intentionally called before composing headers;
-     * body encoding is UTF-8 by design for deterministic reproducibility.
-     * </p>
+     * Writes an HTTP JSON response with {@code Connection: close}, including Lamport metadata headers.
      *
      * @param out         output stream to write to.
      * @param statusCode  HTTP status code (200, 201, etc.).
@@ -136,20 +150,58 @@ public class DefaultHttpHandler implements HttpHandler {
     @Override
     public void writeJson(OutputStream out, int statusCode, String jsonBody,
                           LamportClock clock, String nodeId) throws IOException {
-        byte[] body = jsonBody.getBytes(StandardCharsets.UTF_8);
+        writeJson(out, statusCode, jsonBody, clock, nodeId, false);
+    }
+
+    /**
+     * Writes an HTTP JSON response, including Lamport metadata headers.
+     * <p>
+     * Sonar: tick() is intentionally called before composing headers;
+     * body encoding is UTF-8 by design for deterministic reproducibility.
+     * </p>
+     *
+     * @param keepAlive   {@code true} to advertise a persistent connection, else {@code Connection: close}.
+     * @throws IOException if I/O fails during write.
+     */
+    @Override
+    public void writeJson(OutputStream out, int statusCode, String jsonBody,
+                          LamportClock clock, String nodeId, boolean keepAlive) throws IOException {
+        writeText(out, statusCode, "application/json", jsonBody, clock, nodeId, keepAlive);
+    }
+
+    /**
+     * Writes an HTTP response with the given content type, including Lamport metadata headers.
+     * <p>
+     * Same wire format as {@link #writeJson}; only the {@code Content-Type} value differs.
+     * </p>
+     *
+     * @param contentType value of the {@code Content-Type} header.
+     * @param text        body, encoded as UTF-8.
+     * @param keepAlive   {@code true} to advertise a persistent connection, else {@code Connection: close}.
+     * @throws IOException if I/O fails during write.
+     */
+    @Override
+    public void writeText(OutputStream out, int statusCode, String contentType, String text,
+                          LamportClock clock, String nodeId, boolean keepAlive) throws IOException {
+        byte[] body = text.getBytes(StandardCharsets.UTF_8);
 
         // Tick before send (each HTTP response is a Lamport event)
         clock.tick();
 
         String res =
                 "HTTP/1.1 " + statusCode + " " + reason(statusCode) + "\r\n" +
-                        "Content-Type: application/json\r\n" +
+                        "Content-Type: " + contentType + "\r\n" +
                         "X-Lamport-Node: " + nodeId + "\r\n" +
                         "X-Lamport-Clock: " + clock.get() + "\r\n" +
                         "Content-Length: " + body.length + "\r\n" +
-                        "Connection: close\r\n\r\n";
+                        connectionHeader(keepAlive) + "\r\n";
 
         out.write(res.getBytes(StandardCharsets.UTF_8));
         out.write(body);
     }
+
+    /** @return the {@code Connection} header line (with CRLF) for the given persistence choice. */
+    private static String connectionHeader(boolean keepAlive) {
+        return keepAlive ? "Connection: keep-alive\r\n" : "Connection: close\r\n";
+    }
 }
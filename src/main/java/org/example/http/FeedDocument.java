@@ -0,0 +1,128 @@
+package org.example.http;
+
+import org.example.interfaces.HttpHandler;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * FeedDocument maintains the aggregated GET response (a JSON array of station documents)
+ * incrementally, as cached per-station UTF-8 segments.
+ * <p>
+ * An update re-encodes only the changed station's segment and replaces it in its slot; the feed
+ * is reassembled from the cached segments (array references only, no string work) the first time
+ * it is requested after a change, and every later GET of that version reuses it.
+ * </p>
+ * <b>SonarQube notes:</b>
+ * <ul>
+ *   <li>Mutations and rebuilds share one monitor, but each mutation is O(1); GETs of an unchanged
+ *       version read a {@code volatile} snapshot and never lock.</li>
+ *   <li>Removal swaps the last slot into the hole, so slots stay dense and order is not stable.</li>
+ *   <li>Expiry is not checked here: expired stations are {@link #remove removed} by the caller.</li>
+ * </ul>
+ */
+public final class FeedDocument {
+
+    /** One cached station segment. */
+    private record Segment(String id, byte[] bytes) {}
+
+    /**
+     * Assembled feed for one version.
+     *
+     * @param version  feed version it was built from
+     * @param count    number of stations included
+     * @param response encoded 200 response, or {@code null} if the feed is empty
+     */
+    public record Snapshot(long version, int count, PreEncodedResponse response) {}
+
+    private final String nodeId;
+    private final HttpHandler reasons;
+
+    // Guarded by this
+    private final Map<String, Integer> slotById = new HashMap<>();
+    private final List<Segment> slots = new ArrayList<>();
+    // Written under this, read lock-free by GETs
+    private volatile long version = 0L;
+
+    private volatile Snapshot cached = null;
+
+    /**
+     * Constructs an empty feed.
+     *
+     * @param nodeId  value of {@code X-Lamport-Node} in the encoded response
+     * @param reasons handler used for the reason phrase
+     */
+    public FeedDocument(String nodeId, HttpHandler reasons) {
+        this.nodeId = nodeId;
+        this.reasons = reasons;
+    }
+
+    /**
+     * Inserts or replaces one station's segment.
+     *
+     * @param id   station id
+     * @param json station document
+     */
+    public void upsert(String id, String json) {
+        Segment seg = new Segment(id, json.getBytes(StandardCharsets.UTF_8)); // encode outside the lock
+        synchronized (this) {
+            Integer slot = slotById.get(id);
+            if (slot == null) {
+                slotById.put(id, slots.size());
+                slots.add(seg);
+            } else {
+                slots.set(slot, seg);
+            }
+            version++; // Sonar: single writer under the monitor, so ++ on the volatile is safe
+        }
+    }
+
+    /**
+     * Removes one station's segment.
+     *
+     * @return {@code true} if it was present
+     */
+    public synchronized boolean remove(String id) {
+        Integer slot = slotById.remove(id);
+        if (slot == null) return false;
+        int last = slots.size() - 1;
+        Segment moved = slots.remove(last);
+        if (slot != last) {
+            slots.set(slot, moved);
+            slotById.put(moved.id(), slot);
+        }
+        version++;
+        return true;
+    }
+
+    /** @return number of stations held */
+    public synchronized int size() {
+        return slots.size();
+    }
+
+    /**
+     * Returns the feed for the current version, reassembling it only if a station changed since
+     * the last call.
+     */
+    public Snapshot snapshot() {
+        Snapshot s = cached;
+        if (s != null && s.version() == version) return s;
+        synchronized (this) {
+            s = cached;
+            if (s != null && s.version() == version) return s;
+
+            byte[][] parts = new byte[slots.size()][];
+            for (int i = 0; i < parts.length; i++) {
+                parts[i] = slots.get(i).bytes();
+            }
+            PreEncodedResponse response = (parts.length == 0) ? null
+                    : PreEncodedResponse.jsonArray(version, HttpHandler.OK, parts, nodeId, reasons);
+            s = new Snapshot(version, parts.length, response);
+            cached = s;
+            return s;
+        }
+    }
+}
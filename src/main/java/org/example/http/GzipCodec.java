@@ -0,0 +1,79 @@
+package org.example.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * GzipCodec compresses request bodies on the client and inflates them on the server for
+ * {@code Content-Encoding: gzip} PUTs.
+ * <p>
+ * {@link #inflate} streams the body through the decompressor and stops as soon as the output would
+ * pass {@code maxBytes}, so a small compressed body cannot make the server allocate an unbounded
+ * buffer (a "zip bomb").
+ * </p>
+ * <b>SonarQube notes:</b>
+ * <ul>
+ *   <li>Stateless; every call uses its own streams.</li>
+ *   <li>Over-limit bodies fail with {@link TooLargeException}, a distinct {@link IOException}, so
+ *       callers can answer 413 instead of 400.</li>
+ * </ul>
+ */
+public final class GzipCodec {
+
+    /** Thrown by {@link #inflate} when the decompressed body exceeds the limit. */
+    public static final class TooLargeException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public TooLargeException(int maxBytes) {
+            super("decompressed body exceeds " + maxBytes + " bytes");
+        }
+    }
+
+    private static final int CHUNK = 8192;
+
+    private GzipCodec() {}
+
+    /** @return {@code data} as a single gzip member */
+    public static byte[] compress(byte[] data) {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream(Math.max(64, data.length / 3));
+        try (GZIPOutputStream gz = new GZIPOutputStream(buf, CHUNK)) {
+            gz.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // in-memory streams do not fail
+        }
+        return buf.toByteArray();
+    }
+
+    /**
+     * Decompresses a gzip body, never holding more than {@code maxBytes} of output.
+     *
+     * @param gz       compressed bytes
+     * @param maxBytes largest decompressed size accepted
+     * @return the decompressed bytes
+     * @throws TooLargeException if the output would exceed {@code maxBytes}
+     * @throws IOException       if {@code gz} is not valid gzip data
+     */
+    public static byte[] inflate(byte[] gz, int maxBytes) throws IOException {
+        // Start from a typical JSON compression ratio; grow only as output actually arrives
+        byte[] out = new byte[(int) Math.min(maxBytes + 1L, Math.max(256L, gz.length * 4L))];
+        int n = 0;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gz), Math.min(CHUNK, Math.max(512, gz.length)))) {
+            while (true) {
+                if (n == out.length) {
+                    if (n > maxBytes) throw new TooLargeException(maxBytes);
+                    out = Arrays.copyOf(out, (int) Math.min(maxBytes + 1L, 2L * n));
+                }
+                int r = in.read(out, n, out.length - n);
+                if (r < 0) break;
+                n += r;
+            }
+        }
+        if (n > maxBytes) throw new TooLargeException(maxBytes);
+        return (n == out.length) ? out : Arrays.copyOf(out, n);
+    }
+}
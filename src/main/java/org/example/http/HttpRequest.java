@@ -0,0 +1,96 @@
+package org.example.http;
+
+/**
+ * Parsed HTTP request head, produced in a single pass by {@link HttpRequestParser}.
+ * <p>
+ * Only the fields the aggregation server routes on are extracted; everything else is skipped
+ * without allocating. A {@code null} {@link #method()} marks a malformed (or oversized) request.
+ * </p>
+ *
+ * @param method        request method ("GET", "PUT", ...) or {@code null} if the request line is malformed
+ * @param target        request target as sent, including any query string (e.g. "/weather.json?id=A")
+ * @param version       protocol version token (e.g. "HTTP/1.1"), empty if absent
+ * @param contentLength value of Content-Length, 0 if absent or invalid
+ * @param lamportClock  value of X-Lamport-Clock, 0 if absent or invalid
+ * @param lamportNode   value of X-Lamport-Node, or {@code null}
+ * @param connection    value of Connection, or {@code null}
+ * @param acceptEncoding value of Accept-Encoding, or {@code null}
+ * @param contentEncoding value of Content-Encoding (how the body is coded), or {@code null}
+ */
+public record HttpRequest(String method,
+                          String target,
+                          String version,
+                          int contentLength,
+                          long lamportClock,
+                          String lamportNode,
+                          String connection,
+                          String acceptEncoding,
+                          String contentEncoding) {
+
+    /** A request that could not be parsed (empty, oversized or bad request line). */
+    public static HttpRequest malformed(long lamportClock) {
+        return new HttpRequest(null, null, "", 0, lamportClock, null, null, null, null);
+    }
+
+    /** @return true if the request line could not be parsed */
+    public boolean isMalformed() {
+        return method == null;
+    }
+
+    /** @return the target without its query string (e.g. "/weather.json") */
+    public String path() {
+        if (target == null) return null;
+        int q = target.indexOf('?');
+        return (q >= 0) ? target.substring(0, q) : target;
+    }
+
+    /**
+     * @return true if Accept-Encoding allows gzip: listed as {@code gzip} (or {@code x-gzip}), or
+     *         covered by {@code *}, with a non-zero q-value
+     */
+    public boolean acceptsGzip() {
+        if (acceptEncoding == null) return false;
+        Boolean wildcard = null;
+        for (String entry : acceptEncoding.split(",")) {
+            int semi = entry.indexOf(';');
+            String coding = ((semi < 0) ? entry : entry.substring(0, semi)).trim();
+            boolean allowed = semi < 0 || !isZeroQ(entry.substring(semi + 1));
+            if (coding.equalsIgnoreCase("gzip") || coding.equalsIgnoreCase("x-gzip")) return allowed;
+            if ("*".equals(coding)) wildcard = allowed;
+        }
+        return Boolean.TRUE.equals(wildcard);
+    }
+
+    /** @return true if the body is sent uncoded (no Content-Encoding, or {@code identity}) */
+    public boolean hasIdentityBody() {
+        return contentEncoding == null || contentEncoding.isEmpty() || contentEncoding.equalsIgnoreCase("identity");
+    }
+
+    /** @return true if the body is gzip-compressed ({@code Content-Encoding: gzip} or {@code x-gzip}) */
+    public boolean hasGzipBody() {
+        return contentEncoding != null
+                && (contentEncoding.equalsIgnoreCase("gzip") || contentEncoding.equalsIgnoreCase("x-gzip"));
+    }
+
+    /** {@code q=0}, {@code q=0.0}, {@code q=0.000} */
+    private static boolean isZeroQ(String params) {
+        for (String param : params.split(";")) {
+            String p = param.trim();
+            if (p.length() > 2 && (p.charAt(0) == 'q' || p.charAt(0) == 'Q') && p.charAt(1) == '=') {
+                return p.substring(2).trim().matches("0(\\.0{0,3})?");
+            }
+        }
+        return false;
+    }
+
+    /**
+     * HTTP/1.1 defaults to keep-alive unless {@code Connection: close};
+     * HTTP/1.0 needs an explicit {@code Connection: keep-alive}.
+     */
+    public boolean keepAliveRequested() {
+        if (isMalformed()) return false;
+        if (connection != null && connection.equalsIgnoreCase("close")) return false;
+        if ("HTTP/1.1".equals(version)) return true;
+        return connection != null && connection.equalsIgnoreCase("keep-alive");
+    }
+}
@@ -0,0 +1,279 @@
+package org.example.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * HttpRequestParser reads request heads from a stream through its own buffer and extracts the
+ * routed fields in a single pass.
+ * <p>
+ * <b>SonarQube notes:</b>
+ * <ul>
+ *   <li>One instance per connection: bytes read past the current head (body, pipelined requests)
+ *       stay in the buffer for {@link #readBody(int)} and the next {@link #next()}.</li>
+ *   <li>Header names are matched case-insensitively on the raw bytes; numbers are parsed without
+ *       building substrings, so unknown headers cost no allocation.</li>
+ *   <li>Heads larger than {@code maxHeaderBytes} are reported as malformed instead of buffering without bound.</li>
+ * </ul>
+ */
+public final class HttpRequestParser {
+
+    /** Default limit for the request line plus headers. */
+    public static final int DEFAULT_MAX_HEADER_BYTES = 64 * 1024;
+
+    private static final int INITIAL_BUFFER = 2 * 1024;
+
+    private final InputStream in;
+    private final int maxHeaderBytes;
+
+    // Unconsumed bytes are buf[pos, limit)
+    private byte[] buf = new byte[INITIAL_BUFFER];
+    private int pos = 0;
+    private int limit = 0;
+
+    /**
+     * Constructs a parser with the default header size limit.
+     *
+     * @param in raw (unbuffered) connection input stream
+     */
+    public HttpRequestParser(InputStream in) {
+        this(in, DEFAULT_MAX_HEADER_BYTES);
+    }
+
+    /**
+     * Constructs a parser.
+     *
+     * @param in             raw (unbuffered) connection input stream
+     * @param maxHeaderBytes maximum size of request line + headers
+     */
+    public HttpRequestParser(InputStream in, int maxHeaderBytes) {
+        this.in = in;
+        this.maxHeaderBytes = Math.max(INITIAL_BUFFER, maxHeaderBytes);
+    }
+
+    /**
+     * Reads the next request head.
+     * <p>
+     * If the stream ends before CRLFCRLF, whatever arrived is parsed as the head (as the original
+     * byte-by-byte reader did).
+     * </p>
+     *
+     * @return the parsed head, {@link HttpRequest#malformed} if oversized, or {@code null} at a clean EOF
+     * @throws IOException if reading fails (including socket timeouts)
+     */
+    public HttpRequest next() throws IOException {
+        int scanned = 0; // bytes after pos already searched for CRLFCRLF
+        while (true) {
+            int end = findHeaderEnd(buf, pos + Math.max(0, scanned - 3), limit);
+            if (end >= 0) {
+                HttpRequest r = parseHead(buf, pos, end);
+                pos = end;
+                return r;
+            }
+            scanned = limit - pos;
+            if (scanned > maxHeaderBytes) {
+                pos = limit;
+                return HttpRequest.malformed(0L);
+            }
+            if (fill() < 0) {
+                if (limit == pos) return null;
+                HttpRequest r = parseHead(buf, pos, limit);
+                pos = limit;
+                return r;
+            }
+        }
+    }
+
+    /**
+     * Blocks until at least one byte of the next request is buffered, returning at once if one already is.
+     * <p>
+     * Nothing is consumed, and a socket timeout leaves the parser unchanged, so an idle connection can
+     * be polled in short slices before {@link #next()} is called.
+     * </p>
+     *
+     * @return {@code false} at EOF
+     * @throws IOException if reading fails (including socket timeouts)
+     */
+    public boolean awaitInput() throws IOException {
+        return limit > pos || fill() > 0;
+    }
+
+    /**
+     * Reads the body that follows the last head, using buffered bytes first.
+     *
+     * @param len declared Content-Length
+     * @return up to {@code len} bytes (fewer if the stream ends early)
+     */
+    public byte[] readBody(int len) throws IOException {
+        if (len <= 0) return new byte[0];
+        int have = Math.min(limit - pos, len);
+        byte[] head = Arrays.copyOfRange(buf, pos, pos + have);
+        pos += have;
+        if (have == len) return head;
+
+        // Sonar: readNBytes grows progressively, so a bogus Content-Length cannot force a huge allocation.
+        byte[] rest = in.readNBytes(len - have);
+        byte[] body = Arrays.copyOf(head, have + rest.length);
+        System.arraycopy(rest, 0, body, have, rest.length);
+        return body;
+    }
+
+    /* -------------------- single-pass head parsing -------------------- */
+
+    /**
+     * Parses a complete head in {@code a[from, to)} (request line, headers, optional trailing CRLFCRLF).
+     * Usable directly by non-blocking callers that already hold the bytes.
+     */
+    public static HttpRequest parseHead(byte[] a, int from, int to) {
+        int lineEnd = lineEnd(a, from, to);
+
+        // Request line: METHOD SP TARGET [SP VERSION]
+        String method = null;
+        String target = null;
+        String version = "";
+        int sp1 = indexOf(a, (byte) ' ', from, lineEnd);
+        if (sp1 > from) {
+            int sp2 = indexOf(a, (byte) ' ', sp1 + 1, lineEnd);
+            int targetEnd = (sp2 < 0) ? lineEnd : sp2;
+            if (targetEnd > sp1 + 1) {
+                method = method(a, from, sp1);
+                target = new String(a, sp1 + 1, targetEnd - sp1 - 1, StandardCharsets.UTF_8);
+                version = (sp2 < 0) ? "" : new String(a, sp2 + 1, lineEnd - sp2 - 1, StandardCharsets.US_ASCII);
+            }
+        }
+
+        int contentLength = 0;
+        long lamportClock = 0L;
+        String lamportNode = null;
+        String connection = null;
+        String acceptEncoding = null;
+        String contentEncoding = null;
+        boolean haveLength = false;
+        boolean haveClock = false;
+
+        int p = lineEnd + 2;
+        while (p < to) {
+            int e = lineEnd(a, p, to);
+            if (e == p) break; // blank line ends the head
+            int colon = indexOf(a, (byte) ':', p, e);
+            if (colon > p) {
+                int ns = trimStart(a, p, colon);
+                int ne = trimEnd(a, ns, colon);
+                int vs = trimStart(a, colon + 1, e);
+                int ve = trimEnd(a, vs, e);
+                if (!haveLength && nameIs(a, ns, ne, "content-length")) {
+                    long v = parseLong(a, vs, ve);
+                    if (v >= 0 && v <= Integer.MAX_VALUE) {
+                        contentLength = (int) v;
+                        haveLength = true;
+                    }
+                } else if (!haveClock && nameIs(a, ns, ne, "x-lamport-clock")) {
+                    long v = parseLong(a, vs, ve);
+                    if (v >= 0) {
+                        lamportClock = v;
+                        haveClock = true;
+                    }
+                } else if (lamportNode == null && nameIs(a, ns, ne, "x-lamport-node")) {
+                    lamportNode = new String(a, vs, ve - vs, StandardCharsets.UTF_8);
+                } else if (connection == null && nameIs(a, ns, ne, "connection")) {
+                    connection = new String(a, vs, ve - vs, StandardCharsets.US_ASCII);
+                } else if (acceptEncoding == null && nameIs(a, ns, ne, "accept-encoding")) {
+                    acceptEncoding = new String(a, vs, ve - vs, StandardCharsets.US_ASCII);
+                } else if (contentEncoding == null && nameIs(a, ns, ne, "content-encoding")) {
+                    contentEncoding = new String(a, vs, ve - vs, StandardCharsets.US_ASCII);
+                }
+            }
+            p = e + 2;
+        }
+
+        if (method == null) return HttpRequest.malformed(lamportClock);
+        return new HttpRequest(method, target, version, contentLength, lamportClock, lamportNode, connection,
+                acceptEncoding, contentEncoding);
+    }
+
+    /** Returns the index just past the first CRLFCRLF in {@code a[from, to)}, or -1. */
+    public static int findHeaderEnd(byte[] a, int from, int to) {
+        for (int i = from; i + 3 < to; i++) {
+            if (a[i] == '\r' && a[i + 1] == '\n' && a[i + 2] == '\r' && a[i + 3] == '\n') {
+                return i + 4;
+            }
+        }
+        return -1;
+    }
+
+    /* -------------------- helpers -------------------- */
+
+    /** Refills the buffer, compacting or growing it first if full. @return bytes read, or -1 at EOF. */
+    private int fill() throws IOException {
+        if (limit == buf.length) {
+            if (pos > 0) {
+                System.arraycopy(buf, pos, buf, 0, limit - pos);
+                limit -= pos;
+                pos = 0;
+            } else {
+                buf = Arrays.copyOf(buf, buf.length * 2);
+            }
+        }
+        int n = in.read(buf, limit, buf.length - limit);
+        if (n > 0) limit += n;
+        return n;
+    }
+
+    /** Index of the CRLF ending the line that starts at {@code from}, or {@code to} if none. */
+    private static int lineEnd(byte[] a, int from, int to) {
+        for (int i = from; i + 1 < to; i++) {
+            if (a[i] == '\r' && a[i + 1] == '\n') return i;
+        }
+        return to;
+    }
+
+    private static int indexOf(byte[] a, byte b, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (a[i] == b) return i;
+        }
+        return -1;
+    }
+
+    private static int trimStart(byte[] a, int from, int to) {
+        while (from < to && (a[from] == ' ' || a[from] == '\t')) from++;
+        return from;
+    }
+
+    private static int trimEnd(byte[] a, int from, int to) {
+        while (to > from && (a[to - 1] == ' ' || a[to - 1] == '\t')) to--;
+        return to;
+    }
+
+    /** ASCII case-insensitive comparison of {@code a[from, to)} with a lower-case name. */
+    private static boolean nameIs(byte[] a, int from, int to, String lowerName) {
+        if (to - from != lowerName.length()) return false;
+        for (int i = 0; i < lowerName.length(); i++) {
+            int c = a[from + i];
+            if (c >= 'A' && c <= 'Z') c += 'a' - 'A';
+            if (c != lowerName.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /** Parses a non-negative decimal; returns -1 if empty, non-numeric or overflowing. */
+    private static long parseLong(byte[] a, int from, int to) {
+        if (from >= to || to - from > 18) return -1L;
+        long v = 0L;
+        for (int i = from; i < to; i++) {
+            int d = a[i] - '0';
+            if (d < 0 || d > 9) return -1L;
+            v = v * 10 + d;
+        }
+        return v;
+    }
+
+    /** Returns shared constants for the common methods to avoid allocating them per request. */
+    private static String method(byte[] a, int from, int to) {
+        int len = to - from;
+        if (len == 3 && a[from] == 'G' && a[from + 1] == 'E' && a[from + 2] == 'T') return "GET";
+        if (len == 3 && a[from] == 'P' && a[from + 1] == 'U' && a[from + 2] == 'T') return "PUT";
+        return new String(a, from, len, StandardCharsets.US_ASCII);
+    }
+}
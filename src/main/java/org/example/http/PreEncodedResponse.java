@@ -0,0 +1,210 @@
+package org.example.http;
+
+import org.example.interfaces.HttpHandler;
+import org.example.interfaces.LamportClock;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * PreEncodedResponse is a JSON response whose bytes are built once and written many times.
+ * <p>
+ * Only the {@code X-Lamport-Clock} value changes between sends, so the status line, fixed
+ * headers and UTF-8 body are encoded up front; a send writes the prebuilt prefix, the clock
+ * digits and the prebuilt tail. The wire format of a plain response is identical to
+ * {@link DefaultHttpHandler#writeJson(OutputStream, int, String, LamportClock, String, boolean)}.
+ * </p>
+ * <p>
+ * {@link #jsonArray} builds a response whose body is a JSON array of already-encoded elements;
+ * the elements are written in place, one after another, and never concatenated into a new buffer.
+ * Such a response may be sent gzipped, so it carries {@code Vary: Accept-Encoding} in both encodings.
+ * </p>
+ * <p>
+ * {@link #gzipped()} returns a {@code Content-Encoding: gzip} twin of the same response. It is
+ * compressed on first use and kept, so every gzip client of one version shares a single compression.
+ * </p>
+ * <b>SonarQube notes:</b>
+ * <ul>
+ *   <li>Immutable (the gzip twin is derived, memoized state) and safe to share between threads; publish it through a {@code volatile} field.</li>
+ *   <li>{@link #version()} lets the owner tell whether the cached bytes still match its current state.</li>
+ *   <li>The clock is ticked once per send, exactly as {@link DefaultHttpHandler} does.</li>
+ * </ul>
+ */
+public final class PreEncodedResponse {
+
+    private static final byte[] CLOCK_LINE_END = "\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[][] NO_ELEMENTS = new byte[0][];
+    private static final String VARY_HEADER = "Vary: Accept-Encoding\r\n";
+    private static final String GZIP_HEADERS = "Content-Encoding: gzip\r\n" + VARY_HEADER;
+
+    private final long version;
+
+    // Status line + Content-Type + X-Lamport-Node + "X-Lamport-Clock: "
+    private final byte[] prefix;
+    // Content-Length + Connection + blank line (+ body unless it is an array), one per persistence choice
+    private final byte[] tailKeepAlive;
+    private final byte[] tailClose;
+    // Array elements written after the tail as '[' e0 ',' e1 ... ']'; null for a plain body
+    private final byte[][] elements;
+    // Body bytes as sent, fixed at construction (the elements are never modified)
+    private final int bodyLength;
+
+    // Compressed twin, built on first gzipped() call; a gzip response is its own twin
+    private volatile PreEncodedResponse gzipped;
+
+    /**
+     * Encodes a JSON response.
+     *
+     * @param version    owner-defined version of the state this response reflects
+     * @param statusCode HTTP status code
+     * @param json       JSON body
+     * @param nodeId     value of {@code X-Lamport-Node}
+     * @param reasons    handler used for the reason phrase
+     */
+    public PreEncodedResponse(long version, int statusCode, String json, String nodeId, HttpHandler reasons) {
+        this(version, statusCode, json.getBytes(StandardCharsets.UTF_8), null, nodeId, reasons, "");
+    }
+
+    private PreEncodedResponse(long version, int statusCode, byte[] body, byte[][] elements,
+                               String nodeId, HttpHandler reasons, String extraHeaders) {
+        this(version, ("HTTP/1.1 " + statusCode + " " + reasons.reason(statusCode) + "\r\n" +
+                "Content-Type: application/json\r\n" +
+                "X-Lamport-Node: " + nodeId + "\r\n" +
+                "X-Lamport-Clock: ").getBytes(StandardCharsets.UTF_8), body, elements, extraHeaders);
+    }
+
+    private PreEncodedResponse(long version, byte[] prefix, byte[] body, byte[][] elements, String extraHeaders) {
+        long length = (elements == null) ? body.length : arrayLength(elements);
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("response body of " + length + " bytes exceeds " + Integer.MAX_VALUE);
+        }
+        this.version = version;
+        this.elements = elements;
+        this.bodyLength = (int) length;
+        this.prefix = prefix;
+        this.tailKeepAlive = tail(length, extraHeaders + "Connection: keep-alive\r\n", body);
+        this.tailClose = tail(length, extraHeaders + "Connection: close\r\n", body);
+    }
+
+    /**
+     * Builds a response whose body is the JSON array of the given encoded elements. It is a negotiated
+     * representation (see {@link #gzipped()}), so it is sent with {@code Vary: Accept-Encoding}.
+     *
+     * @param elements UTF-8 JSON values; the array is retained, so it must not be modified afterwards
+     * @throws IllegalArgumentException if the encoded array is longer than {@link Integer#MAX_VALUE} bytes
+     */
+    public static PreEncodedResponse jsonArray(long version, int statusCode, byte[][] elements,
+                                               String nodeId, HttpHandler reasons) {
+        return new PreEncodedResponse(version, statusCode, null, (elements == null) ? NO_ELEMENTS : elements,
+                nodeId, reasons, VARY_HEADER);
+    }
+
+    /** @return the version passed at construction */
+    public long version() {
+        return version;
+    }
+
+    /** @return length of the body as sent (compressed for a gzip response) */
+    public int bodyLength() {
+        return bodyLength;
+    }
+
+    /**
+     * Returns this response with a gzip-compressed body ({@code Content-Encoding: gzip},
+     * {@code Vary: Accept-Encoding}), compressing once and reusing the result afterwards.
+     *
+     * @return the compressed twin; the same instance on every call
+     */
+    public PreEncodedResponse gzipped() {
+        PreEncodedResponse g = gzipped;
+        if (g != null) return g;
+        synchronized (this) {
+            if (gzipped == null) {
+                ByteArrayOutputStream buf = new ByteArrayOutputStream(Math.max(64, bodyLength() / 4));
+                try (GZIPOutputStream gz = new GZIPOutputStream(buf, 8192)) {
+                    writeBody(gz);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e); // in-memory streams do not fail
+                }
+                PreEncodedResponse twin = new PreEncodedResponse(version, prefix, buf.toByteArray(), null, GZIP_HEADERS);
+                twin.gzipped = twin;
+                gzipped = twin;
+            }
+            return gzipped;
+        }
+    }
+
+    /**
+     * Ticks the clock and writes the full response.
+     *
+     * @param out       destination stream
+     * @param clock     Lamport clock (ticked once, as a send event)
+     * @param keepAlive {@code true} to advertise a persistent connection, else {@code Connection: close}
+     * @throws IOException if writing fails
+     */
+    public void writeTo(OutputStream out, LamportClock clock, boolean keepAlive) throws IOException {
+        clock.tick();
+        out.write(prefix);
+        writeDecimal(out, clock.get());
+        out.write(CLOCK_LINE_END);
+        out.write(keepAlive ? tailKeepAlive : tailClose);
+        if (elements != null) writeArray(out);
+    }
+
+    /**
+     * Writes only the body (no status line or headers).
+     *
+     * @param out destination stream
+     * @throws IOException if writing fails
+     */
+    public void writeBody(OutputStream out) throws IOException {
+        if (elements != null) {
+            writeArray(out);
+        } else {
+            out.write(tailClose, tailClose.length - bodyLength, bodyLength);
+        }
+    }
+
+    /* -------------------- helpers -------------------- */
+
+    private static byte[] tail(long contentLength, String connectionLine, byte[] body) {
+        byte[] head = ("Content-Length: " + contentLength + "\r\n" + connectionLine + "\r\n")
+                .getBytes(StandardCharsets.US_ASCII);
+        if (body == null) return head;
+        byte[] t = new byte[head.length + body.length];
+        System.arraycopy(head, 0, t, 0, head.length);
+        System.arraycopy(body, 0, t, head.length, body.length);
+        return t;
+    }
+
+    /** '[' + elements joined by ',' + ']' */
+    private static long arrayLength(byte[][] elements) {
+        long n = 2L + Math.max(0, elements.length - 1);
+        for (byte[] e : elements) n += e.length;
+        return n;
+    }
+
+    private void writeArray(OutputStream out) throws IOException {
+        out.write('[');
+        for (int i = 0; i < elements.length; i++) {
+            if (i > 0) out.write(',');
+            out.write(elements[i]);
+        }
+        out.write(']');
+    }
+
+    /** Writes a non-negative long as ASCII digits without building a String. */
+    private static void writeDecimal(OutputStream out, long v) throws IOException {
+        byte[] digits = new byte[20];
+        int i = digits.length;
+        do {
+            digits[--i] = (byte) ('0' + (v % 10));
+            v /= 10;
+        } while (v > 0);
+        out.write(digits, i, digits.length - i);
+    }
+}
@@ -0,0 +1,34 @@
+package org.example.interfaces;
+
+import java.util.List;
+
+/**
+ * Ordered hand-off from many producers (request handlers) to one consumer (the applier).
+ *
+ * @param <T> element type
+ */
+public interface ApplyQueue<T> {
+
+    /** Adds an element; never blocks. Callable from any thread. */
+    void offer(T item);
+
+    /**
+     * Removes the smallest element, waiting up to {@code timeoutMs} for one to arrive.
+     * Must only be called by the single consumer thread.
+     *
+     * @return the element, or {@code null} on timeout or interrupt
+     */
+    T poll(long timeoutMs);
+
+    /**
+     * Removes up to {@code max} elements in order. Waits up to {@code timeoutMs} for the first one,
+     * then up to {@code lingerMs} more for further arrivals while the batch is not full.
+     * Must only be called by the single consumer thread.
+     *
+     * @return the batch in ascending order (empty on timeout or interrupt)
+     */
+    List<T> pollBatch(int max, long timeoutMs, long lingerMs);
+
+    /** Approximate number of queued elements. */
+    int size();
+}
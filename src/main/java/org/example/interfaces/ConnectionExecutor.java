@@ -0,0 +1,36 @@
+package org.example.interfaces;
+
+/**
+ * Runs accepted connections with a hard cap on how many may be in flight at once.
+ * Usage:
+ *  - On accept:  if (!exec.trySubmit(() -> handle(socket))) reject(socket);
+ *  - On shutdown: exec.close();
+ */
+public interface ConnectionExecutor extends AutoCloseable {
+
+    /**
+     * Starts the task if a connection slot is free.
+     * @return true if accepted; false if the cap was reached (caller must reject the connection).
+     */
+    boolean trySubmit(Runnable task);
+
+    /** Number of connections currently queued or running. */
+    int inFlight();
+
+    /** Maximum number of connections allowed in flight. */
+    int maxInFlight();
+
+    /**
+     * Number of accepted connections waiting for a worker to start them (0 where every connection
+     * gets its own thread). A handler idling on a keep-alive connection should give its worker up
+     * while this is positive.
+     */
+    int queued();
+
+    /**
+     * Stops accepting new work; {@link #trySubmit} returns false afterwards. Running connections are
+     * allowed to finish, or asked to stop after their current response where no executor drains them.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,24 @@
+package org.example.interfaces;
+
+import java.util.List;
+
+/**
+ * Tracks a deadline per key and reports the keys whose deadline has passed.
+ * Implementations decide how lazily expiry is detected (e.g. per tick).
+ *
+ * @param <K> key type
+ */
+public interface ExpiryScheduler<K> {
+
+    /** Sets (or moves) the deadline of {@code key} to the absolute time {@code deadline} (ms). */
+    void schedule(K key, long deadline);
+
+    /** Forgets {@code key}; returns {@code true} if it was scheduled. */
+    boolean cancel(K key);
+
+    /** Removes and returns every key whose deadline is before {@code now}. */
+    List<K> advance(long now);
+
+    /** Number of keys currently scheduled. */
+    int size();
+}
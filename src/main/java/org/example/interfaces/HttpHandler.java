@@ -16,7 +16,10 @@ public interface HttpHandler {
     int NO_CONTENT = 204;
     int BAD_REQUEST = 400;
     int NOT_FOUND = 404;
+    int PAYLOAD_TOO_LARGE = 413;
+    int UNSUPPORTED_MEDIA_TYPE = 415;
     int INTERNAL_SERVER_ERROR = 500;
+    int SERVICE_UNAVAILABLE = 503;
 
     /** Build full HTTP/1.1 request headers (no body). */
     String buildRequest(String method,
@@ -34,14 +37,26 @@ public interface HttpHandler {
 
     /* ---------------- Server-side helpers ---------------- */
 
-    /** Write JSON response. */
+    /** Write JSON response (Connection: close). */
     void writeJson(OutputStream out, int status, String json,
                    org.example.interfaces.LamportClock clock, String nodeId) throws IOException;
 
-    /** Write empty response (Content-Length: 0). */
+    /** Write JSON response; {@code keepAlive} selects Connection: keep-alive vs close. */
+    void writeJson(OutputStream out, int status, String json,
+                   org.example.interfaces.LamportClock clock, String nodeId, boolean keepAlive) throws IOException;
+
+    /** Write a response with an arbitrary content type (e.g. {@code text/plain; version=0.0.4}). */
+    void writeText(OutputStream out, int status, String contentType, String body,
+                   org.example.interfaces.LamportClock clock, String nodeId, boolean keepAlive) throws IOException;
+
+    /** Write empty response (Content-Length: 0, Connection: close). */
     void writeEmpty(OutputStream out, int status,
                     org.example.interfaces.LamportClock clock, String nodeId) throws IOException;
 
+    /** Write empty response (Content-Length: 0); {@code keepAlive} selects Connection: keep-alive vs close. */
+    void writeEmpty(OutputStream out, int status,
+                    org.example.interfaces.LamportClock clock, String nodeId, boolean keepAlive) throws IOException;
+
     /** Map HTTP status codes to reason phrases. */
     String reason(int code);
 }
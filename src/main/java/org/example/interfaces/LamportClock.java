@@ -24,4 +24,12 @@ public interface LamportClock {
      * @return the updated clock value
      */
     long update(long remoteTimestamp);
+
+    /**
+     * Raises the clock to at least the given timestamp without counting an event,
+     * e.g. when resuming from persisted state.
+     * @param timestamp the timestamp to resume from
+     * @return the updated clock value
+     */
+    long advanceTo(long timestamp);
 }
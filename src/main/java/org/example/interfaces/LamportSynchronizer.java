@@ -1,10 +1,14 @@
 package org.example.interfaces;
 
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Ensures reads (GETs) observe all writes (PUTs) up to a Lamport timestamp.
  * Usage:
  *  - After applying a PUT:  sync.onPutApplied(lamport);
  *  - Before replying to GET: sync.awaitUpTo(targetLamport, timeoutMs);
+ *  - Or, without blocking:   sync.whenApplied(targetLamport, timeout).thenAcceptAsync(..., executor);
  */
 public interface LamportSynchronizer {
 
@@ -17,6 +21,13 @@ public interface LamportSynchronizer {
      */
     public boolean awaitUpTo(long targetLamport, long timeoutMs);
 
+    /**
+     * Non-blocking form of {@link #awaitUpTo}: the future completes with {@code true} once all
+     * applied PUTs cover targetLamport, or with {@code false} when the timeout elapses.
+     * It may be completed on the applying thread; attach non-trivial work with an async stage.
+     */
+    public CompletableFuture<Boolean> whenApplied(long targetLamport, Duration timeout);
+
     /** Latest Lamport timestamp known to be applied. */
     public long lastApplied();
 }
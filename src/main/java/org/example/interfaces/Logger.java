@@ -0,0 +1,38 @@
+package org.example.interfaces;
+
+/**
+ * Leveled diagnostic logging.
+ * Usage:
+ *  - Per-request traces: {@code if (log.isEnabled(Level.DEBUG)) log.debug("..." + x);}
+ *  - Everything else:    {@code log.info(...)}, {@code log.warn(...)}, {@code log.error(...)}
+ */
+public interface Logger {
+
+    /** Severity, lowest first. */
+    enum Level { DEBUG, INFO, WARN, ERROR }
+
+    /** @return whether records at this level are kept (check before building expensive messages) */
+    public boolean isEnabled(Level level);
+
+    /** Records a message (may be multi-line); never blocks the caller. */
+    public void log(Level level, String message);
+
+    /** Waits (bounded) until everything logged so far has been written. */
+    public void flush();
+
+    public default void debug(String message) {
+        log(Level.DEBUG, message);
+    }
+
+    public default void info(String message) {
+        log(Level.INFO, message);
+    }
+
+    public default void warn(String message) {
+        log(Level.WARN, message);
+    }
+
+    public default void error(String message) {
+        log(Level.ERROR, message);
+    }
+}
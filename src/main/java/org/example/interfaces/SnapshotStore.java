@@ -1,9 +1,35 @@
 package org.example.interfaces;
 
+import java.util.Map;
+
 public interface SnapshotStore {
 
     /** Load the most recent JSON snapshot, or null if none. */
     String load();
     /** Save the given JSON snapshot. Must be safe to call repeatedly. */
     void save(String json);
+
+    /**
+     * Save a snapshot whose newest update has Lamport timestamp {@code appliedLamport}, so a restarted
+     * server resumes its clock past it. Stores that do not track this simply save the JSON.
+     */
+    default void save(String json, long appliedLamport) {
+        save(json);
+    }
+
+    /**
+     * Load the most recent snapshot as station documents keyed by id, in snapshot order, for stores
+     * that can do so more cheaply than parsing {@link #load()}; null means "use load()".
+     */
+    default Map<String, String> loadDocuments() {
+        return null;
+    }
+
+    /**
+     * Highest Lamport timestamp recorded with the snapshot last loaded or saved, so a restarted server
+     * can resume its clock; 0 if the store does not record one.
+     */
+    default long lastAppliedLamport() {
+        return 0L;
+    }
 }
@@ -0,0 +1,48 @@
+package org.example.interfaces;
+
+import java.util.Collection;
+
+/**
+ * StationStore holds the latest applied weather document per station id.
+ * <p>
+ * Writes come from the applier; reads come from any number of GET threads and must not
+ * take a global lock.
+ * </p>
+ */
+public interface StationStore {
+
+    /**
+     * Latest state of one station.
+     *
+     * @param id        station id (the JSON {@code id} field)
+     * @param json      the station's JSON document as applied
+     * @param appliedAt wall-clock time (ms) the update was applied
+     */
+    record Station(String id, String json, long appliedAt) {}
+
+    /**
+     * Inserts or replaces a station.
+     *
+     * @return {@code true} if the id was not present before
+     */
+    boolean put(Station station);
+
+    /**
+     * Removes a station.
+     *
+     * @return the removed station, or {@code null} if absent
+     */
+    Station remove(String id);
+
+    /** @return the station with the given id, or {@code null} */
+    Station get(String id);
+
+    /** @return {@code true} if a station with the given id is present */
+    boolean contains(String id);
+
+    /** @return a weakly consistent live view of all stations (never throws on concurrent writes) */
+    Collection<Station> all();
+
+    /** @return number of stations held */
+    int size();
+}
@@ -0,0 +1,508 @@
+package org.example.persistance;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * BinarySnapshotCodec converts a JSON snapshot (an array of station documents, or a single document)
+ * to a compact binary form and back.
+ * <p>
+ * Layout: {@code "WSNB"} magic, a version byte and a flags byte; a field dictionary (varint count, then
+ * each field name as varint length + UTF-8); a CRC32C of everything so far; a varint record count; then
+ * one record per station, {@code [varint length][body][int crc32c(body)]}. A body is a varint field count
+ * followed by {@code [varint dictionary index][type byte][value]} per field.
+ * </p>
+ * <p>
+ * Weather readings arrive as decimal strings ({@code "13.3"}, {@code "-34.9"}, {@code "20230715160000"});
+ * when a string or number is a plain decimal it is stored as a zig-zag varint of its unscaled digits
+ * plus a scale byte, which reproduces the exact text, unlike a float. Anything else is stored as text.
+ * </p>
+ * <b>SonarQube notes:</b>
+ * <ul>
+ *   <li>Decoding verifies every checksum and bound and throws {@link IOException} on truncation or
+ *       corruption; it never returns a partial snapshot.</li>
+ *   <li>Decoded JSON is compact and re-escaped, equal in content (not in whitespace) to the input.</li>
+ *   <li>{@link #main} converts existing {@code .json} snapshots to {@code .snap} files.</li>
+ * </ul>
+ */
+public final class BinarySnapshotCodec {
+
+    static final byte[] MAGIC = {'W', 'S', 'N', 'B'};
+    static final int VERSION = 1;
+
+    private static final int FLAG_SINGLE = 1;  // top level was one object, not an array
+
+    // Value types
+    private static final int T_NULL = 0;
+    private static final int T_TRUE = 1;
+    private static final int T_FALSE = 2;
+    private static final int T_STRING = 3;
+    private static final int T_DECIMAL_STRING = 4; // "13.3" -> 133, scale 1
+    private static final int T_DECIMAL_NUMBER = 5; // 13.3   -> 133, scale 1
+    private static final int T_NUMBER_TEXT = 6;    // other JSON numbers (exponents, very long)
+    private static final int T_JSON = 7;           // nested object or array, as JSON text
+
+    private static final int MAX_DIGITS = 18;      // fits a long
+
+    private BinarySnapshotCodec() {}
+
+    /**
+     * Encodes a JSON snapshot.
+     *
+     * @param json an array of JSON objects, or one JSON object
+     * @return binary snapshot
+     * @throws IOException if {@code json} is not a snapshot
+     */
+    public static byte[] encode(String json) throws IOException {
+        JsonElement root;
+        try {
+            root = JsonParser.parseString(json);
+        } catch (JsonParseException e) {
+            throw new IOException("snapshot is not valid JSON: " + e.getMessage(), e);
+        }
+        boolean single = root.isJsonObject();
+        if (!single && !root.isJsonArray()) throw new IOException("snapshot must be a JSON array or object");
+
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        Out records = new Out(Math.max(64, json.length() / 2));
+        Out body = new Out(256);
+        CRC32C crc = new CRC32C();
+        Iterable<JsonElement> docs = single ? List.of(root) : root.getAsJsonArray();
+        int count = 0;
+        for (JsonElement doc : docs) {
+            if (!doc.isJsonObject()) throw new IOException("snapshot entry " + count + " is not a JSON object");
+            body.reset();
+            JsonObject o = doc.getAsJsonObject();
+            body.varint(o.size());
+            for (Map.Entry<String, JsonElement> f : o.entrySet()) {
+                body.varint(dictionary.computeIfAbsent(f.getKey(), k -> dictionary.size()));
+                writeValue(body, f.getValue());
+            }
+            records.varint(body.len);
+            records.bytes(body.buf, 0, body.len);
+            crc.reset();
+            crc.update(body.buf, 0, body.len);
+            records.int32((int) crc.getValue());
+            count++;
+        }
+
+        Out out = new Out(records.len + 64 + dictionary.size() * 16);
+        out.bytes(MAGIC, 0, MAGIC.length);
+        out.u8(VERSION);
+        out.u8(single ? FLAG_SINGLE : 0);
+        out.varint(dictionary.size());
+        for (String name : dictionary.keySet()) out.string(name);
+        crc.reset();
+        crc.update(out.buf, 0, out.len);
+        out.int32((int) crc.getValue());
+        out.varint(count);
+        out.bytes(records.buf, 0, records.len);
+        return Arrays.copyOf(out.buf, out.len);
+    }
+
+    /**
+     * Decodes a binary snapshot back to JSON.
+     *
+     * @return compact JSON: an array of objects, or one object if that is what was encoded
+     * @throws IOException if the data is truncated, corrupted or of an unknown version
+     */
+    public static String decode(byte[] data) throws IOException {
+        In in = new In(data);
+        boolean single = readFlags(in);
+        String[] dictionary = readDictionary(in, data);
+        int count = in.count();
+        if (single && count != 1) throw new IOException("single-document snapshot holds " + count + " records");
+
+        StringBuilder json = new StringBuilder(data.length * 2);
+        if (!single) json.append('[');
+        for (int r = 0; r < count; r++) {
+            if (r > 0) json.append(',');
+            readRecord(in, data, dictionary, r, json);
+        }
+        if (!single) json.append(']');
+        if (in.pos != data.length) throw new IOException("snapshot has trailing bytes");
+        return json.toString();
+    }
+
+    /**
+     * Decodes a binary snapshot into its station documents without building or parsing the whole JSON.
+     * Records without a non-blank primitive {@code id} are left out, as the server would skip them.
+     *
+     * @return station id to compact JSON document, in snapshot order
+     * @throws IOException if the data is truncated, corrupted or of an unknown version
+     */
+    public static Map<String, String> decodeDocuments(byte[] data) throws IOException {
+        In in = new In(data);
+        readFlags(in);
+        String[] dictionary = readDictionary(in, data);
+        int count = in.count();
+
+        Map<String, String> docs = new LinkedHashMap<>(Math.max(16, count * 2));
+        StringBuilder json = new StringBuilder(256);
+        for (int r = 0; r < count; r++) {
+            json.setLength(0);
+            String id = readRecord(in, data, dictionary, r, json);
+            if (id != null && !id.isBlank()) docs.put(id, json.toString());
+        }
+        if (in.pos != data.length) throw new IOException("snapshot has trailing bytes");
+        return docs;
+    }
+
+    /**
+     * Converts JSON snapshot files to binary ones next to them ({@code x.json} -> {@code x.snap}),
+     * or back with {@code --to-json}.
+     * <pre>
+     *   java org.example.persistance.BinarySnapshotCodec [--to-json] &lt;file&gt;...
+     * </pre>
+     */
+    public static void main(String[] args) throws IOException {
+        boolean toJson = args.length > 0 && "--to-json".equals(args[0]);
+        int first = toJson ? 1 : 0;
+        if (args.length <= first) {
+            System.out.println("Usage:\n  BinarySnapshotCodec [--to-json] <snapshot file>...");
+            return;
+        }
+        for (int i = first; i < args.length; i++) {
+            Path in = Path.of(args[i]);
+            String name = in.getFileName().toString();
+            String stem = name.contains(".") ? name.substring(0, name.lastIndexOf('.')) : name;
+            Path out = in.resolveSibling(stem + (toJson ? SnapshotFormat.JSON : SnapshotFormat.BINARY).suffix());
+            byte[] src = Files.readAllBytes(in);
+            byte[] dst = toJson
+                    ? decode(src).getBytes(StandardCharsets.UTF_8)
+                    : encode(new String(src, StandardCharsets.UTF_8));
+            Files.write(out, dst);
+            System.out.println(in + " (" + src.length + " bytes) -> " + out + " (" + dst.length + " bytes)");
+        }
+    }
+
+    /* -------------------- records -------------------- */
+
+    /** Checks magic and version; @return whether the snapshot is a single document */
+    private static boolean readFlags(In in) throws IOException {
+        for (byte b : MAGIC) {
+            if (in.u8() != (b & 0xFF)) throw new IOException("not a binary snapshot");
+        }
+        int version = in.u8();
+        if (version != VERSION) throw new IOException("unsupported binary snapshot version " + version);
+        return (in.u8() & FLAG_SINGLE) != 0;
+    }
+
+    private static String[] readDictionary(In in, byte[] data) throws IOException {
+        String[] dictionary = new String[in.count()];
+        for (int i = 0; i < dictionary.length; i++) dictionary[i] = in.string();
+        if (in.int32() != checksum(data, 0, in.pos - Integer.BYTES)) throw new IOException("snapshot header checksum mismatch");
+        return dictionary;
+    }
+
+    /**
+     * Verifies record {@code r} and appends it to {@code json} as an object.
+     *
+     * @return the record's {@code id} as text, or {@code null} if it has no primitive id
+     */
+    private static String readRecord(In in, byte[] data, String[] dictionary, int r, StringBuilder json)
+            throws IOException {
+        int len = in.count();
+        int start = in.pos;
+        in.require(len + Integer.BYTES);
+        in.pos = start + len;
+        if (in.int32() != checksum(data, start, len)) throw new IOException("snapshot record " + r + " checksum mismatch");
+
+        In rec = new In(data, start, start + len);
+        String id = null;
+        json.append('{');
+        int fields = rec.count();
+        for (int f = 0; f < fields; f++) {
+            long key = rec.varint();
+            if (key >= dictionary.length) throw new IOException("snapshot record " + r + " has unknown field " + key);
+            if (f > 0) json.append(',');
+            String name = dictionary[(int) key];
+            quote(json, name).append(':');
+            boolean isId = "id".equals(name);
+            int mark = json.length();
+            String text = readValue(rec, json, isId);
+            if (isId) id = (text != null) ? text : primitiveText(json, mark);
+        }
+        if (rec.pos != rec.end) throw new IOException("snapshot record " + r + " has trailing bytes");
+        json.append('}');
+        return id;
+    }
+
+    /* -------------------- values -------------------- */
+
+    private static void writeValue(Out out, JsonElement v) {
+        if (v.isJsonNull()) {
+            out.u8(T_NULL);
+        } else if (v.isJsonPrimitive()) {
+            JsonPrimitive p = v.getAsJsonPrimitive();
+            if (p.isBoolean()) {
+                out.u8(p.getAsBoolean() ? T_TRUE : T_FALSE);
+            } else if (p.isNumber()) {
+                String text = p.getAsString();
+                if (!writeDecimal(out, T_DECIMAL_NUMBER, text)) {
+                    out.u8(T_NUMBER_TEXT);
+                    out.string(text);
+                }
+            } else {
+                String text = p.getAsString();
+                if (!writeDecimal(out, T_DECIMAL_STRING, text)) {
+                    out.u8(T_STRING);
+                    out.string(text);
+                }
+            }
+        } else {
+            out.u8(T_JSON);
+            out.string(v.toString());
+        }
+    }
+
+    /**
+     * Writes {@code text} as {@code [type][zigzag varint unscaled][scale]} if it is a plain decimal
+     * that formats back to exactly the same text ({@code -?(0|[1-9]d*)(.d+)?}, at most 18 digits).
+     */
+    private static boolean writeDecimal(Out out, int type, String text) {
+        int n = text.length();
+        int i = (n > 0 && text.charAt(0) == '-') ? 1 : 0;
+        if (i == n) return false;
+        if (text.charAt(i) == '0' && i + 1 < n && text.charAt(i + 1) != '.') return false; // leading zero
+        long unscaled = 0L;
+        int digits = 0;
+        int scale = -1;
+        for (int k = i; k < n; k++) {
+            char c = text.charAt(k);
+            if (c == '.') {
+                if (scale >= 0 || k == i || k == n - 1) return false;
+                scale = 0;
+            } else if (c >= '0' && c <= '9') {
+                if (++digits > MAX_DIGITS) return false;
+                unscaled = unscaled * 10 + (c - '0');
+                if (scale >= 0) scale++;
+            } else {
+                return false;
+            }
+        }
+        if (i == 1 && unscaled == 0L) return false; // "-0" would lose its sign
+        out.u8(type);
+        out.varint(zigzag(i == 1 ? -unscaled : unscaled));
+        out.u8(Math.max(0, scale));
+        return true;
+    }
+
+    /**
+     * Appends one value as JSON.
+     *
+     * @return the unescaped text of a string value if {@code wantText}, else {@code null}
+     */
+    private static String readValue(In in, StringBuilder json, boolean wantText) throws IOException {
+        int type = in.u8();
+        switch (type) {
+            case T_NULL -> json.append("null");
+            case T_TRUE -> json.append("true");
+            case T_FALSE -> json.append("false");
+            case T_STRING -> {
+                String s = in.string();
+                quote(json, s);
+                return wantText ? s : null;
+            }
+            case T_DECIMAL_STRING -> appendDecimal(json.append('"'), in).append('"');
+            case T_DECIMAL_NUMBER -> appendDecimal(json, in);
+            case T_NUMBER_TEXT -> json.append(in.string());
+            case T_JSON -> {
+                json.append(in.string());
+                return null;
+            }
+            default -> throw new IOException("unknown snapshot value type " + type);
+        }
+        return null;
+    }
+
+    /** Text of the non-string primitive appended at {@code mark} (quotes stripped); {@code null} for JSON null. */
+    private static String primitiveText(StringBuilder json, int mark) {
+        if (json.charAt(mark) == '{' || json.charAt(mark) == '[') return null;
+        String text = json.substring(mark);
+        if ("null".equals(text)) return null;
+        return (text.charAt(0) == '"') ? text.substring(1, text.length() - 1) : text;
+    }
+
+    private static StringBuilder appendDecimal(StringBuilder json, In in) throws IOException {
+        long v = unzigzag(in.varint());
+        int scale = in.u8();
+        if (scale > MAX_DIGITS) throw new IOException("bad decimal scale " + scale);
+        if (v < 0) json.append('-');
+        String digits = Long.toString(Math.abs(v));
+        if (scale == 0) return json.append(digits);
+        if (digits.length() <= scale) digits = "0".repeat(scale - digits.length() + 1) + digits;
+        int point = digits.length() - scale;
+        return json.append(digits, 0, point).append('.').append(digits, point, digits.length());
+    }
+
+    /** Appends {@code s} as a JSON string literal. */
+    private static StringBuilder quote(StringBuilder json, String s) {
+        json.append('"');
+        int plain = 0;
+        while (plain < s.length() && !needsEscape(s.charAt(plain))) plain++;
+        json.append(s, 0, plain); // common case: the whole string, in one copy
+        for (int i = plain; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        return json.append('"');
+    }
+
+    private static boolean needsEscape(char c) {
+        return c < 0x20 || c == '"' || c == '\\' || c == '\u2028' || c == '\u2029';
+    }
+
+    /* -------------------- primitives -------------------- */
+
+    private static long zigzag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static long unzigzag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private static int checksum(byte[] data, int off, int len) {
+        CRC32C crc = new CRC32C();
+        crc.update(data, off, len);
+        return (int) crc.getValue();
+    }
+
+    /** Growable output buffer (unsynchronized, unlike ByteArrayOutputStream). */
+    private static final class Out {
+        byte[] buf;
+        int len;
+
+        Out(int capacity) {
+            buf = new byte[capacity];
+        }
+
+        void reset() {
+            len = 0;
+        }
+
+        private void ensure(int n) {
+            if (len + n > buf.length) buf = Arrays.copyOf(buf, Math.max(len + n, buf.length * 2));
+        }
+
+        void u8(int v) {
+            ensure(1);
+            buf[len++] = (byte) v;
+        }
+
+        void int32(int v) {
+            ensure(4);
+            buf[len++] = (byte) (v >>> 24);
+            buf[len++] = (byte) (v >>> 16);
+            buf[len++] = (byte) (v >>> 8);
+            buf[len++] = (byte) v;
+        }
+
+        void varint(long v) {
+            ensure(10);
+            while ((v & ~0x7FL) != 0L) {
+                buf[len++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[len++] = (byte) v;
+        }
+
+        void bytes(byte[] src, int off, int n) {
+            ensure(n);
+            System.arraycopy(src, off, buf, len, n);
+            len += n;
+        }
+
+        void string(String s) {
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            varint(b.length);
+            bytes(b, 0, b.length);
+        }
+    }
+
+    /** Bounds-checked reader; every overrun is reported as a truncated snapshot. */
+    private static final class In {
+        final byte[] data;
+        final int end;
+        int pos;
+
+        In(byte[] data) {
+            this(data, 0, data.length);
+        }
+
+        In(byte[] data, int pos, int end) {
+            this.data = data;
+            this.pos = pos;
+            this.end = end;
+        }
+
+        void require(int n) throws IOException {
+            if (n < 0 || end - pos < n) throw new IOException("snapshot is truncated");
+        }
+
+        int u8() throws IOException {
+            require(1);
+            return data[pos++] & 0xFF;
+        }
+
+        int int32() throws IOException {
+            require(4);
+            int v = ((data[pos] & 0xFF) << 24) | ((data[pos + 1] & 0xFF) << 16)
+                    | ((data[pos + 2] & 0xFF) << 8) | (data[pos + 3] & 0xFF);
+            pos += 4;
+            return v;
+        }
+
+        long varint() throws IOException {
+            long v = 0L;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = u8();
+                v |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return v;
+            }
+            throw new IOException("malformed varint in snapshot");
+        }
+
+        /** A varint used as a length or count: cannot exceed the remaining bytes. */
+        int count() throws IOException {
+            long v = varint();
+            if (v > end - pos) throw new IOException("snapshot is truncated"); // every item takes a byte or more
+            return (int) v;
+        }
+
+        String string() throws IOException {
+            int n = count();
+            require(n);
+            String s = new String(data, pos, n, StandardCharsets.UTF_8);
+            pos += n;
+            return s;
+        }
+    }
+}
@@ -1,13 +1,22 @@
 package org.example.persistance;
 
+import org.example.interfaces.Logger;
 import org.example.interfaces.SnapshotStore;
+import org.example.util.AsyncLogger;
+import org.example.util.LatencyHistogram;
+import org.example.util.MetricsRegistry;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Stream;
 
 /**
@@ -18,11 +27,18 @@ import java.util.stream.Stream;
  *     <li>a timestamped file (e.g., {@code weather-20251008-103311-256.json})</li>
  *     <li>a stable file {@code latest.json} which always points to the newest snapshot</li>
  * </ul>
+ * in the store's {@link SnapshotFormat} ({@code .json} text by default, or {@code .snap} binary with
+ * {@code latest.snap}), followed by a {@link SnapshotManifest} ({@code <baseName>.manifest}) naming the timestamped file,
+ * its checksum and the highest Lamport timestamp it contains. {@link #load()} reads the manifest and that one
+ * file; it falls back to {@code latest.json} and then to a directory scan only if they fail.
  * <b>SonarQube notes:</b>
  * <ul>
  *     <li>All file operations are atomic (via temporary files + atomic move).</li>
  *     <li>Exceptions are logged but not rethrown, since persistence failure should not crash the app.</li>
  *     <li>Directory creation uses {@link Files#createDirectories(Path)} for idempotence.</li>
+ *     <li>Old timestamped files are pruned or archived by {@link SnapshotCompactor}, not here.</li>
+ *     <li>Files are decoded by their suffix, so a binary store still loads the JSON snapshots written
+ *         before it was switched on (and its next save writes binary).</li>
  * </ul>
  */
 public final class FileSnapshotStore implements SnapshotStore {
@@ -33,10 +49,26 @@ public final class FileSnapshotStore implements SnapshotStore {
     // Base name for snapshot files, e.g. "weather"
     private final String baseName;
 
+    // Encoding of newly written snapshot files
+    private final SnapshotFormat format;
+
     // Timestamp pattern for unique filenames, ensures lexical ordering by time.
     private static final DateTimeFormatter TS =
             DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
 
+    // Millisecond of the previous file name; a save in the same millisecond takes the next one,
+    // so names stay unique and in save order instead of overwriting each other.
+    private final AtomicLong lastStampMs = new AtomicLong();
+
+    // Highest Lamport timestamp in the snapshot last loaded or saved (0 = unknown)
+    private volatile long lastAppliedLamport = 0L;
+
+    private static final Logger LOG = AsyncLogger.shared();
+
+    // Save duration and failures, exported through the registry passed at construction
+    private final LatencyHistogram saveTimer;
+    private final LongAdder saveFailures;
+
     /**
      * Constructs a file snapshot store.
      *
@@ -44,68 +76,138 @@ public final class FileSnapshotStore implements SnapshotStore {
      * @param baseName prefix for snapshot file names.
      */
     public FileSnapshotStore(Path dir, String baseName) {
+        this(dir, baseName, new MetricsRegistry());
+    }
+
+    /**
+     * Constructs a file snapshot store that records {@code agg_snapshot_save_seconds} and
+     * {@code agg_snapshot_save_failures_total} in the given registry.
+     *
+     * @param dir      directory to store snapshots in.
+     * @param baseName prefix for snapshot file names.
+     * @param metrics  registry to record save timings in.
+     */
+    public FileSnapshotStore(Path dir, String baseName, MetricsRegistry metrics) {
+        this(dir, baseName, metrics, SnapshotFormat.JSON);
+    }
+
+    /**
+     * Constructs a file snapshot store that writes snapshots in the given format.
+     *
+     * @param dir      directory to store snapshots in.
+     * @param baseName prefix for snapshot file names.
+     * @param metrics  registry to record save timings in.
+     * @param format   encoding of the snapshot files.
+     */
+    public FileSnapshotStore(Path dir, String baseName, MetricsRegistry metrics, SnapshotFormat format) {
         this.dir = dir;
         this.baseName = baseName;
+        this.format = format;
+        this.saveTimer = metrics.histogram("agg_snapshot_save_seconds", "",
+                "Time to write one snapshot (timestamped file, latest file and manifest)");
+        this.saveFailures = metrics.counter("agg_snapshot_save_failures_total", "",
+                "Snapshot writes that failed");
+    }
+
+    /** @return the standard path of the "latest" file in the given format, e.g. {@code latest.json}. */
+    private Path latestPath(SnapshotFormat f) {
+        return dir.resolve("latest" + f.suffix());
     }
 
-    /** @return the standard path of the "latest.json" file. */
-    private Path latestPath() {
-        return dir.resolve("latest.json");
+    /** @return the path of this store's manifest, e.g. {@code weather.manifest} */
+    private Path manifestPath() {
+        return dir.resolve(baseName + ".manifest");
     }
 
     /**
      * Loads the most recent snapshot content as a JSON string.
      * <p>
-     * It first checks {@code latest.json}, and if not present, finds the most
-     * recent {@code baseName-*.json} file by lexicographic order.
+     * It first reads the file named by the manifest and verifies its checksum. Failing that it
+     * checks {@code latest.json}, and if not present, finds the most recent {@code baseName-*.json}
+     * file by lexicographic order. {@link #lastAppliedLamport()} is taken from the manifest.
      * </p>
      *
      * @return snapshot JSON, or {@code null} if no valid snapshot exists.
      */
     @Override
     public String load() {
+        return loadWith(SnapshotFormat::decode);
+    }
+
+    /**
+     * Loads the same snapshot as {@link #load()} as station documents keyed by id; a binary snapshot
+     * is decoded record by record without building or parsing the whole JSON text.
+     *
+     * @return station id to JSON document, or {@code null} if no valid snapshot exists.
+     */
+    @Override
+    public Map<String, String> loadDocuments() {
+        return loadWith(SnapshotFormat::decodeDocuments);
+    }
+
+    /** Decodes snapshot bytes in the format of the file they came from. */
+    @FunctionalInterface
+    private interface Decoder<T> {
+        T decode(SnapshotFormat format, byte[] data) throws IOException;
+    }
+
+    /**
+     * Finds the newest readable snapshot: the manifest's file (checksum verified), then the latest
+     * file, then the newest timestamped file, each in this store's format first and legacy JSON second.
+     */
+    private <T> T loadWith(Decoder<T> decoder) {
         try {
-            // Prefer latest.json if present (fastest path)
-            Path latest = latestPath();
-            if (Files.exists(latest)) {
-                return Files.readString(latest, StandardCharsets.UTF_8);
+            // Manifest first: one small read, then the named snapshot, verified (no directory listing)
+            SnapshotManifest manifest = readManifest();
+            if (manifest != null) {
+                lastAppliedLamport = manifest.lamport(); // lower bound for any fallback below too
+                Path named = dir.resolve(manifest.file());
+                if (Files.exists(named)) {
+                    byte[] data = Files.readAllBytes(named);
+                    T loaded = manifest.matches(data) ? decode(decoder, named, data) : null;
+                    if (loaded != null) return loaded;
+                }
+                LOG.warn("Snapshot " + manifest.file() + " missing or fails its manifest checksum; falling back");
             }
 
-            // Otherwise, pick newest "baseName-*.json" by filename timestamp
-            if (!Files.exists(dir)) return null;
+            // Then the latest file if present (in this store's format, then legacy JSON)
+            for (SnapshotFormat f : fallbackFormats()) {
+                Path latest = latestPath(f);
+                if (Files.exists(latest)) {
+                    T loaded = decode(decoder, latest, Files.readAllBytes(latest));
+                    if (loaded != null) return loaded;
+                }
+            }
 
-            try (Stream<Path> s = Files.list(dir)) {
-                return s.filter(p -> {
-                            String f = p.getFileName().toString();
-                            return f.startsWith(baseName + "-") && f.endsWith(".json");
-                        })
-                        // Lexical filename order matches chronological order due to timestamp pattern
-                        .max(Comparator.comparing(Path::getFileName))
-                        .map(p -> {
-                            try {
-                                return Files.readString(p, StandardCharsets.UTF_8);
-                            } catch (IOException e) {
-                                // Sonar: intentionally fallback to null; skipping unreadable snapshot is safe.
-                                return null;
-                            }
-                        })
-                        .orElse(null);
+            // Otherwise, pick newest "baseName-*" snapshot by filename timestamp
+            if (!Files.exists(dir)) return null;
+            for (SnapshotFormat f : fallbackFormats()) {
+                Path newest = newest(f);
+                if (newest != null) return decode(decoder, newest, Files.readAllBytes(newest));
             }
+            return null;
 
         } catch (IOException e) {
             // Sonar: persistence errors are non-fatal, so they are logged instead of propagated.
-            System.err.println("Snapshot load failed: " + e.getMessage());
+            LOG.error("Snapshot load failed: " + e.getMessage());
             return null;
         }
     }
 
+    /** @return the highest Lamport timestamp recorded with the snapshot last loaded or saved, 0 if unknown */
+    @Override
+    public long lastAppliedLamport() {
+        return lastAppliedLamport;
+    }
+
     /**
      * Saves the given JSON snapshot to disk.
      * <p>
      * The method:
      * <ol>
      *     <li>Writes to a timestamped file (ensuring historical record).</li>
-     *     <li>Overwrites {@code latest.json} for quick reloads.</li>
+     *     <li>Overwrites {@code latest.json} (or {@code latest.snap}) for quick reloads.</li>
+     *     <li>Replaces the manifest, which points at the file from step 1.</li>
      *     <li>Uses atomic renames to avoid partial writes.</li>
      * </ol>
      *
@@ -113,36 +215,100 @@ public final class FileSnapshotStore implements SnapshotStore {
      */
     @Override
     public void save(String json) {
+        save(json, 0L);
+    }
+
+    /**
+     * Saves the snapshot and records {@code appliedLamport} in the manifest.
+     *
+     * @param json           snapshot content to persist.
+     * @param appliedLamport Lamport timestamp of the newest update in {@code json}.
+     */
+    @Override
+    public void save(String json, long appliedLamport) {
+        long t0 = System.nanoTime();
         try {
             // Ensure directory exists before writing
             Files.createDirectories(dir);
 
             // 1) Write unique timestamped snapshot
-            String stamp = LocalDateTime.now().format(TS);
-            Path unique = dir.resolve(baseName + "-" + stamp + ".json");
+            long ms = lastStampMs.updateAndGet(prev -> Math.max(prev + 1, System.currentTimeMillis()));
+            String stamp = LocalDateTime.ofInstant(Instant.ofEpochMilli(ms), ZoneId.systemDefault()).format(TS);
+            Path unique = dir.resolve(baseName + "-" + stamp + format.suffix());
 
             // Use temporary file for atomic write (Sonar: avoids partial file on crash)
             Path tmpUnique = unique.resolveSibling(unique.getFileName() + ".tmp");
-            Files.writeString(tmpUnique, json, StandardCharsets.UTF_8);
+            byte[] data = format.encode(json);
+            Files.write(tmpUnique, data);
 
             // Atomic move to final file
             Files.move(tmpUnique, unique,
                     StandardCopyOption.REPLACE_EXISTING,
                     StandardCopyOption.ATOMIC_MOVE);
 
-            // 2) Overwrite latest.json (always most recent snapshot)
-            Path latest = latestPath();
+            // 2) Overwrite the latest file (always most recent snapshot)
+            Path latest = latestPath(format);
             Path tmpLatest = latest.resolveSibling(latest.getFileName() + ".tmp");
-            Files.writeString(tmpLatest, json, StandardCharsets.UTF_8);
+            Files.write(tmpLatest, data);
 
             // Replace existing file atomically for safety
             Files.move(tmpLatest, latest,
                     StandardCopyOption.REPLACE_EXISTING,
                     StandardCopyOption.ATOMIC_MOVE);
 
+            // 3) Point the manifest at the new file (last, so it never names a file that is not there)
+            long lamport = Math.max(lastAppliedLamport, appliedLamport);
+            new SnapshotManifest(unique.getFileName().toString(), data.length, SnapshotManifest.checksum(data),
+                    lamport, ms).write(manifestPath());
+            lastAppliedLamport = lamport;
+
         } catch (IOException e) {
             // Sonar: error is logged instead of rethrown to prevent full application failure.
-            System.err.println("Snapshot save failed: " + e.getMessage());
+            saveFailures.increment();
+            LOG.error("Snapshot save failed: " + e.getMessage());
+        } finally {
+            saveTimer.record(System.nanoTime() - t0);
+        }
+    }
+
+    /** @return formats to try when the manifest does not lead to a snapshot: this store's, then JSON */
+    private List<SnapshotFormat> fallbackFormats() {
+        return (format == SnapshotFormat.JSON) ? List.of(format) : List.of(format, SnapshotFormat.JSON);
+    }
+
+    /** @return the newest {@code baseName-*} file in the given format, or {@code null} */
+    private Path newest(SnapshotFormat f) throws IOException {
+        try (Stream<Path> s = Files.list(dir)) {
+            return s.filter(p -> {
+                        String name = p.getFileName().toString();
+                        return name.startsWith(baseName + "-") && name.endsWith(f.suffix());
+                    })
+                    // Lexical filename order matches chronological order due to timestamp pattern
+                    .max(Comparator.comparing(Path::getFileName))
+                    .orElse(null);
+        }
+    }
+
+    /** Decodes a snapshot file by its suffix; {@code null} if it is corrupt. */
+    private static <T> T decode(Decoder<T> decoder, Path file, byte[] data) {
+        SnapshotFormat f = file.getFileName().toString().endsWith(SnapshotFormat.BINARY.suffix())
+                ? SnapshotFormat.BINARY : SnapshotFormat.JSON;
+        try {
+            return decoder.decode(f, data);
+        } catch (IOException e) {
+            // Sonar: intentionally fallback to null; the caller tries the next candidate.
+            LOG.warn("Skipping unreadable snapshot " + file.getFileName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private SnapshotManifest readManifest() {
+        try {
+            return SnapshotManifest.read(manifestPath());
+        } catch (IOException e) {
+            // Sonar: a damaged manifest only costs the fast path; the fallbacks still find a snapshot
+            LOG.warn(e.getMessage());
+            return null;
         }
     }
 }
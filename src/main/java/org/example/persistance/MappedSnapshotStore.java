@@ -0,0 +1,447 @@
+package org.example.persistance;
+
+import org.example.interfaces.Logger;
+import org.example.interfaces.SnapshotStore;
+import org.example.util.AsyncLogger;
+import org.example.util.LatencyHistogram;
+import org.example.util.MetricsRegistry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * MappedSnapshotStore appends snapshots into pre-allocated, memory-mapped segment files, so a save is
+ * a memory copy rather than file writes, renames and their syscalls.
+ * <p>
+ * Segments are named {@code <baseName>.<index>.mseg}, mapped {@code READ_WRITE} at {@code segmentBytes}
+ * (the file is zero-filled up front) and rolled over when the next record does not fit. Records are
+ * 8-byte aligned: {@code [int length][long seq][long lamport][int crc32c(seq, lamport, payload)][payload][pad]
+ * [int frameBytes][int MAGIC]}, where {@code lamport} is the highest Lamport timestamp the snapshot
+ * contains ({@link #lastAppliedLamport()}). The UTF-8 payload is encoded into reused scratch arrays and copied into
+ * the mapping in one bulk put, and the CRC is computed over the mapped bytes, so steady-state saves
+ * allocate no payload-sized arrays and make no syscalls (unless {@code ALWAYS} forces the pages).
+ * </p>
+ * <p>
+ * On restart the newest valid record is found by scanning the last segment <i>backwards</i>: locate
+ * the zero tail (binary search, a few page touches), read the trailing footer, jump to the record start
+ * and verify its CRC; a torn record is skipped by moving to the footer before it. Bytes after the last
+ * valid record are zeroed so later appends cannot be confused with them.
+ * </p>
+ * <b>SonarQube notes:</b>
+ * <ul>
+ *   <li>Durability follows {@link LogSnapshotStore.Fsync}: {@code ALWAYS} forces the record's pages,
+ *       {@code INTERVAL} forces dirty segments from a background thread, {@code OS} relies on write-back.</li>
+ *   <li>Each record holds the full state, so only the current and previous segments are kept.</li>
+ *   <li>Under {@code INTERVAL}/{@code OS}, an OS crash can lose a page while later ones survive; a hole
+ *       that ends exactly on a record boundary is not detected. {@code ALWAYS} forces pages in order.</li>
+ *   <li>Mappings are released by the GC (Java offers no explicit unmap); segments are few and large.</li>
+ * </ul>
+ */
+public final class MappedSnapshotStore implements SnapshotStore, AutoCloseable {
+
+    static final int HEADER_BYTES = Integer.BYTES + Long.BYTES + Long.BYTES + Integer.BYTES;
+    private static final int SEQ_AT = Integer.BYTES;
+    private static final int LAMPORT_AT = SEQ_AT + Long.BYTES;
+    private static final int CRC_AT = LAMPORT_AT + Long.BYTES;
+    static final int FOOTER_BYTES = Integer.BYTES + Integer.BYTES;
+    static final int MAGIC = 0x534E4150; // "SNAP"
+    private static final int KEEP_SEGMENTS = 2;
+    /** Largest scratch array the VM reliably allocates; bounds the worst-case encoded snapshot. */
+    private static final int MAX_ENCODED = Integer.MAX_VALUE - 8;
+    private static final String SUFFIX = ".mseg";
+
+    private static final Logger LOG = AsyncLogger.shared();
+
+    private final Path dir;
+    private final String baseName;
+    private final long segmentBytes;
+    private final LogSnapshotStore.Fsync fsync;
+    private final long fsyncIntervalMs;
+
+    private final LatencyHistogram saveTimer;
+    private final LongAdder saveFailures;
+    private final LongAdder rolls;
+
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final CRC32C crc = new CRC32C();
+    private char[] chars = new char[1024];   // encode scratch, guarded by this
+    private byte[] bytes = new byte[4096];
+
+    // Guarded by this
+    private MappedByteBuffer segment;
+    private long segmentIndex = 0L;
+    private int position = 0;
+    private long seq = 0L;
+    private long lamport = 0L;
+    private String latest = null;
+    private boolean dirty = false;
+    private boolean opened = false;
+
+    private final Thread syncer;
+
+    /**
+     * Constructs a memory-mapped store.
+     *
+     * @param dir             directory for the segment files
+     * @param baseName        prefix of the segment file names
+     * @param segmentBytes    pre-allocated size of each segment (a larger record gets a segment of its own size)
+     * @param fsync           durability policy
+     * @param fsyncIntervalMs force period for {@link LogSnapshotStore.Fsync#INTERVAL}
+     * @param metrics         registry for {@code agg_snapshot_save_*} and {@code agg_mmap_segment_rolls_total}
+     */
+    public MappedSnapshotStore(Path dir, String baseName, long segmentBytes, LogSnapshotStore.Fsync fsync,
+                               long fsyncIntervalMs, MetricsRegistry metrics) {
+        this.dir = dir;
+        this.baseName = baseName;
+        this.segmentBytes = Math.min(Integer.MAX_VALUE & ~7L, Math.max(1024L, segmentBytes) & ~7L);
+        this.fsync = fsync;
+        this.fsyncIntervalMs = Math.max(1L, fsyncIntervalMs);
+        this.saveTimer = metrics.histogram("agg_snapshot_save_seconds", "",
+                "Time to copy one snapshot into the mapped segment");
+        this.saveFailures = metrics.counter("agg_snapshot_save_failures_total", "",
+                "Snapshot writes that failed");
+        this.rolls = metrics.counter("agg_mmap_segment_rolls_total", "",
+                "Memory-mapped snapshot segments started");
+
+        if (fsync == LogSnapshotStore.Fsync.INTERVAL) {
+            syncer = new Thread(this::runSyncer, "mmap-fsync");
+            syncer.setDaemon(true);
+            syncer.start();
+        } else {
+            syncer = null;
+        }
+    }
+
+    /**
+     * Returns the newest valid record of the newest segment that has one.
+     *
+     * @return snapshot JSON, or {@code null} if nothing was saved yet
+     */
+    @Override
+    public synchronized String load() {
+        try {
+            open();
+            return latest;
+        } catch (IOException e) {
+            // Sonar: persistence errors are non-fatal, so they are logged instead of propagated.
+            LOG.error("Snapshot load failed: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Encodes the snapshot into the current segment (rolling over if it does not fit) and forces it
+     * per the fsync policy.
+     *
+     * @param json snapshot content to persist.
+     */
+    @Override
+    public void save(String json) {
+        save(json, 0L);
+    }
+
+    /**
+     * Like {@link #save(String)}, recording {@code appliedLamport} in the record header.
+     *
+     * @param json           snapshot content to persist.
+     * @param appliedLamport Lamport timestamp of the newest update in {@code json}.
+     */
+    @Override
+    public synchronized void save(String json, long appliedLamport) {
+        long t0 = System.nanoTime();
+        try {
+            open();
+            long recLamport = Math.max(lamport, appliedLamport);
+            int len = encode(json); // once; a roll reuses the encoded bytes
+            if (segment == null || !append(len, recLamport)) {
+                roll(frameBytes(len));
+                if (!append(len, recLamport)) throw new IOException("snapshot does not fit a fresh segment");
+            }
+            latest = json;
+            lamport = recLamport;
+        } catch (IOException e) {
+            // Sonar: error is logged instead of rethrown to prevent full application failure.
+            saveFailures.increment();
+            LOG.error("Snapshot save failed: " + e.getMessage());
+        } finally {
+            saveTimer.record(System.nanoTime() - t0);
+        }
+    }
+
+    /** @return the Lamport timestamp recorded with the newest snapshot, 0 if none */
+    @Override
+    public synchronized long lastAppliedLamport() {
+        try {
+            open();
+            return lamport;
+        } catch (IOException e) {
+            LOG.error("Snapshot load failed: " + e.getMessage());
+            return 0L;
+        }
+    }
+
+    /** Forces the current segment and stops the background syncer. */
+    @Override
+    public synchronized void close() {
+        if (syncer != null) syncer.interrupt();
+        if (segment != null) segment.force();
+        segment = null;
+        opened = false;
+    }
+
+    /* -------------------- write path -------------------- */
+
+    /**
+     * Writes one record of the {@code len} bytes just {@link #encode encoded} at {@link #position};
+     * returns {@code false} (nothing written) if it does not fit.
+     */
+    private boolean append(int len, long recLamport) {
+        int start = position;
+        int payloadAt = start + HEADER_BYTES;
+        if (start + frameBytes(len) > segment.capacity()) return false;
+        int frame = (int) frameBytes(len); // fits: bounded by the segment capacity
+
+        segment.put(payloadAt, bytes, 0, len);
+
+        long recSeq = seq + 1;
+        segment.putLong(start + SEQ_AT, recSeq);
+        segment.putLong(start + LAMPORT_AT, recLamport);
+        segment.putInt(start + CRC_AT, checksum(segment, start, len));
+        segment.putInt(start + frame - FOOTER_BYTES, frame);
+        segment.putInt(start + frame - Integer.BYTES, MAGIC);
+        segment.putInt(start, len); // length last: a record with length 0 reads as unwritten
+        seq = recSeq;
+        position = start + frame;
+
+        if (fsync == LogSnapshotStore.Fsync.ALWAYS) {
+            segment.force(start, frame);
+        } else {
+            dirty = true;
+        }
+        return true;
+    }
+
+    /** Starts segment {@code segmentIndex + 1}, at least {@code minBytes} long, and drops old ones. */
+    private void roll(long minBytes) throws IOException {
+        if (segment != null) segment.force();
+        segmentIndex++;
+        long size = Math.max(segmentBytes, (minBytes + 7L) & ~7L);
+        if (size > Integer.MAX_VALUE) throw new IOException("snapshot too large for a mapped segment");
+        segment = map(segmentPath(segmentIndex), size);
+        position = 0;
+        dirty = false;
+        rolls.increment();
+
+        for (Path old : segments()) {
+            if (indexOf(old) <= segmentIndex - KEEP_SEGMENTS) Files.deleteIfExists(old);
+        }
+    }
+
+    /**
+     * UTF-8 encodes {@code json} into the reusable {@link #bytes} scratch (array to array, the encoder's
+     * fast path) so steady-state saves allocate no payload-sized arrays.
+     *
+     * @return encoded length
+     * @throws IOException if the UTF-8 worst case (3 bytes per char) exceeds the largest scratch array
+     */
+    private int encode(String json) throws IOException {
+        int n = json.length();
+        long worst = n * 3L; // UTF-8 worst case per char
+        if (worst > MAX_ENCODED) throw new IOException("snapshot too large for a mapped segment");
+        if (chars.length < n) chars = new char[(int) Math.min(MAX_ENCODED, Math.max(n, chars.length * 2L))];
+        if (bytes.length < worst) bytes = new byte[(int) Math.min(MAX_ENCODED, Math.max(worst, bytes.length * 2L))];
+        json.getChars(0, n, chars, 0);
+        ByteBuffer out = ByteBuffer.wrap(bytes);
+        encoder.reset();
+        encoder.encode(CharBuffer.wrap(chars, 0, n), out, true); // cannot overflow: 3 bytes per char
+        encoder.flush(out);
+        return out.position();
+    }
+
+    /* -------------------- recovery -------------------- */
+
+    /** Maps the newest segment and recovers the newest valid record, scanning backwards. */
+    private void open() throws IOException {
+        if (opened) return;
+        Files.createDirectories(dir);
+        List<Path> all = segments();
+        for (int i = all.size() - 1; i >= 0 && latest == null; i--) {
+            Path p = all.get(i);
+            MappedByteBuffer buf = map(p, Files.size(p));
+            int end = recoverLast(buf);
+            if (i == all.size() - 1) {
+                segmentIndex = indexOf(p);
+                segment = buf;
+                position = end;
+            }
+        }
+        if (!all.isEmpty() && latest != null) {
+            LOG.info("Recovered snapshot seq " + seq + " from " + all.get(all.size() - 1).getFileName());
+        }
+        opened = true;
+    }
+
+    /**
+     * Finds the last valid record of a segment, sets {@link #latest}/{@link #seq} from it and zeroes
+     * anything after it.
+     *
+     * @return offset just past the last valid record (0 if none)
+     */
+    private int recoverLast(MappedByteBuffer buf) {
+        int dirtyEnd = zeroTailStart(buf);
+
+        int end = dirtyEnd;
+        int validEnd = 0;
+        while (end >= HEADER_BYTES + FOOTER_BYTES) {
+            int frame = buf.getInt(end - FOOTER_BYTES);
+            boolean footerOk = buf.getInt(end - Integer.BYTES) == MAGIC
+                    && frame >= HEADER_BYTES + FOOTER_BYTES && frame <= end && (frame & 7) == 0;
+            if (!footerOk) {
+                validEnd = scanForward(buf, end); // footer torn: fall back to a forward scan
+                break;
+            }
+            int start = end - frame;
+            if (valid(buf, start, frame)) {
+                validEnd = end;
+                break;
+            }
+            end = start; // torn record: try the one before it
+        }
+
+        if (validEnd > 0) {
+            int start = validEnd - buf.getInt(validEnd - FOOTER_BYTES);
+            int len = buf.getInt(start);
+            byte[] payload = new byte[len];
+            buf.get(start + HEADER_BYTES, payload);
+            latest = new String(payload, StandardCharsets.UTF_8);
+            seq = buf.getLong(start + SEQ_AT);
+            lamport = buf.getLong(start + LAMPORT_AT);
+        }
+        if (dirtyEnd > validEnd) {
+            // Torn: clear to the end, not just to dirtyEnd, in case pages beyond a lost one survived
+            LOG.warn("Discarding torn snapshot data after offset " + validEnd);
+            int cap = buf.capacity();
+            byte[] zeros = new byte[Math.min(cap - validEnd, 1 << 16)];
+            for (int at = validEnd; at < cap; at += zeros.length) {
+                buf.put(at, zeros, 0, Math.min(zeros.length, cap - at));
+            }
+        }
+        return validEnd;
+    }
+
+    /**
+     * Binary-searches the start of the zero tail. Written data has no all-zero aligned word (headers,
+     * JSON text and footers are non-zero in every 8 bytes), so "word is zero" is monotonic.
+     */
+    private static int zeroTailStart(MappedByteBuffer buf) {
+        int lo = 0;
+        int hi = buf.capacity() / Long.BYTES; // first zero word is in [lo, hi]
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (buf.getLong(mid * Long.BYTES) == 0L) hi = mid; else lo = mid + 1;
+        }
+        return lo * Long.BYTES;
+    }
+
+    /** Walks records from the segment start; returns the end of the last valid one before {@code limit}. */
+    private int scanForward(MappedByteBuffer buf, int limit) {
+        int at = 0;
+        int validEnd = 0;
+        while (at + HEADER_BYTES + FOOTER_BYTES <= limit) {
+            int len = buf.getInt(at);
+            if (len <= 0) break;
+            int frame = align(HEADER_BYTES + len) + FOOTER_BYTES;
+            if (at + frame > limit || !valid(buf, at, frame)) break;
+            at += frame;
+            validEnd = at;
+        }
+        return validEnd;
+    }
+
+    private boolean valid(MappedByteBuffer buf, int start, int frame) {
+        int len = buf.getInt(start);
+        return len > 0 && align(HEADER_BYTES + len) + FOOTER_BYTES == frame
+                && buf.getInt(start + frame - FOOTER_BYTES) == frame
+                && buf.getInt(start + CRC_AT) == checksum(buf, start, len);
+    }
+
+    /* -------------------- helpers -------------------- */
+
+    /** CRC32C over the record's sequence number, Lamport timestamp and payload, read from the mapping. */
+    private int checksum(ByteBuffer buf, int start, int len) {
+        crc.reset();
+        crc.update(buf.duplicate().position(start + SEQ_AT).limit(start + CRC_AT));
+        crc.update(buf.duplicate().position(start + HEADER_BYTES).limit(start + HEADER_BYTES + len));
+        return (int) crc.getValue();
+    }
+
+    private static int align(int n) {
+        return (n + 7) & ~7;
+    }
+
+    private static long frameBytes(long payloadBytes) {
+        return ((HEADER_BYTES + payloadBytes + 7L) & ~7L) + FOOTER_BYTES;
+    }
+
+    private static MappedByteBuffer map(Path p, long size) throws IOException {
+        try (FileChannel ch = FileChannel.open(p, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return ch.map(FileChannel.MapMode.READ_WRITE, 0L, size); // the mapping outlives the channel
+        }
+    }
+
+    private Path segmentPath(long index) {
+        return dir.resolve(String.format("%s.%010d%s", baseName, index, SUFFIX));
+    }
+
+    /** @return this store's segment files, oldest first */
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> s = Files.list(dir)) {
+            List<Path> out = new ArrayList<>(s.filter(p -> {
+                String f = p.getFileName().toString();
+                return f.startsWith(baseName + ".") && f.endsWith(SUFFIX) && indexOf(p) > 0L;
+            }).toList());
+            out.sort(null);
+            return out;
+        }
+    }
+
+    private long indexOf(Path segmentFile) {
+        String f = segmentFile.getFileName().toString();
+        try {
+            return Long.parseLong(f.substring(baseName.length() + 1, f.length() - SUFFIX.length()));
+        } catch (RuntimeException e) {
+            return -1L;
+        }
+    }
+
+    private void runSyncer() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(fsyncIntervalMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            synchronized (this) {
+                if (!dirty || segment == null) continue;
+                segment.force();
+                dirty = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package org.example.persistance;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * On-disk encodings understood by {@link FileSnapshotStore}; the file suffix tells them apart.
+ * <ul>
+ *   <li>{@link #JSON}: the snapshot text as UTF-8 ({@code .json}).</li>
+ *   <li>{@link #BINARY}: {@link BinarySnapshotCodec} records with a CRC32C each ({@code .snap}).</li>
+ * </ul>
+ */
+public enum SnapshotFormat {
+
+    JSON(".json") {
+        @Override
+        public byte[] encode(String json) {
+            return json.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String decode(byte[] data) {
+            return new String(data, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public Map<String, String> decodeDocuments(byte[] data) throws IOException {
+            JsonElement root;
+            try {
+                root = JsonParser.parseString(decode(data));
+            } catch (JsonParseException e) {
+                throw new IOException("snapshot is not valid JSON: " + e.getMessage(), e);
+            }
+            Iterable<JsonElement> docs = root.isJsonArray() ? root.getAsJsonArray() : List.of(root);
+            Map<String, String> out = new LinkedHashMap<>();
+            for (JsonElement doc : docs) {
+                if (!doc.isJsonObject()) continue;
+                JsonElement id = doc.getAsJsonObject().get("id");
+                if (id == null || !id.isJsonPrimitive() || id.getAsString().isBlank()) continue;
+                out.put(id.getAsString(), doc.toString());
+            }
+            return out;
+        }
+    },
+
+    BINARY(".snap") {
+        @Override
+        public byte[] encode(String json) throws IOException {
+            return BinarySnapshotCodec.encode(json);
+        }
+
+        @Override
+        public String decode(byte[] data) throws IOException {
+            return BinarySnapshotCodec.decode(data);
+        }
+
+        @Override
+        public Map<String, String> decodeDocuments(byte[] data) throws IOException {
+            return BinarySnapshotCodec.decodeDocuments(data);
+        }
+    };
+
+    private final String suffix;
+
+    SnapshotFormat(String suffix) {
+        this.suffix = suffix;
+    }
+
+    /** @return file name suffix, including the dot */
+    public String suffix() {
+        return suffix;
+    }
+
+    /** Encodes snapshot JSON for writing. */
+    public abstract byte[] encode(String json) throws IOException;
+
+    /** Decodes bytes written by {@link #encode}. */
+    public abstract String decode(byte[] data) throws IOException;
+
+    /**
+     * Decodes bytes written by {@link #encode} into station documents keyed by id, in snapshot order;
+     * entries that are not objects with a non-blank primitive {@code id} are left out.
+     */
+    public abstract Map<String, String> decodeDocuments(byte[] data) throws IOException;
+
+    /** Parses {@code json|binary} (case-insensitive); anything else means {@link #JSON}. */
+    public static SnapshotFormat parse(String s) {
+        return "binary".equalsIgnoreCase(s) ? BINARY : JSON;
+    }
+}
@@ -0,0 +1,84 @@
+package org.example.persistance;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32C;
+
+/**
+ * SnapshotManifest is the small index file {@link FileSnapshotStore} rewrites after every save: it
+ * names the newest snapshot file, its size and CRC32C, and the highest Lamport timestamp the snapshot contains.
+ * <p>
+ * Startup reads the manifest and the one file it names, instead of listing and sorting the whole
+ * snapshot directory, and resumes the Lamport clock from {@code lamport}.
+ * </p>
+ * <b>SonarQube notes:</b>
+ * <ul>
+ *   <li>Written to a temp file and moved into place atomically, so a reader sees the old or the new one.</li>
+ *   <li>Snapshots only grow in coverage, so {@code lamport} is also a lower bound for any newer snapshot
+ *       written before a crash interrupted the manifest update.</li>
+ * </ul>
+ *
+ * @param file      file name of the snapshot, relative to the manifest's directory
+ * @param bytes     size of the snapshot in bytes
+ * @param crc32c    CRC32C of the snapshot bytes
+ * @param lamport   every update with a Lamport timestamp up to this value is in the snapshot
+ * @param savedAtMs wall-clock time of the save
+ */
+public record SnapshotManifest(String file, long bytes, int crc32c, long lamport, long savedAtMs) {
+
+    /**
+     * Checks a snapshot's bytes against this manifest.
+     *
+     * @return {@code true} if size and checksum match
+     */
+    public boolean matches(byte[] snapshot) {
+        return snapshot.length == bytes && checksum(snapshot) == crc32c;
+    }
+
+    /** @return CRC32C of {@code data} */
+    public static int checksum(byte[] data) {
+        CRC32C crc = new CRC32C();
+        crc.update(data, 0, data.length);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Reads a manifest.
+     *
+     * @return the manifest, or {@code null} if the file does not exist
+     * @throws IOException if it exists but cannot be read or parsed
+     */
+    public static SnapshotManifest read(Path path) throws IOException {
+        if (!Files.exists(path)) return null;
+        try {
+            JsonObject o = JsonParser.parseString(Files.readString(path, StandardCharsets.UTF_8)).getAsJsonObject();
+            return new SnapshotManifest(o.get("file").getAsString(), o.get("bytes").getAsLong(),
+                    o.get("crc32c").getAsInt(), o.get("lamport").getAsLong(), o.get("savedAtMs").getAsLong());
+        } catch (RuntimeException e) {
+            throw new IOException("unreadable snapshot manifest " + path.getFileName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Atomically replaces the manifest at {@code path}.
+     *
+     * @throws IOException if writing or moving fails
+     */
+    public void write(Path path) throws IOException {
+        JsonObject o = new JsonObject();
+        o.addProperty("file", file);
+        o.addProperty("bytes", bytes);
+        o.addProperty("crc32c", crc32c);
+        o.addProperty("lamport", lamport);
+        o.addProperty("savedAtMs", savedAtMs);
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.writeString(tmp, o.toString(), StandardCharsets.UTF_8);
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
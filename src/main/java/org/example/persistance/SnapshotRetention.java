@@ -0,0 +1,54 @@
+package org.example.persistance;
+
+import java.time.Duration;
+
+/**
+ * Retention policy for timestamped snapshot files: keep the newest {@code keepLast} files, none older
+ * than {@code maxAge}, and at most {@code maxBytes} in total; whichever limit is hit first applies.
+ * <p>
+ * Files that fall out of retention are deleted, or merged into compressed archive segments when
+ * {@code archive} is set; at most {@code maxArchives} segments are kept.
+ * </p>
+ * <b>SonarQube notes:</b>
+ * <ul>
+ *   <li>A limit of {@code 0} (or a {@code null} / zero duration) means unlimited.</li>
+ *   <li>The newest snapshot is always retained, whatever the limits, so {@code load()} never loses it.</li>
+ * </ul>
+ *
+ * @param keepLast    newest files kept (0 = unlimited)
+ * @param maxAge      oldest file age kept ({@code null} or zero = unlimited)
+ * @param maxBytes    total size of kept files (0 = unlimited)
+ * @param archive     merge dropped files into archive segments instead of deleting them
+ * @param maxArchives archive segments kept (0 = unlimited)
+ */
+public record SnapshotRetention(int keepLast, Duration maxAge, long maxBytes, boolean archive, int maxArchives) {
+
+    /** @return a policy that keeps everything (the behaviour before retention existed) */
+    public static SnapshotRetention unlimited() {
+        return new SnapshotRetention(0, null, 0L, false, 0);
+    }
+
+    /**
+     * Decides how many of the newest snapshots stay.
+     *
+     * @param sizes      file sizes, newest first
+     * @param modifiedMs last-modified times, newest first (same order as {@code sizes})
+     * @param nowMs      current time
+     * @return number of leading entries to keep (at least 1 when there is any file)
+     */
+    public int retainedCount(long[] sizes, long[] modifiedMs, long nowMs) {
+        if (sizes.length == 0) return 0;
+        long ageLimit = (maxAge == null || maxAge.isZero()) ? Long.MAX_VALUE : maxAge.toMillis();
+        long bytes = 0L;
+        int keep = 0;
+        while (keep < sizes.length) {
+            bytes += sizes[keep];
+            boolean overCount = keepLast > 0 && keep >= keepLast;
+            boolean tooOld = nowMs - modifiedMs[keep] > ageLimit;
+            boolean overBytes = maxBytes > 0L && bytes > maxBytes;
+            if (keep > 0 && (overCount || tooOld || overBytes)) break;
+            keep++;
+        }
+        return keep;
+    }
+}
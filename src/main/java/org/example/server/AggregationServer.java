@@ -1,29 +1,71 @@
 package org.example.server;
 
 import org.example.persistance.FileSnapshotStore;
+import org.example.persistance.LogSnapshotStore;
+import org.example.persistance.MappedSnapshotStore;
+import org.example.persistance.SnapshotCompactor;
+import org.example.persistance.SnapshotFormat;
+import org.example.persistance.SnapshotRetention;
+import org.example.persistance.WriteBehindSnapshotStore;
 import org.example.interfaces.SnapshotStore;
 
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 
 import org.example.interfaces.HttpHandler;
 import org.example.http.DefaultHttpHandler;
+import org.example.http.HttpRequest;
+import org.example.http.HttpRequestParser;
+import org.example.http.FeedDocument;
+import org.example.http.GzipCodec;
+import org.example.http.PreEncodedResponse;
+
+import org.example.interfaces.StationStore;
+import org.example.interfaces.StationStore.Station;
+import org.example.util.ConcurrentStationStore;
+import org.example.util.ApplierStats;
+import org.example.util.ContentServerLeases;
+import org.example.util.CountHistogram;
+import org.example.util.ShardedApplier;
+import org.example.util.LatencyHistogram;
+import org.example.util.MetricsRegistry;
 
 import java.io.*;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.PriorityQueue;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 // 🟩 Added imports
 import org.example.interfaces.LamportSynchronizer;
-import org.example.util.SimpleLamportSynchronizer;
+import org.example.util.IndexedLamportSynchronizer;
+import org.example.interfaces.Logger;
+import org.example.util.AsyncLogger;
+
+import org.example.interfaces.ConnectionExecutor;
+import org.example.util.BoundedConnectionExecutor;
 
 /**
  * AggregationServer accepts PUTs of weather data and serves it via GET.
  * <p>
+ * State is kept per station (keyed by the JSON {@code id}): {@code GET /weather.json} returns a
+ * JSON array of all live stations and {@code GET /weather.json?id=&lt;id&gt;} returns one station.
+ * </p>
+ * <p>
  * <b>Design notes (SonarQube):</b>
  * <ul>
  *   <li>Lamport clocks are used for causal ordering. Requests carry X-Lamport-Clock; server updates local clock and applies PUTs via a Lamport-ordered queue.</li>
@@ -34,17 +76,81 @@ import org.example.util.SimpleLamportSynchronizer;
  */
 public final class AggregationServer {
 
-    // ---- state served to clients (volatile for cross-thread visibility) ----
-    private static volatile String lastPayload = null;
-
-    // TTL via policy (30s). Keep lastAppliedAt updated when a PUT is applied.
+    // Diagnostics go through the async logger; per-request traces are DEBUG (-Dagg.log.level=INFO hides them)
+    private static final Logger LOG = AsyncLogger.shared();
+
+    // Metrics scraped via GET /metrics; recording is allocation-free (striped adders, fixed histograms)
+    private static final MetricsRegistry METRICS = new MetricsRegistry();
+    private static final LatencyHistogram PUT_TIMER = METRICS.histogram(
+            "agg_request_seconds", "route=\"put\"", "Time to route and answer one request");
+    private static final LatencyHistogram GET_TIMER = METRICS.histogram(
+            "agg_request_seconds", "route=\"get\"", "Time to route and answer one request");
+    private static final LatencyHistogram OTHER_TIMER = METRICS.histogram(
+            "agg_request_seconds", "route=\"other\"", "Time to route and answer one request");
+    private static final LongAdder BAD_REQUESTS = METRICS.counter(
+            "agg_bad_requests_total", "", "Requests answered with 400");
+    private static final LongAdder CONNECTIONS_OPENED = METRICS.counter(
+            "agg_connections_total", "", "Connections handled by the blocking engine");
+    private static final LongAdder CONNECTIONS_REJECTED = METRICS.counter(
+            "agg_connections_rejected_total", "", "Connections answered with 503 (cap reached)");
+    private static final LongAdder GET_CATCH_UP_TIMEOUTS = METRICS.counter(
+            "agg_get_catch_up_timeouts_total", "", "GETs answered before all PUTs up to their Lamport target applied");
+    private static final LatencyHistogram APPLY_DELAY = METRICS.histogram(
+            "agg_apply_delay_seconds", "", "Time from PUT acceptance to its update being applied and persisted");
+    private static final LatencyHistogram APPLY_BATCH_TIMER = METRICS.histogram(
+            "agg_apply_batch_seconds", "", "Time to apply and persist one batch");
+    private static final CountHistogram APPLY_BATCH_SIZE = METRICS.countHistogram(
+            "agg_apply_batch_size", "", "Updates per applied batch (group commit)");
+    private static final CountHistogram APPLY_QUEUE_BACKLOG = METRICS.countHistogram(
+            "agg_apply_queue_backlog", "", "Updates pending over all shards when a batch starts, the batch included");
+    private static final LongAdder TTL_EVICTIONS = METRICS.counter(
+            "agg_ttl_evictions_total", "", "Stations evicted because their content server lease lapsed");
+    private static final LongAdder GZIP_RESPONSES = METRICS.counter(
+            "agg_get_gzip_responses_total", "", "Feed GETs answered with a gzip-compressed body");
+
+    // Feed GETs with Accept-Encoding: gzip get the version's cached compressed body once it is at least
+    // -Dagg.gzip.minBytes=<n> uncompressed (default 1024; a very large value disables compression).
+    private static final int GZIP_MIN_BYTES = Integer.getInteger("agg.gzip.minBytes", 1024);
+
+    private static final LongAdder GZIP_PUTS = METRICS.counter(
+            "agg_put_gzip_requests_total", "", "PUTs whose body arrived with Content-Encoding: gzip");
+    private static final LongAdder REJECTED_PUT_BODIES = METRICS.counter(
+            "agg_put_body_rejected_total", "", "PUTs refused for an unsupported, corrupt or oversized coded body");
+
+    // Hard cap on a gzip PUT body after decompression (-Dagg.put.maxInflatedBytes, default 1 MiB);
+    // inflation stops at the cap, so a tiny compressed body cannot expand without bound.
+    private static final int MAX_INFLATED_BYTES = Integer.getInteger("agg.put.maxInflatedBytes", 1 << 20);
+
+    // ---- state served to clients: latest document per station id (lock-free reads) ----
+    private static final StationStore STATIONS = new ConcurrentStationStore();
+
+    // Station ids accepted by PUT, applied or still queued: decides 201 vs 200 without racing the applier
+    private static final Set<String> KNOWN_IDS = ConcurrentHashMap.newKeySet();
+
+    // TTL via policy (30s). lastAppliedAt is the most recent apply across all stations: once it is
+    // expired every station is, so GET can answer without looking further.
     private static final org.example.interfaces.ExpiryPolicy EXPIRY =
             new org.example.util.FixedTtlPolicy(30_000L);
     private static volatile long lastAppliedAt = 0L;
 
-    // Simple file-based persistence of last applied snapshot
-    private static final SnapshotStore STORE =
-            new FileSnapshotStore(java.nio.file.Paths.get("src", "main", "resources", "temp"), "weather");
+    // Per-station expiry: a content server's update renews the lease of all its stations; the applier
+    // evicts stations whose lease lapsed via a hashed timing wheel (-Dagg.expiry.tickMs=<precision>).
+    private static final long EXPIRY_TICK_MS = Long.getLong("agg.expiry.tickMs", 250L);
+    private static final ContentServerLeases LEASES = new ContentServerLeases(EXPIRY, EXPIRY_TICK_MS);
+
+    // Persistence of the last applied snapshot: -Dagg.store=file (default; timestamped file + latest.json,
+    // or checksummed binary .snap files with -Dagg.snapshot.format=binary)
+    // or -Dagg.store=wal (append-only log, -Dagg.wal.fsync=always|interval|os, -Dagg.wal.fsyncMs=<ms>,
+    // -Dagg.wal.checkpointBytes=<n> before the log is checkpointed and truncated)
+    // or -Dagg.store=mmap (pre-allocated memory-mapped segments of -Dagg.mmap.segmentBytes=<n>, same fsync settings).
+    // File store retention, enforced by a background compactor every -Dagg.snapshot.compactMs:
+    // -Dagg.snapshot.keep=<n> (default 1000), -Dagg.snapshot.maxAgeMs=<ms>, -Dagg.snapshot.maxBytes=<n>
+    // (0 = unlimited), -Dagg.snapshot.archive=true to merge dropped files into gzip segments
+    // (at most -Dagg.snapshot.maxArchives=<n>) instead of deleting them.
+    // -Dagg.snapshot.writeBehind=true moves writes off the applier onto a coalescing writer thread; at most
+    // -Dagg.snapshot.maxBacklog=<n> saves (default 64) may be pending before the applier waits for it.
+    private static final SnapshotStore STORE = createStore(java.nio.file.Paths.get("src", "main", "resources", "temp"),
+            Boolean.getBoolean("agg.snapshot.writeBehind"));
 
     // --- Lamport additions ---
     private static final org.example.interfaces.LamportClock CLOCK =
@@ -55,58 +161,271 @@ public final class AggregationServer {
     // HTTP helper (centralized response writing + reason + status constants)
     private static final HttpHandler HTTP = new DefaultHttpHandler();
 
-    // 🟩 New synchronizer instance for ordering consistency (await/notify semantics for GET catch-up)
-    private static final LamportSynchronizer SYNC = new SimpleLamportSynchronizer();
+    // GET response cache: the aggregated 200 is kept as per-station encoded segments that the applier
+    // replaces one at a time; only the Lamport header is rendered per request.
+    private static final FeedDocument FEED = new FeedDocument(NODE_ID, HTTP);
+
+    private static final PreEncodedResponse NO_DATA = new PreEncodedResponse(
+            0L, HttpHandler.NOT_FOUND, "{\"error\":\"no weather data available\"}", NODE_ID, HTTP);
+    private static final PreEncodedResponse EXPIRED = new PreEncodedResponse(
+            0L, HttpHandler.NOT_FOUND, "{\"error\":\"data expired\"}", NODE_ID, HTTP);
+    private static final PreEncodedResponse UNKNOWN_STATION = new PreEncodedResponse(
+            0L, HttpHandler.NOT_FOUND, "{\"error\":\"unknown station\"}", NODE_ID, HTTP);
+
+    // 🟩 Synchronizer for GET catch-up: waiters are indexed by target and unparked only when it is reached
+    private static final LamportSynchronizer SYNC = new IndexedLamportSynchronizer();
+
+    /** Prometheus text exposition format served by GET /metrics. */
+    private static final String METRICS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    /** Longest a GET waits for PUTs up to the current clock to apply before answering anyway. */
+    private static final Duration GET_CATCH_UP_TIMEOUT = Duration.ofMillis(2000L);
+
+    // Connection handling: capped in-flight connections on virtual threads (or a platform pool on Java 17).
+    // Tunable via -Dagg.connections.mode=virtual|pool|thread_per_connection,
+    // -Dagg.connections.max=<cap> and -Dagg.connections.poolThreads=<n>.
+    private static final ConnectionExecutor CONNECTIONS = new BoundedConnectionExecutor(
+            BoundedConnectionExecutor.Mode.parse(System.getProperty("agg.connections.mode", "virtual")),
+            Integer.getInteger("agg.connections.max", 4096),
+            Integer.getInteger("agg.connections.poolThreads", 256));
+
+    // Persistent connections (HTTP/1.1 keep-alive + pipelining), shared by both engines:
+    // -Dagg.keepAlive.idleMs=<ms> closes idle connections (0 = never),
+    // -Dagg.keepAlive.maxRequests=<n> caps requests per connection (1 = always close).
+    static final int KEEP_ALIVE_IDLE_MS = Integer.getInteger("agg.keepAlive.idleMs", 5000);
+    static final int KEEP_ALIVE_MAX_REQUESTS = Integer.getInteger("agg.keepAlive.maxRequests", 100);
+
+    // A pool worker idling on a keep-alive connection re-checks every slice whether accepted connections
+    // are queued for a worker, and if so closes the idle one (-Dagg.keepAlive.pollMs=<ms>).
+    private static final int KEEP_ALIVE_POLL_MS = Math.max(1, Integer.getInteger("agg.keepAlive.pollMs", 100));
+    private static final boolean IDLE_YIELDS_WORKER = CONNECTIONS instanceof BoundedConnectionExecutor b
+            && b.mode() == BoundedConnectionExecutor.Mode.POOL;
 
     // -----------------------------------------------------------------------
     // Lamport-ordered apply queue
     // -----------------------------------------------------------------------
-    /** Immutable update payload; ordering key is (lamportTs, fromNode, seq). */
-    private record Update(long lamportTs, String fromNode, String json, long seq) {}
+    /** Immutable update payload for station {@code id}; ordering key is (lamportTs, fromNode, seq). */
+    private record Update(long lamportTs, String fromNode, String id, String json, long seq, long acceptedNanos) {}
+
+    // Highest Lamport timestamp accepted by PUT (for the apply-lag gauge)
+    private static final AtomicLong HIGHEST_ACCEPTED_TS = new AtomicLong(0);
+
+    // Highest Lamport timestamp applied to the feed, i.e. contained in a snapshot taken now; raised before
+    // the batch is applied so a concurrent shard's snapshot never holds an update above the value it records
+    private static final AtomicLong HIGHEST_APPLIED_TS = new AtomicLong(0);
 
     // Monotonic arrival sequence to break ties stably
     private static final AtomicLong ARRIVAL_SEQ = new AtomicLong(0);
 
-    // Priority queue: first by Lamport ts, then node id (stable), then arrival sequence
-    private static final PriorityQueue<Update> APPLY_Q = new PriorityQueue<>(
+    // Serializes snapshot writes when several shards commit at once
+    private static final Object COMMIT_LOCK = new Object();
+
+    // Appliers: -Dagg.apply.shards=<n> partitions station ids over n applier threads, each with its own
+    // lock-free queue ordered by Lamport ts, then node id (stable), then arrival sequence.
+    // Group commit: each drains up to batchMax ready updates per wakeup (waiting at most lingerMs for
+    // more once one is ready) and persists once per batch.
+    // Tunable via -Dagg.apply.batchMax=<n> and -Dagg.apply.lingerMs=<ms>.
+    private static final ShardedApplier<Update> APPLIER = new ShardedApplier<>(
+            "lamport-applier",
+            Integer.getInteger("agg.apply.shards", 1),
             Comparator
                     .comparingLong((Update u) -> u.lamportTs)
                     .thenComparing(u -> u.fromNode == null ? "" : u.fromNode)
-                    .thenComparingLong(u -> u.seq)
-    );
+                    .thenComparingLong(u -> u.seq),
+            Update::id,
+            Update::lamportTs,
+            Math.max(1, Integer.getInteger("agg.apply.batchMax", 256)),
+            Math.max(0L, Long.getLong("agg.apply.lingerMs", 2L)),
+            EXPIRY_TICK_MS,                 // Sonar: bounded idle wait so the timing wheel advances without PUTs
+            AggregationServer::applyBatch,
+            AggregationServer::expireDue,   // runs on shard 0; evictions run on each station's shard
+            AggregationServer::onWatermark); // 🟩 global watermark across shards unblocks GET waiters
 
-    // Single applier thread: ensures in-order, single-threaded state mutation and snapshotting
     static {
-        Thread applier = new Thread(() -> {
-            while (true) {
-                Update u;
-                synchronized (APPLY_Q) {
-                    while (APPLY_Q.isEmpty()) {
-                        try { APPLY_Q.wait(); } catch (InterruptedException ignored) {}
-                    }
-                    u = APPLY_Q.poll();
-                }
-                try {
-                    // Apply in order (single-threaded here)
-                    lastPayload = u.json;
-                    STORE.save(lastPayload);
-                    lastAppliedAt = System.currentTimeMillis(); // record apply time for TTL
+        METRICS.gauge("agg_apply_queue_depth", "", "Updates accepted but not yet applied", APPLIER::pending);
+        METRICS.gauge("agg_apply_lag", "", "Highest accepted PUT Lamport timestamp minus the applied watermark",
+                () -> Math.max(0L, HIGHEST_ACCEPTED_TS.get() - SYNC.lastApplied()));
+        METRICS.counter("agg_apply_batches_total", "", "Batches applied, over all shards",
+                () -> APPLIER.stats().stream().mapToLong(ApplierStats::batches).sum());
+        registerApplierStats();
+        METRICS.gauge("agg_lamport_clock", "", "Current Lamport clock", CLOCK::get);
+        METRICS.gauge("agg_lamport_applied", "", "Applied Lamport watermark", SYNC::lastApplied);
+        if (STORE instanceof WriteBehindSnapshotStore wb) {
+            METRICS.gauge("agg_snapshot_durability_lag", "", "Applied Lamport watermark minus the durable one",
+                    () -> Math.max(0L, SYNC.lastApplied() - wb.durableLamport()));
+        }
+        METRICS.gauge("agg_stations", "", "Live stations held", () -> STATIONS.size());
+        METRICS.gauge("agg_connections_in_flight", "", "Connections queued or running", CONNECTIONS::inFlight);
+        METRICS.gauge("agg_connections_queued", "", "Accepted connections waiting for a worker", CONNECTIONS::queued);
+    }
 
-                    System.out.println("[Lamport-Apply] ts=" + u.lamportTs +
-                            " fromNode=" + (u.fromNode == null ? "?" : u.fromNode) +
-                            " seq=" + u.seq + " -> applied & snapshotted");
+    /**
+     * Applies one batch of a shard in Lamport order and persists it with a single snapshot write
+     * (group commit). GET waiters are released afterwards by the shard, at the global watermark.
+     */
+    private static void applyBatch(List<Update> batch) throws IOException {
+        // Apply in order (single-threaded per shard); only each station's feed segment is re-encoded
+        long t0 = System.nanoTime();
+        long now = System.currentTimeMillis();
+        APPLY_BATCH_SIZE.record(batch.size());
+        APPLY_QUEUE_BACKLOG.record(APPLIER.pending());
+        long highest = 0L;
+        for (Update u : batch) highest = Math.max(highest, u.lamportTs);
+        HIGHEST_APPLIED_TS.accumulateAndGet(highest, Math::max);
+        for (Update u : batch) {
+            STATIONS.put(new Station(u.id, u.json, now));
+            FEED.upsert(u.id, u.json);
+            LEASES.renew(u.fromNode, u.id, now);
+        }
 
-                    // 🟩 Notify synchronizer that this Lamport has been applied (unblocks GET waiters)
-                    SYNC.onPutApplied(u.lamportTs);
+        commitSnapshot();
+        lastAppliedAt = now; // record apply time for TTL
 
-                } catch (Exception e) {
-                    // Sonar: keep server alive; failed apply is logged for diagnosis
-                    System.err.println("Apply failed: " + e.getMessage());
-                }
+        long done = System.nanoTime();
+        APPLY_BATCH_TIMER.record(done - t0);
+        for (Update u : batch) APPLY_DELAY.record(done - u.acceptedNanos);
+
+        if (LOG.isEnabled(Logger.Level.DEBUG)) {
+            for (Update u : batch) {
+                LOG.debug("[Lamport-Apply] ts=" + u.lamportTs +
+                        " fromNode=" + (u.fromNode == null ? "?" : u.fromNode) +
+                        " station=" + u.id +
+                        " seq=" + u.seq + " -> applied & snapshotted (batch of " + batch.size() + ")");
+            }
+        }
+    }
+
+    /** Builds the snapshot store selected by {@code agg.store}. */
+    private static SnapshotStore createStore(java.nio.file.Path dir) {
+        String kind = System.getProperty("agg.store", "file");
+        LogSnapshotStore.Fsync fsync = LogSnapshotStore.Fsync.parse(System.getProperty("agg.wal.fsync", "interval"));
+        long fsyncMs = Long.getLong("agg.wal.fsyncMs", 50L);
+        if ("wal".equalsIgnoreCase(kind)) {
+            return new LogSnapshotStore(dir, "weather", fsync, fsyncMs,
+                    Long.getLong("agg.wal.checkpointBytes", 16L << 20), METRICS);
+        }
+        if ("mmap".equalsIgnoreCase(kind)) {
+            return new MappedSnapshotStore(dir, "weather", Long.getLong("agg.mmap.segmentBytes", 16L << 20),
+                    fsync, fsyncMs, METRICS);
+        }
+        SnapshotRetention retention = new SnapshotRetention(
+                Integer.getInteger("agg.snapshot.keep", 1000),
+                Duration.ofMillis(Long.getLong("agg.snapshot.maxAgeMs", 0L)),
+                Long.getLong("agg.snapshot.maxBytes", 0L),
+                Boolean.getBoolean("agg.snapshot.archive"),
+                Integer.getInteger("agg.snapshot.maxArchives", 0));
+        new SnapshotCompactor(dir, "weather", retention, Long.getLong("agg.snapshot.compactMs", 5000L), METRICS).start();
+        return new FileSnapshotStore(dir, "weather", METRICS,
+                SnapshotFormat.parse(System.getProperty("agg.snapshot.format", "json")));
+    }
+
+    /**
+     * Wraps {@link #createStore} in a write-behind layer when enabled, and closes the resulting store from a
+     * shutdown hook if it is closeable (flushing write-behind state, forcing the log or mapped segment).
+     */
+    private static SnapshotStore createStore(java.nio.file.Path dir, boolean writeBehind) {
+        SnapshotStore store = createStore(dir);
+        if (writeBehind) {
+            // closes the wrapped store after its final flush
+            store = new WriteBehindSnapshotStore(store, Integer.getInteger("agg.snapshot.maxBacklog", 64), 1000L, METRICS);
+        }
+        if (store instanceof AutoCloseable c) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> closeStore(c), "snapshot-close"));
+        }
+        return store;
+    }
+
+    private static void closeStore(AutoCloseable store) {
+        try {
+            store.close();
+        } catch (Exception e) {
+            LOG.error("Snapshot store close failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Persists the current feed; the snapshot covers every shard's applied state. It is recorded with the
+     * highest Lamport timestamp applied so far (not the GET watermark, which a shard publishes only after
+     * this returns), so a restart resumes the clock past every update the snapshot holds.
+     */
+    private static void commitSnapshot() throws IOException {
+        synchronized (COMMIT_LOCK) {
+            STORE.save(feedJson(), HIGHEST_APPLIED_TS.get());
+        }
+    }
+
+    /**
+     * Publishes the applied watermark to GET waiters. Once nothing is queued or in flight, the newest
+     * snapshot already holds every applied update, so the durable watermark may catch up to it.
+     */
+    private static void onWatermark(long ts) {
+        SYNC.onPutApplied(ts);
+        if (STORE instanceof WriteBehindSnapshotStore wb && APPLIER.pending() == 0) {
+            wb.cover(ts);
+        }
+    }
+
+    /** Exports each shard's queue depth, group-commit configuration and observed batching, labelled {@code shard="<i>"}. */
+    private static void registerApplierStats() {
+        List<ApplierStats> shards = APPLIER.stats();
+        for (int i = 0; i < shards.size(); i++) {
+            ApplierStats s = shards.get(i);
+            String shard = "shard=\"" + i + "\"";
+            int index = i;
+            METRICS.gauge("agg_apply_shard_queue_depth", shard, "Updates accepted by the shard but not yet applied",
+                    () -> APPLIER.pending(index));
+            METRICS.gauge("agg_apply_batch_max", shard, "Configured maximum updates per batch", s::batchMax);
+            METRICS.gauge("agg_apply_linger_ms", shard, "Configured maximum wait for a batch to fill (ms)", s::lingerMs);
+            METRICS.gauge("agg_apply_batch_size_last", shard, "Updates in the most recent batch", s::lastBatchSize);
+            METRICS.gauge("agg_apply_batch_size_largest", shard, "Largest batch applied", s::largestBatchSize);
+            METRICS.doubleGauge("agg_apply_batch_size_mean", shard, "Mean updates per batch", s::meanBatchSize);
+            METRICS.doubleGauge("agg_apply_batch_commit_last_seconds", shard,
+                    "Time to apply and persist the most recent batch", () -> s.lastCommitNanos() / 1e9);
+        }
+    }
+
+    /**
+     * Finds stations whose content-server lease lapsed and hands each to the shard that applies its
+     * updates for eviction. Runs on applier shard 0; a pass with nothing due is O(elapsed ticks).
+     */
+    private static void expireDue() {
+        try {
+            List<String> expired = LEASES.expire(System.currentTimeMillis());
+            if (expired.isEmpty()) return;
+            Map<Integer, List<String>> byShard = new HashMap<>();
+            for (String id : expired) {
+                byShard.computeIfAbsent(APPLIER.shardOf(id), k -> new ArrayList<>()).add(id);
             }
-        }, "lamport-applier");
-        applier.setDaemon(true);
-        applier.start();
+            byShard.forEach((shard, ids) -> APPLIER.execute(shard, () -> evict(ids)));
+        } catch (RuntimeException e) {
+            // Sonar: keep applier alive; eviction is retried on the next tick only for new expiries
+            LOG.error("Expiry failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Evicts expired stations from memory and from the persisted snapshot. Runs on the stations' own
+     * shard, between its batches, so a station renewed by an update applied since it expired is kept.
+     */
+    private static void evict(List<String> ids) {
+        try {
+            int evicted = 0;
+            for (String id : ids) {
+                if (LEASES.isLeased(id)) continue; // renewed after it expired
+                KNOWN_IDS.remove(id);
+                STATIONS.remove(id);
+                FEED.remove(id);
+                evicted++;
+            }
+            if (evicted == 0) return;
+            commitSnapshot();
+            TTL_EVICTIONS.add(evicted);
+            LOG.info("[TTL] Evicted " + evicted + " expired station(s); " +
+                    STATIONS.size() + " remain");
+        } catch (Exception e) {
+            // Sonar: keep applier alive; eviction is retried on the next tick only for new expiries
+            LOG.error("Expiry failed: " + e.getMessage());
+        }
     }
     // -----------------------------------------------------------------------
 
@@ -117,96 +436,234 @@ public final class AggregationServer {
         int port = (args.length > 0) ? Integer.parseInt(args[0]) : 4567;
 
         // Attempt to restore the last snapshot on startup (treated as fresh)
-        String snap = STORE.load();
-        if (snap != null && !snap.isBlank()) {
-            lastPayload = snap;
+        if (restoreSnapshot() > 0) {
             lastAppliedAt = System.currentTimeMillis(); // treat restored snapshot as fresh now
-            System.out.println("Restored snapshot from resources/temp/latest.json");
+            LOG.info("Restored snapshot from resources/temp");
+        }
+        resumeLamport(STORE.lastAppliedLamport());
+        Runtime.getRuntime().addShutdownHook(new Thread(CONNECTIONS::close, "connections-close"));
+
+        // Optional non-blocking engine: -Dagg.engine=nio [-Dagg.nio.loops=<n>]
+        if ("nio".equalsIgnoreCase(System.getProperty("agg.engine", "blocking"))) {
+            new NioServerEngine(port, Integer.getInteger("agg.nio.loops", 2), CONNECTIONS).run();
+            return;
         }
 
         try (ServerSocket ss = new ServerSocket(port)) {
-            System.out.println("Listening on " + port);
+            LOG.info("Listening on " + port);
             while (true) {
                 Socket s = ss.accept();
-                new Thread(() -> handle(s)).start();
+                if (!CONNECTIONS.trySubmit(() -> handle(s))) {
+                    rejectBusy(s);
+                }
             }
         }
     }
 
+    /**
+     * Answers 503 on the accept thread when the connection cap is reached.
+     * <p>Sonar: ContentServer already retries 503 with backoff, so no request is silently lost.</p>
+     */
+    private static void rejectBusy(Socket s) {
+        try (s; OutputStream out = s.getOutputStream()) {
+            respondBusy(out);
+            out.flush();
+            s.shutdownOutput();
+        } catch (IOException ignore) {
+            // client already gone; nothing to report
+        }
+    }
+
+    /** Writes the 503 response used when no connection/worker slot is free. */
+    static void respondBusy(OutputStream out) throws IOException {
+        CONNECTIONS_REJECTED.increment();
+        HTTP.writeEmpty(out, HttpHandler.SERVICE_UNAVAILABLE, CLOCK, NODE_ID);
+    }
+
+    /** Writes a 400 for requests that cannot be parsed (empty, oversized or malformed). */
+    static void respondBadRequest(OutputStream out) throws IOException {
+        BAD_REQUESTS.increment();
+        HTTP.writeEmpty(out, HttpHandler.BAD_REQUEST, CLOCK, NODE_ID);
+    }
+
     /* =========================== refactored handle =========================== */
 
     /**
-     * Processes a single connection end-to-end (read headers, route, respond).
-     * <p>Sonar: exceptions are caught at the callsite to keep server responsive.</p>
+     * Processes one connection end-to-end: reads, routes and answers requests until the client
+     * closes, asks for {@code Connection: close}, goes idle, or hits the per-connection limit.
+     * <p>
+     * Pipelined requests are served in arrival order straight from the parser's buffer.
+     * Sonar: exceptions are caught at the callsite to keep server responsive.
+     * </p>
      */
     private static void handle(Socket s) {
-        try (s; InputStream in = s.getInputStream(); OutputStream out = s.getOutputStream()) {
-
-            // 1) Read headers or 400
-            String[] headerLines = readOrRejectHeaders(in, out);
-            if (headerLines == null) return;
+        try (s; InputStream in = s.getInputStream();
+             OutputStream out = new BufferedOutputStream(s.getOutputStream())) {
+
+            CONNECTIONS_OPENED.increment();
+            if (KEEP_ALIVE_IDLE_MS > 0) s.setSoTimeout(KEEP_ALIVE_IDLE_MS); // idle (and slow-client) limit
+            HttpRequestParser parser = new HttpRequestParser(in);
+
+            for (int served = 1; ; served++) {
+                // 1) Read the head; on the first request an empty read is a 400, later it is a clean close
+                if (served > 1 && IDLE_YIELDS_WORKER && !awaitNextRequest(s, parser)) return;
+                HttpRequest req = parser.next();
+                if (req == null) {
+                    if (served == 1) {
+                        respondBadRequest(out);
+                        out.flush();
+                    }
+                    return;
+                }
 
-            // 2) Update Lamport clock if header present (logs included)
-            long remoteLamport = parseLamportFromHeaders(headerLines);
-            maybeUpdateLamport(remoteLamport);
+                // 2) Read the body (if any) so routing works on a complete request
+                byte[] body = parser.readBody(req.contentLength());
 
-            // 3) Parse request line or 400
-            String[] parts = parseRequestLineOrReject(headerLines, out);
-            if (parts == null) return;
+                // 3) Route and respond; each request gets its own Lamport update and tick
+                // An interrupt (executor closing) answers this request, then closes the connection
+                boolean keepAlive = req.keepAliveRequested() && served < KEEP_ALIVE_MAX_REQUESTS
+                        && !Thread.currentThread().isInterrupted() && CONNECTIONS.queued() == 0;
+                keepAlive = respond(req, body, out, keepAlive);
+                out.flush();
+                if (!keepAlive || Thread.currentThread().isInterrupted()) return;
+            }
 
-            String method = parts[0];
-            String path   = parts[1];
-            int contentLength = contentLengthFrom(headerLines);
+        } catch (Exception ignore) {
+            // keep server alive (includes SocketTimeoutException when an idle connection expires)
+        }
+    }
 
-            // 4) Route
-            if (isPutWeather(method, path)) {
-                handlePutWeather(in, out, headerLines, remoteLamport, contentLength);
-                return;
-            }
-            if (isGetWeather(method, path)) {
-                handleGetWeather(out);
-                return;
+    /**
+     * Waits on an idle keep-alive connection for the next request in {@link #KEEP_ALIVE_POLL_MS} slices,
+     * up to the idle limit.
+     * <p>
+     * Sonar: a pool worker blocked here serves nobody, so as soon as accepted connections are queued for
+     * a worker the idle connection is closed and its worker taken by the queue. The client reconnects.
+     * </p>
+     *
+     * @return {@code false} to close the connection (idle limit, queued connections or EOF)
+     */
+    private static boolean awaitNextRequest(Socket s, HttpRequestParser parser) throws IOException {
+        long deadline = (KEEP_ALIVE_IDLE_MS > 0) ? System.currentTimeMillis() + KEEP_ALIVE_IDLE_MS : Long.MAX_VALUE;
+        s.setSoTimeout(KEEP_ALIVE_POLL_MS);
+        try {
+            while (CONNECTIONS.queued() == 0) {
+                try {
+                    return parser.awaitInput();
+                } catch (SocketTimeoutException e) {
+                    if (System.currentTimeMillis() >= deadline) return false;
+                }
             }
+            return false;
+        } finally {
+            s.setSoTimeout(Math.max(0, KEEP_ALIVE_IDLE_MS));
+        }
+    }
+
+    /**
+     * Routes one complete request and writes its response.
+     * <p>
+     * Shared by the blocking engine above and {@link NioServerEngine}, so both apply the same
+     * Lamport header handling and PUT/GET routing. May block up to ~2s on GET catch-up.
+     * </p>
+     *
+     * @param req       parsed request head
+     * @param body      request body, already read in full (may be empty)
+     * @param out       destination for the response bytes
+     * @param keepAlive whether the caller would keep the connection open after this response
+     * @return whether the connection may stay open (malformed requests always close it)
+     */
+    static boolean respond(HttpRequest req, byte[] body, OutputStream out, boolean keepAlive) throws IOException {
+        long t0 = System.nanoTime();
+
+        // 1) Update Lamport clock if header present (logs included)
+        long remoteLamport = req.lamportClock();
+        maybeUpdateLamport(remoteLamport);
+
+        // 2) Malformed request line → 400
+        if (req.isMalformed()) {
+            respondBadRequest(out);
+            OTHER_TIMER.record(System.nanoTime() - t0);
+            return false;
+        }
 
-            // 5) Unknown → 400
-            HTTP.writeEmpty(out, HttpHandler.BAD_REQUEST, CLOCK, NODE_ID);
+        String method = req.method();
+        String path   = req.path();
 
-        } catch (Exception ignore) {
-            // keep server alive
+        // 3) Route
+        if (isPutWeather(method, path)) {
+            handlePutWeather(out, req, body, keepAlive);
+            PUT_TIMER.record(System.nanoTime() - t0);
+            return keepAlive;
+        }
+        if (isGetWeather(method, path)) {
+            handleGetWeather(out, req, keepAlive);
+            GET_TIMER.record(System.nanoTime() - t0);
+            return keepAlive;
+        }
+        if (isGetMetrics(method, path)) {
+            HTTP.writeText(out, HttpHandler.OK, METRICS_CONTENT_TYPE, METRICS.render(), CLOCK, NODE_ID, keepAlive);
+            OTHER_TIMER.record(System.nanoTime() - t0);
+            return keepAlive;
         }
-    }
 
-    /* ---------------------- route helpers (no logic change) ---------------------- */
+        // 4) Unknown → 400
+        respondBadRequest(out);
+        OTHER_TIMER.record(System.nanoTime() - t0);
+        return false;
+    }
 
-    /** Reads the HTTP headers section; writes 400 if empty and returns null. */
-    private static String[] readOrRejectHeaders(InputStream in, OutputStream out) throws IOException {
-        String[] headerLines = readHeaderLines(in);
-        if (headerLines.length == 0) {
-            HTTP.writeEmpty(out, HttpHandler.BAD_REQUEST, CLOCK, NODE_ID);
-            return null;
+    /**
+     * Non-blocking form of {@link #respond} for event-driven engines.
+     * <p>
+     * A GET /weather.json registers its Lamport catch-up with {@link LamportSynchronizer#whenApplied}
+     * instead of blocking, and its response is rendered on {@code executor} once caught up or timed
+     * out. Every other request is routed by {@link #respond} on {@code executor} straight away.
+     * </p>
+     *
+     * @param executor runs the rendering, which may gzip a new feed version, so not an event loop's
+     *                 thread; if it rejects the task the future completes exceptionally
+     * @return future of the keep-alive decision, completed once {@code out} holds the whole response
+     */
+    static CompletableFuture<Boolean> respondAsync(HttpRequest req, byte[] body, OutputStream out,
+                                                   boolean keepAlive, Executor executor) {
+        if (req.isMalformed() || !isGetWeather(req.method(), req.path())) {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return respond(req, body, out, keepAlive);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, executor);
         }
-        return headerLines;
+
+        long t0 = System.nanoTime();
+        maybeUpdateLamport(req.lamportClock());
+        long target = CLOCK.get();
+        return SYNC.whenApplied(target, GET_CATCH_UP_TIMEOUT).thenApplyAsync(caughtUp -> {
+            if (!caughtUp) logCatchUpTimeout(target);
+            try {
+                writeGetResponse(out, req, keepAlive);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            GET_TIMER.record(System.nanoTime() - t0);
+            return keepAlive;
+        }, executor);
     }
 
+    /* ---------------------- route helpers (no logic change) ---------------------- */
+
     /** Updates the local Lamport clock based on the client's clock, if provided. */
     private static void maybeUpdateLamport(long remoteLamport) {
         if (remoteLamport > 0) {
             CLOCK.update(remoteLamport);
-            System.out.println("[Lamport] AggregationServer received request");
-            System.out.println("          Remote Clock: " + remoteLamport);
-            System.out.println("          Updated Local Clock: " + CLOCK.get());
-        }
-    }
-
-    /** Parses the request line; if malformed, sends 400 and returns null. */
-    private static String[] parseRequestLineOrReject(String[] headerLines, OutputStream out) throws IOException {
-        String requestLine = headerLines[0];
-        String[] parts = requestLine.split(" ");
-        if (parts.length < 2) {
-            HTTP.writeEmpty(out, HttpHandler.BAD_REQUEST, CLOCK, NODE_ID);
-            return null;
+            if (LOG.isEnabled(Logger.Level.DEBUG)) {
+                LOG.debug("[Lamport] AggregationServer received request\n" +
+                        "          Remote Clock: " + remoteLamport + "\n" +
+                        "          Updated Local Clock: " + CLOCK.get());
+            }
         }
-        return parts;
     }
 
     /** Route predicate: PUT /weather.json */
@@ -214,98 +671,259 @@ public final class AggregationServer {
         return "PUT".equals(method) && "/weather.json".equals(path);
     }
 
-    /** Route predicate: GET /weather.json */
-    private static boolean isGetWeather(String method, String path) {
+    /** Route predicate: GET /metrics */
+    private static boolean isGetMetrics(String method, String path) {
+        return "GET".equals(method) && "/metrics".equals(path);
+    }
+
+    /** Route predicate: GET /weather.json (the only route that waits for Lamport catch-up) */
+    static boolean isGetWeather(String method, String path) {
         return "GET".equals(method) && "/weather.json".equals(path);
     }
 
     /**
      * Handles a PUT /weather.json:
      * <ul>
+     *   <li>Inflates a {@code Content-Encoding: gzip} body up to {@code agg.put.maxInflatedBytes}
+     *       (413 beyond it, 400 if corrupt, 415 for any other coding).</li>
      *   <li>Validates content length and JSON (must include non-blank {@code id}).</li>
      *   <li>Enqueues update for Lamport-ordered application (non-blocking).</li>
-     *   <li>Responds 201 for first write, else 200.</li>
+     *   <li>Responds 201 for the first write of a station id, else 200.</li>
      * </ul>
      */
-    private static void handlePutWeather(InputStream in,
-                                         OutputStream out,
-                                         String[] headerLines,
-                                         long remoteLamport,
-                                         int contentLength) throws IOException {
-        if (contentLength <= 0) {
-            HTTP.writeEmpty(out, HttpHandler.NO_CONTENT, CLOCK, NODE_ID);
+    private static void handlePutWeather(OutputStream out,
+                                         HttpRequest req,
+                                         byte[] body,
+                                         boolean keepAlive) throws IOException {
+        if (body.length == 0) {
+            HTTP.writeEmpty(out, HttpHandler.NO_CONTENT, CLOCK, NODE_ID, keepAlive);
             return;
         }
 
-        byte[] body = readBody(in, contentLength);
+        if (!req.hasIdentityBody()) {
+            body = decodePutBody(out, req, body, keepAlive);
+            if (body == null) return;
+        }
         String json = new String(body, StandardCharsets.UTF_8);
 
+        String id;
         try {
-            validateJsonOrThrow(json);
+            id = validateJsonOrThrow(json);
         } catch (Exception e) {
             HTTP.writeJson(out, HttpHandler.INTERNAL_SERVER_ERROR,
-                    "{\"error\":\"invalid JSON or missing id\"}", CLOCK, NODE_ID);
+                    "{\"error\":\"invalid JSON or missing id\"}", CLOCK, NODE_ID, keepAlive);
             return;
         }
 
-        String fromNode = parseHeaderValue(headerLines, "X-Lamport-Node");
-        long orderTs = (remoteLamport > 0) ? remoteLamport : CLOCK.get();
-        enqueueUpdate(orderTs, fromNode, json);
+        String fromNode = req.lamportNode();
+        long orderTs = (req.lamportClock() > 0) ? req.lamportClock() : CLOCK.get();
+        boolean first = KNOWN_IDS.add(id);
+        enqueueUpdate(orderTs, fromNode, id, json);
 
-        boolean first = (lastPayload == null || lastPayload.isBlank());
         if (first) {
-            HTTP.writeEmpty(out, HttpHandler.CREATED, CLOCK, NODE_ID);
+            HTTP.writeEmpty(out, HttpHandler.CREATED, CLOCK, NODE_ID, keepAlive);
         } else {
-            HTTP.writeEmpty(out, HttpHandler.OK, CLOCK, NODE_ID);
+            HTTP.writeEmpty(out, HttpHandler.OK, CLOCK, NODE_ID, keepAlive);
         }
     }
 
-    /** Adds a pending update to the Lamport-ordered queue and signals the applier thread. */
-    private static void enqueueUpdate(long orderTs, String fromNode, String json) {
-        long seq = ARRIVAL_SEQ.incrementAndGet();
-        synchronized (APPLY_Q) {
-            APPLY_Q.add(new Update(orderTs, fromNode, json, seq));
-            APPLY_Q.notifyAll();
+    /**
+     * Undoes the request's Content-Encoding, streaming gzip through a capped inflater.
+     *
+     * @return the decoded body, or {@code null} once an error response has been written
+     */
+    private static byte[] decodePutBody(OutputStream out, HttpRequest req, byte[] body, boolean keepAlive)
+            throws IOException {
+        int status;
+        String error;
+        if (!req.hasGzipBody()) {
+            status = HttpHandler.UNSUPPORTED_MEDIA_TYPE;
+            error = "{\"error\":\"unsupported Content-Encoding\"}";
+        } else {
+            try {
+                byte[] plain = GzipCodec.inflate(body, MAX_INFLATED_BYTES);
+                GZIP_PUTS.increment();
+                return plain;
+            } catch (GzipCodec.TooLargeException e) {
+                status = HttpHandler.PAYLOAD_TOO_LARGE;
+                error = "{\"error\":\"decompressed body exceeds " + MAX_INFLATED_BYTES + " bytes\"}";
+            } catch (IOException e) {
+                status = HttpHandler.BAD_REQUEST;
+                error = "{\"error\":\"corrupt gzip body\"}";
+            }
         }
+        REJECTED_PUT_BODIES.increment();
+        HTTP.writeJson(out, status, error, CLOCK, NODE_ID, keepAlive);
+        return null;
+    }
+
+    /** Adds a pending update to the Lamport-ordered queue (lock-free; wakes the applier if parked). */
+    private static void enqueueUpdate(long orderTs, String fromNode, String id, String json) {
+        long seq = ARRIVAL_SEQ.incrementAndGet();
+        HIGHEST_ACCEPTED_TS.accumulateAndGet(orderTs, Math::max);
+        APPLIER.submit(new Update(orderTs, fromNode, id, json, seq, System.nanoTime()));
     }
 
     /**
-     * Handles GET /weather.json:
+     * Handles GET /weather.json and GET /weather.json?id=&lt;station&gt;:
      * <ul>
      *   <li>Waits (up to ~2s) for all PUTs with Lamport ≤ current clock to apply.</li>
-     *   <li>Returns 404 if no data or data expired per TTL.</li>
-     *   <li>Otherwise returns 200 with the last payload.</li>
+     *   <li>Returns 404 if no data, the station is unknown, or the data expired per TTL.</li>
+     *   <li>Otherwise returns 200 with the station's document, or a JSON array of all live
+     *       stations assembled from the cached per-station segments.</li>
+     *   <li>The array is gzip-compressed (once per feed version) for clients that accept it.</li>
      * </ul>
      */
-    private static void handleGetWeather(OutputStream out) throws IOException {
+    private static void handleGetWeather(OutputStream out, HttpRequest req, boolean keepAlive) throws IOException {
         // 🟩 Wait until all PUTs with Lamport <= current clock have been applied
         long target = CLOCK.get();
-        boolean caughtUp = SYNC.awaitUpTo(target, 2000L);
-        if (!caughtUp) {
-            System.out.println("[Lamport] GET timed out waiting for <= " + target +
-                    " (lastApplied=" + SYNC.lastApplied() + ")");
-        }
+        boolean caughtUp = SYNC.awaitUpTo(target, GET_CATCH_UP_TIMEOUT.toMillis());
+        if (!caughtUp) logCatchUpTimeout(target);
+        writeGetResponse(out, req, keepAlive);
+    }
 
-        if (lastPayload == null || lastPayload.isBlank()) {
-            HTTP.writeJson(out, HttpHandler.NOT_FOUND,
-                    "{\"error\":\"no weather data available\"}", CLOCK, NODE_ID);
+    /**
+     * Resumes the clock and the applied watermark from the restored snapshot, so timestamps issued after
+     * a restart continue past the ones already applied instead of starting again from zero.
+     */
+    private static void resumeLamport(long appliedTs) {
+        if (appliedTs <= 0L) return;
+        CLOCK.advanceTo(appliedTs);
+        HIGHEST_ACCEPTED_TS.accumulateAndGet(appliedTs, Math::max);
+        HIGHEST_APPLIED_TS.accumulateAndGet(appliedTs, Math::max);
+        SYNC.onPutApplied(appliedTs);
+        LOG.info("Resumed Lamport clock at " + appliedTs);
+    }
+
+    private static void logCatchUpTimeout(long target) {
+        GET_CATCH_UP_TIMEOUTS.increment();
+        LOG.debug("[Lamport] GET timed out waiting for <= " + target +
+                " (lastApplied=" + SYNC.lastApplied() + ")");
+    }
+
+    /** Writes the GET /weather.json response for the current state (after catch-up). */
+    private static void writeGetResponse(OutputStream out, HttpRequest req, boolean keepAlive) throws IOException {
+        if (STATIONS.size() == 0) {
+            NO_DATA.writeTo(out, CLOCK, keepAlive);
             return;
         }
 
         long now = System.currentTimeMillis();
         if (EXPIRY.isExpired(lastAppliedAt, now)) {
             long age = now - lastAppliedAt;
-            System.out.println("[TTL] Data expired: ageMs=" + age + " > " + EXPIRY.ttlMs());
-            HTTP.writeJson(out, HttpHandler.NOT_FOUND,
-                    "{\"error\":\"data expired\"}", CLOCK, NODE_ID);
+            LOG.info("[TTL] Data expired: ageMs=" + age + " > " + EXPIRY.ttlMs());
+            EXPIRED.writeTo(out, CLOCK, keepAlive);
+            return;
+        }
+
+        String id = queryParam(req.target(), "id");
+        if (id != null) {
+            Station st = STATIONS.get(id);
+            if (st == null) {
+                UNKNOWN_STATION.writeTo(out, CLOCK, keepAlive);
+            } else {
+                HTTP.writeJson(out, HttpHandler.OK, st.json(), CLOCK, NODE_ID, keepAlive);
+            }
+            return;
+        }
+
+        PreEncodedResponse feed = FEED.snapshot().response();
+        if (feed == null) {
+            EXPIRED.writeTo(out, CLOCK, keepAlive);
+        } else if (req.acceptsGzip() && feed.bodyLength() >= GZIP_MIN_BYTES) {
+            GZIP_RESPONSES.increment();
+            feed.gzipped().writeTo(out, CLOCK, keepAlive); // compressed once per feed version
         } else {
-            HTTP.writeJson(out, HttpHandler.OK, lastPayload, CLOCK, NODE_ID);
+            feed.writeTo(out, CLOCK, keepAlive);
+        }
+    }
+
+    /** Renders the live feed as a JSON string for the snapshot store. */
+    private static String feedJson() throws IOException {
+        PreEncodedResponse feed = FEED.snapshot().response();
+        if (feed == null) return "[]";
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        feed.writeBody(buf);
+        return buf.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Restores the persisted stations, from documents the store decodes directly when it can
+     * (no JSON parsing for binary snapshots), otherwise by parsing {@link SnapshotStore#load()}.
+     *
+     * @return number of stations restored
+     */
+    private static int restoreSnapshot() {
+        Map<String, String> docs = STORE.loadDocuments();
+        if (docs == null) {
+            String snap = STORE.load();
+            return (snap == null || snap.isBlank()) ? 0 : restoreStations(snap);
+        }
+        long now = System.currentTimeMillis();
+        docs.forEach((id, json) -> restoreStation(id, json, now)); // ids were validated when accepted
+        return docs.size();
+    }
+
+    private static void restoreStation(String id, String json, long now) {
+        STATIONS.put(new Station(id, json, now));
+        KNOWN_IDS.add(id);
+        FEED.upsert(id, json);
+        LEASES.renew(null, id, now);
+    }
+
+    /**
+     * Loads stations from a snapshot: a JSON array of station documents, or a single document
+     * (the format written before per-station state existed).
+     *
+     * @return number of stations restored
+     */
+    private static int restoreStations(String snap) {
+        long now = System.currentTimeMillis();
+        int restored = 0;
+        try {
+            JsonElement root = JsonParser.parseString(snap);
+            Iterable<JsonElement> docs = root.isJsonArray() ? root.getAsJsonArray() : List.of(root);
+            for (JsonElement doc : docs) {
+                try {
+                    String json = doc.toString();
+                    restoreStation(validateJsonOrThrow(json), json, now);
+                    restored++;
+                } catch (Exception e) {
+                    LOG.warn("Skipping invalid snapshot entry: " + e.getMessage());
+                }
+            }
+        } catch (Exception e) {
+            // Sonar: a corrupt snapshot must not prevent startup
+            LOG.error("Snapshot restore failed: " + e.getMessage());
+        }
+        return restored;
+    }
+
+    /** Returns the URL-decoded value of a query parameter in {@code target}, or {@code null}. */
+    private static String queryParam(String target, String name) {
+        int q = (target == null) ? -1 : target.indexOf('?');
+        if (q < 0) return null;
+        for (String pair : target.substring(q + 1).split("&")) {
+            int eq = pair.indexOf('=');
+            String key = (eq >= 0) ? pair.substring(0, eq) : pair;
+            if (name.equals(key)) {
+                try {
+                    return URLDecoder.decode((eq >= 0) ? pair.substring(eq + 1) : "", StandardCharsets.UTF_8);
+                } catch (IllegalArgumentException e) {
+                    return pair.substring(eq + 1); // malformed %-escape: use the raw value
+                }
+            }
         }
+        return null;
     }
 
     /* -------- tiny JSON validator for PUT -------- */
-    /** Validates the JSON payload and ensures a non-blank {@code id} field exists. */
-    private static void validateJsonOrThrow(String json) throws Exception {
+    /**
+     * Validates the JSON payload and ensures a non-blank {@code id} field exists.
+     *
+     * @return the station id
+     */
+    private static String validateJsonOrThrow(String json) throws Exception {
         var element = JsonParser.parseString(json);
         if (!element.isJsonObject()) {
             throw new IllegalArgumentException("not a JSON object");
@@ -321,41 +939,15 @@ public final class AggregationServer {
         if (id == null || id.isBlank()) {
             throw new IllegalArgumentException("blank id");
         }
+        return id;
     }
 
     /* -------------------- helpers -------------------- */
 
-    /**
-     * Reads header bytes up to CRLFCRLF. Returns lines split by CRLF.
-     * <p>Sonar: manual parser is acceptable within assignment scope; sizes are small.</p>
+    /*
+     * Legacy multi-pass header helpers. Request handling now goes through HttpRequestParser
+     * (single pass, buffered); these remain as the reference behavior for tests and benchmarks.
      */
-    private static String[] readHeaderLines(InputStream in) throws IOException {
-        ByteArrayOutputStream buf = new ByteArrayOutputStream();
-        int state = 0;
-        int b;
-
-        while ((b = in.read()) != -1) {
-            buf.write(b);
-            if (state == 0 && b == '\r') {
-                state = 1;
-            } else if (state == 1 && b == '\n') {
-                state = 2;
-            } else if (state == 2 && b == '\r') {
-                state = 3;
-            } else if (state == 3 && b == '\n') {
-                break;
-            } else {
-                state = 0;
-            }
-        }
-
-        String headersStr = buf.toString(StandardCharsets.UTF_8);
-        if (headersStr.isEmpty()) {
-            return new String[0];
-        } else {
-            return headersStr.split("\r\n");
-        }
-    }
 
     /** Extracts Content-Length from headers (defaults to 0 if absent or invalid). */
     private static int contentLengthFrom(String[] headerLines) {
@@ -371,11 +963,6 @@ public final class AggregationServer {
         return 0;
     }
 
-    /** Reads exactly {@code len} bytes for the body. */
-    private static byte[] readBody(InputStream in, int len) throws IOException {
-        return in.readNBytes(len);
-    }
-
     /** Parses X-Lamport-Clock header value; returns 0 if not present/invalid. */
     private static long parseLamportFromHeaders(String[] headerLines) {
         for (String line : headerLines) {
@@ -0,0 +1,440 @@
+package org.example.server;
+
+import org.example.http.HttpRequest;
+import org.example.http.HttpRequestParser;
+import org.example.interfaces.ConnectionExecutor;
+import org.example.interfaces.Logger;
+import org.example.util.AsyncLogger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * NioServerEngine serves the same routes as the blocking engine in {@link AggregationServer}
+ * using non-blocking {@link SocketChannel}s multiplexed over a few selector threads.
+ * <p>
+ * <b>Design notes (SonarQube):</b>
+ * <ul>
+ *   <li>Requests are parsed incrementally from a per-connection {@link ByteBuffer}; the CRLFCRLF scan
+ *       resumes where the previous read stopped, so slow or idle clients cost no thread and no rescans.</li>
+ *   <li>GET /weather.json waits for Lamport catch-up through {@link AggregationServer#respondAsync}:
+ *       no thread is held while it waits, and the response is then rendered on a worker, since the
+ *       first gzip GET of each feed version compresses it.</li>
+ *   <li>Other requests are routed through {@link AggregationServer#respond} on the shared
+ *       {@link ConnectionExecutor}; the event loops never block.</li>
+ *   <li>Responses are handed back to the owning loop (queue + {@link Selector#wakeup()}) and written
+ *       without blocking, registering OP_WRITE only while the socket buffer is full.</li>
+ *   <li>Read buffers double only as bytes actually arrive, up to the declared request size, so a head
+ *       announcing a large Content-Length costs nothing until its body is sent (as in
+ *       {@link HttpRequestParser#readBody}).</li>
+ *   <li>Keep-alive and pipelining follow the blocking engine: one request at a time per connection,
+ *       the same idle timeout and per-connection request cap.</li>
+ * </ul>
+ */
+public final class NioServerEngine {
+
+    /** Header blocks larger than this are answered with 400 and closed. */
+    static final int MAX_HEADER_BYTES = HttpRequestParser.DEFAULT_MAX_HEADER_BYTES;
+
+    /** Bodies larger than this are answered with 400 and closed. */
+    static final int MAX_BODY_BYTES = 8 * 1024 * 1024;
+
+    private static final int INITIAL_BUFFER = 4 * 1024;
+
+    /** How often each loop checks for idle keep-alive connections. */
+    private static final long SWEEP_INTERVAL_MS = 500L;
+
+    private static final Logger LOG = AsyncLogger.shared();
+
+    private final int port;
+    private final EventLoop[] loops;
+    private final ConnectionExecutor workers;
+
+    /** Capacity of all open connections' read buffers. */
+    private final AtomicLong readBufferBytes = new AtomicLong();
+
+    /**
+     * Constructs the engine.
+     *
+     * @param port      TCP port to listen on
+     * @param loopCount number of selector threads (minimum 1)
+     * @param workers   executor that runs request routing off the event loops
+     */
+    public NioServerEngine(int port, int loopCount, ConnectionExecutor workers) throws IOException {
+        this.port = port;
+        this.workers = workers;
+        this.loops = new EventLoop[Math.max(1, loopCount)];
+        for (int i = 0; i < loops.length; i++) {
+            loops[i] = new EventLoop(Selector.open());
+        }
+    }
+
+    /**
+     * Starts the event loops and accepts connections on the calling thread (never returns normally).
+     */
+    public void run() throws IOException {
+        for (int i = 0; i < loops.length; i++) {
+            Thread t = new Thread(loops[i], "nio-loop-" + i);
+            t.setDaemon(true);
+            t.start();
+        }
+
+        try (ServerSocketChannel ssc = ServerSocketChannel.open()) {
+            ssc.bind(new InetSocketAddress(port), 1024);
+            LOG.info("Listening on " + port + " (nio, " + loops.length + " loops)");
+            int next = 0;
+            while (true) {
+                SocketChannel ch = ssc.accept(); // blocking accept; connections are spread round-robin
+                try {
+                    ch.configureBlocking(false);
+                    ch.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                    loops[next].adopt(ch);
+                    next = (next + 1) % loops.length;
+                } catch (IOException e) {
+                    closeQuietly(ch);
+                }
+            }
+        }
+    }
+
+    /** @return bytes currently allocated to the read buffers of open connections */
+    public long readBufferBytes() {
+        return readBufferBytes.get();
+    }
+
+    /* -------------------- event loop -------------------- */
+
+    /** One selector thread; all key/channel mutations happen on it. */
+    private final class EventLoop implements Runnable {
+        private final Selector selector;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private long lastSweep = System.currentTimeMillis();
+
+        EventLoop(Selector selector) {
+            this.selector = selector;
+        }
+
+        /** Hands a freshly accepted channel to this loop. */
+        void adopt(SocketChannel ch) {
+            execute(() -> register(ch));
+        }
+
+        /** Runs the task on this loop's thread at the next wakeup. */
+        void execute(Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                try {
+                    selector.select(SWEEP_INTERVAL_MS);
+                    Runnable task;
+                    while ((task = tasks.poll()) != null) {
+                        try {
+                            task.run();
+                        } catch (RuntimeException e) {
+                            // Sonar: e.g. CancelledKeyException when the peer vanished meanwhile
+                        }
+                    }
+
+                    Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                    while (it.hasNext()) {
+                        SelectionKey key = it.next();
+                        it.remove();
+                        Conn c = (Conn) key.attachment();
+                        try {
+                            if (key.isValid() && key.isReadable()) c.onReadable();
+                            if (key.isValid() && key.isWritable()) c.onWritable();
+                        } catch (IOException | RuntimeException e) {
+                            // Sonar: a broken connection must not take the loop down
+                            c.close();
+                        }
+                    }
+                    sweepIdle();
+                } catch (IOException e) {
+                    LOG.error("NIO loop error: " + e.getMessage());
+                }
+            }
+        }
+
+        /** Closes connections that have been waiting for a request longer than the keep-alive idle limit. */
+        private void sweepIdle() {
+            long now = System.currentTimeMillis();
+            if (AggregationServer.KEEP_ALIVE_IDLE_MS <= 0 || now - lastSweep < SWEEP_INTERVAL_MS) return;
+            lastSweep = now;
+            for (SelectionKey key : selector.keys()) {
+                Conn c = (Conn) key.attachment();
+                if (c != null && key.isValid() && c.idle()
+                        && now - c.lastActive > AggregationServer.KEEP_ALIVE_IDLE_MS) {
+                    c.close();
+                }
+            }
+        }
+
+        private void register(SocketChannel ch) {
+            try {
+                SelectionKey key = ch.register(selector, SelectionKey.OP_READ);
+                key.attach(new Conn(ch, key, this));
+            } catch (IOException e) {
+                closeQuietly(ch);
+            }
+        }
+    }
+
+    /* -------------------- per-connection state -------------------- */
+
+    /**
+     * Incremental request parser + pending response for one channel (loop-confined).
+     * <p>
+     * Requests are handled strictly one at a time per connection: pipelined bytes wait in {@code in}
+     * until the current response is written, which keeps responses in request order.
+     * </p>
+     */
+    private final class Conn {
+        private final SocketChannel ch;
+        private final SelectionKey key;
+        private final EventLoop loop;
+
+        private ByteBuffer in = ByteBuffer.allocate(INITIAL_BUFFER); // write mode: position == bytes filled
+        private int scanFrom = 0;       // where the CRLFCRLF search resumes
+        private int headerEnd = -1;     // index just past CRLFCRLF once found
+        private HttpRequest req;        // parsed once the header block is complete
+        private int bodyLen;
+        private ByteBuffer out;
+        private boolean keepAlive;      // whether to recycle the connection after {@code out} drains
+        private boolean busy;           // a request is being routed or its response written
+        private boolean eofSeen;
+        private int served;             // requests answered on this connection
+        private long lastActive = System.currentTimeMillis();
+        private boolean closed;
+
+        Conn(SocketChannel ch, SelectionKey key, EventLoop loop) {
+            this.ch = ch;
+            this.key = key;
+            this.loop = loop;
+            readBufferBytes.addAndGet(in.capacity());
+        }
+
+        void onReadable() throws IOException {
+            if (!in.hasRemaining()) grow(nextCapacity());
+            int n = ch.read(in);
+            lastActive = System.currentTimeMillis();
+            if (n < 0) {
+                eofSeen = true;
+                key.interestOps(0);
+            }
+            if (n != 0) parse();
+        }
+
+        void onWritable() throws IOException {
+            ch.write(out);
+            if (out.hasRemaining()) {
+                key.interestOps(SelectionKey.OP_WRITE);
+                return;
+            }
+            lastActive = System.currentTimeMillis();
+            if (!keepAlive || eofSeen) {
+                close();
+                return;
+            }
+            recycle();
+        }
+
+        /** True when waiting for (the rest of) a request rather than routing or writing one. */
+        boolean idle() {
+            return !busy;
+        }
+
+        /** Drops the answered request from the buffer and moves on to the next (possibly pipelined) one. */
+        private void recycle() throws IOException {
+            served++;
+            busy = false;
+            out = null;
+            int consumed = headerEnd + bodyLen;
+            in.flip();
+            in.position(Math.min(consumed, in.limit()));
+            in.compact();
+            req = null;
+            headerEnd = -1;
+            scanFrom = 0;
+            key.interestOps(SelectionKey.OP_READ);
+            if (in.position() > 0) parse();
+        }
+
+        private void parse() throws IOException {
+            if (busy) return;
+            int filled = in.position();
+            byte[] a = in.array();
+
+            if (req == null) {
+                if (filled == 0 && eofSeen) {
+                    // Client closed: a first request that never arrived is a 400 (as in the blocking engine)
+                    if (served == 0) {
+                        startWrite(badRequest(), false);
+                    } else {
+                        close();
+                    }
+                    return;
+                }
+                int end = HttpRequestParser.findHeaderEnd(a, scanFrom, filled);
+                if (end < 0) {
+                    if (filled > MAX_HEADER_BYTES) {
+                        startWrite(badRequest(), false);
+                        return;
+                    }
+                    if (!eofSeen) {
+                        scanFrom = Math.max(0, filled - 3);
+                        return;
+                    }
+                    end = filled; // EOF: treat what arrived as the (possibly truncated) request
+                }
+                headerEnd = end;
+                req = HttpRequestParser.parseHead(a, 0, end); // single pass: method, path, lengths, Lamport
+                bodyLen = req.contentLength();
+                if (bodyLen > MAX_BODY_BYTES) {
+                    startWrite(badRequest(), false);
+                    return;
+                }
+            }
+
+            int have = filled - headerEnd;
+            if (have < bodyLen && !eofSeen) return; // onReadable grows the buffer as the body arrives
+            dispatch(Arrays.copyOfRange(a, headerEnd, headerEnd + Math.min(have, bodyLen)));
+        }
+
+        /** Routes the request on a worker and posts the response back to this loop. */
+        private void dispatch(byte[] body) throws IOException {
+            busy = true;
+            key.interestOps(0); // pipelined bytes stay buffered until this response is written
+            HttpRequest request = req;
+            boolean wantKeepAlive = !eofSeen
+                    && request.keepAliveRequested()
+                    && served + 1 < AggregationServer.KEEP_ALIVE_MAX_REQUESTS;
+            if (!request.isMalformed() && AggregationServer.isGetWeather(request.method(), request.path())) {
+                ByteArrayOutputStream buf = new ByteArrayOutputStream(256);
+                // Rendered (and, once per feed version, compressed) on a worker; only the bytes come back here
+                AggregationServer.respondAsync(request, body, buf, wantKeepAlive, this::render)
+                        .whenComplete((keep, e) -> loop.execute(() -> {
+                            try {
+                                if (e == null) {
+                                    startWrite(buf.toByteArray(), keep);
+                                } else {
+                                    startWrite(isRejected(e) ? busy() : new byte[0], false);
+                                }
+                            } catch (IOException io) {
+                                close();
+                            }
+                        }));
+                return;
+            }
+            boolean accepted = workers.trySubmit(() -> {
+                ByteArrayOutputStream buf = new ByteArrayOutputStream(256);
+                boolean keep = false;
+                try {
+                    keep = AggregationServer.respond(request, body, buf, wantKeepAlive);
+                } catch (IOException | RuntimeException ignore) {
+                    // keep server alive; an empty response just closes the connection
+                }
+                boolean recycle = keep;
+                loop.execute(() -> {
+                    try {
+                        startWrite(buf.toByteArray(), recycle);
+                    } catch (IOException e) {
+                        close();
+                    }
+                });
+            });
+            if (!accepted) {
+                startWrite(busy(), false);
+            }
+        }
+
+        /** Executor for GET rendering: a worker slot, or rejection (answered with 503) when none is free. */
+        private void render(Runnable task) {
+            if (!workers.trySubmit(task)) throw new RejectedExecutionException("no worker slot free");
+        }
+
+        private void startWrite(byte[] response, boolean keepAfter) throws IOException {
+            busy = true;
+            if (response.length == 0) {
+                close();
+                return;
+            }
+            keepAlive = keepAfter;
+            out = ByteBuffer.wrap(response);
+            onWritable();
+        }
+
+        /**
+         * Double the capacity, but no more than the rest of a request whose head is parsed needs: the
+         * body is trusted only as far as it has arrived, not as far as its Content-Length claims.
+         */
+        private int nextCapacity() {
+            int doubled = (int) Math.min(Integer.MAX_VALUE, in.capacity() * 2L);
+            int needed = headerEnd + bodyLen;
+            return (req != null && needed > in.capacity()) ? Math.min(doubled, needed) : doubled;
+        }
+
+        private void grow(int capacity) {
+            ByteBuffer bigger = ByteBuffer.allocate(capacity);
+            in.flip();
+            bigger.put(in);
+            readBufferBytes.addAndGet(capacity - in.capacity());
+            in = bigger;
+        }
+
+        void close() {
+            key.cancel();
+            closeQuietly(ch);
+            if (!closed) {
+                closed = true;
+                readBufferBytes.addAndGet(-in.capacity());
+            }
+        }
+    }
+
+    /* -------------------- helpers -------------------- */
+
+    private static void closeQuietly(SocketChannel ch) {
+        try {
+            ch.close();
+        } catch (IOException ignore) {
+            // already closed
+        }
+    }
+
+    private static boolean isRejected(Throwable e) {
+        Throwable cause = (e instanceof CompletionException && e.getCause() != null) ? e.getCause() : e;
+        return cause instanceof RejectedExecutionException;
+    }
+
+    /** Renders a canned 400 through the server's HttpHandler (ticks the Lamport clock like any send). */
+    private static byte[] badRequest() throws IOException {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream(128);
+        AggregationServer.respondBadRequest(buf);
+        return buf.toByteArray();
+    }
+
+    /** Renders the canned 503 used when no worker slot is free. */
+    private static byte[] busy() throws IOException {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream(128);
+        AggregationServer.respondBusy(buf);
+        return buf.toByteArray();
+    }
+}
@@ -0,0 +1,104 @@
+package org.example.util;
+
+/**
+ * ApplierStats records what a batched applier (shard) does: its configuration and, per group
+ * commit, batch size and the time taken to apply and persist the batch.
+ * <p>
+ * <b>SonarQube notes:</b>
+ * <ul>
+ *   <li>Single writer (the applier thread); readers see {@code volatile} fields, so no locking is needed.</li>
+ *   <li>Counters are cumulative since startup.</li>
+ * </ul>
+ */
+public final class ApplierStats {
+
+    private final int batchMax;
+    private final long lingerMs;
+
+    private volatile long batches;
+    private volatile long updates;
+    private volatile int lastBatchSize;
+    private volatile int largestBatchSize;
+    private volatile long lastCommitNanos;
+    private volatile long totalCommitNanos;
+
+    /**
+     * Constructs stats for an applier.
+     *
+     * @param batchMax configured maximum updates per batch
+     * @param lingerMs configured maximum wait for a batch to fill
+     */
+    public ApplierStats(int batchMax, long lingerMs) {
+        this.batchMax = batchMax;
+        this.lingerMs = lingerMs;
+    }
+
+    /**
+     * Records one applied batch. Applier thread only.
+     *
+     * @param size        updates in the batch
+     * @param commitNanos time spent applying and persisting the batch
+     */
+    public void recordBatch(int size, long commitNanos) {
+        batches++;           // Sonar: single writer, so ++ on volatile fields is safe
+        updates += size;
+        lastBatchSize = size;
+        if (size > largestBatchSize) largestBatchSize = size;
+        lastCommitNanos = commitNanos;
+        totalCommitNanos += commitNanos;
+    }
+
+    /** @return configured maximum updates per batch */
+    public int batchMax() {
+        return batchMax;
+    }
+
+    /** @return configured maximum linger (ms) */
+    public long lingerMs() {
+        return lingerMs;
+    }
+
+    /** @return number of group commits so far */
+    public long batches() {
+        return batches;
+    }
+
+    /** @return number of updates applied so far */
+    public long updates() {
+        return updates;
+    }
+
+    /** @return size of the most recent batch */
+    public int lastBatchSize() {
+        return lastBatchSize;
+    }
+
+    /** @return largest batch seen */
+    public int largestBatchSize() {
+        return largestBatchSize;
+    }
+
+    /** @return apply + persist time of the most recent batch (ns) */
+    public long lastCommitNanos() {
+        return lastCommitNanos;
+    }
+
+    /** @return total apply + persist time (ns) */
+    public long totalCommitNanos() {
+        return totalCommitNanos;
+    }
+
+    /** @return mean updates per batch, or 0 before the first batch */
+    public double meanBatchSize() {
+        long b = batches;
+        return (b == 0) ? 0.0 : (double) updates / b;
+    }
+
+    @Override
+    public String toString() {
+        return "ApplierStats{batchMax=" + batchMax + ", lingerMs=" + lingerMs +
+                ", batches=" + batches + ", updates=" + updates +
+                ", lastBatch=" + lastBatchSize + ", largestBatch=" + largestBatchSize +
+                ", lastCommitUs=" + (lastCommitNanos / 1000) + '}';
+    }
+}
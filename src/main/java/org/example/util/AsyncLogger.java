@@ -0,0 +1,225 @@
+package org.example.util;
+
+import org.example.interfaces.Logger;
+
+import java.io.PrintStream;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * AsyncLogger hands log records to a background writer through a bounded lock-free ring buffer,
+ * so request threads never contend on {@link System#out}.
+ * <p>
+ * Producers claim a slot with one CAS and publish the record through the slot's sequence number;
+ * the writer thread drains everything available, formats it, and writes the batch with a single
+ * print and flush per stream (DEBUG/INFO to {@code out}, WARN/ERROR to {@code err}).
+ * </p>
+ * <p>
+ * {@link #shared()} is configured from system properties:
+ * {@code -Dagg.log.level=DEBUG|INFO|WARN|ERROR} (default DEBUG, i.e. everything, as before),
+ * {@code -Dagg.log.buffer=<records>} (default 8192) and {@code -Dagg.log.format=plain|kv}
+ * (default plain: the message exactly as it was printed before; kv adds timestamp, level and thread).
+ * </p>
+ * <b>SonarQube notes:</b>
+ * <ul>
+ *   <li>When the ring is full the record is dropped and counted instead of blocking the caller;
+ *       the writer reports the number dropped in its next batch.</li>
+ *   <li>The writer publishes {@code parked} before re-checking the ring, so a wake-up cannot be lost
+ *       (same hand-off as {@link MpscApplyQueue}).</li>
+ *   <li>The shared instance flushes from a shutdown hook, so short-lived CLIs lose nothing on exit.</li>
+ * </ul>
+ */
+public final class AsyncLogger implements Logger {
+
+    /** Longest {@link #flush()} waits for the writer. */
+    private static final long FLUSH_TIMEOUT_MS = 2000L;
+
+    private record Entry(long timeMs, Level level, String thread, String message) {}
+
+    private final Level threshold;
+    private final boolean keyValue;
+    private final PrintStream out;
+    private final PrintStream err;
+
+    // Ring: slot i is free for position p when seq[i] == p, and holds p's record when seq[i] == p + 1
+    private final int mask;
+    private final AtomicLongArray seq;
+    private final AtomicReferenceArray<Entry> slots;
+    private final AtomicLong tail = new AtomicLong();  // next position to claim (producers)
+    private long head = 0L;                            // next position to write (writer only)
+    private final AtomicLong written = new AtomicLong(); // positions below this are on the stream
+
+    private final AtomicLong dropped = new AtomicLong();
+    private long droppedReported = 0L;                 // writer only
+
+    private final AtomicBoolean parked = new AtomicBoolean();
+    private final Thread writer;
+
+    private static final class Holder {
+        static final AsyncLogger SHARED = fromSystemProperties();
+    }
+
+    /**
+     * Constructs a logger and starts its daemon writer thread.
+     *
+     * @param threshold lowest level kept
+     * @param capacity  ring size in records (rounded up to a power of two)
+     * @param keyValue  {@code true} for {@code ts=.. level=.. thread=.. msg=..} lines, else the bare message
+     * @param out       destination for DEBUG and INFO
+     * @param err       destination for WARN and ERROR
+     */
+    public AsyncLogger(Level threshold, int capacity, boolean keyValue, PrintStream out, PrintStream err) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+        this.threshold = threshold;
+        this.keyValue = keyValue;
+        this.out = out;
+        this.err = err;
+        this.mask = size - 1;
+        this.seq = new AtomicLongArray(size);
+        this.slots = new AtomicReferenceArray<>(size);
+        for (int i = 0; i < size; i++) seq.set(i, i);
+
+        this.writer = new Thread(this::runWriter, "async-logger");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /** @return the process-wide logger (writing to {@link System#out} / {@link System#err}) */
+    public static AsyncLogger shared() {
+        return Holder.SHARED;
+    }
+
+    @Override
+    public boolean isEnabled(Level level) {
+        return level.compareTo(threshold) >= 0;
+    }
+
+    @Override
+    public void log(Level level, String message) {
+        if (!isEnabled(level)) return;
+        Entry e = new Entry(System.currentTimeMillis(), level,
+                keyValue ? Thread.currentThread().getName() : null, message);
+
+        long pos = tail.get();
+        while (true) {
+            int i = (int) (pos & mask);
+            long dif = seq.get(i) - pos;
+            if (dif == 0L) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    slots.set(i, e);
+                    seq.set(i, pos + 1); // publish
+                    break;
+                }
+                pos = tail.get();
+            } else if (dif < 0L) {
+                dropped.incrementAndGet(); // full: the writer is a whole ring behind
+                return;
+            } else {
+                pos = tail.get(); // another producer claimed it
+            }
+        }
+        if (parked.get() && parked.compareAndSet(true, false)) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    @Override
+    public void flush() {
+        long target = tail.get();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(FLUSH_TIMEOUT_MS);
+        LockSupport.unpark(writer);
+        while (written.get() < target && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+    }
+
+    /** @return records discarded because the ring was full */
+    public long dropped() {
+        return dropped.get();
+    }
+
+    /* -------------------- writer -------------------- */
+
+    private void runWriter() {
+        StringBuilder toOut = new StringBuilder(4096);
+        StringBuilder toErr = new StringBuilder(256);
+        while (true) {
+            long start = head;
+            Entry e;
+            while ((e = take()) != null) {
+                append(e.level().compareTo(Level.WARN) >= 0 ? toErr : toOut, e);
+            }
+            long lost = dropped.get();
+            if (lost != droppedReported) {
+                append(toErr, new Entry(System.currentTimeMillis(), Level.WARN, writer.getName(),
+                        "[Log] dropped " + (lost - droppedReported) + " record(s): buffer full"));
+                droppedReported = lost;
+            }
+            if (toOut.length() > 0) {
+                out.print(toOut);
+                out.flush();
+                toOut.setLength(0);
+            }
+            if (toErr.length() > 0) {
+                err.print(toErr);
+                err.flush();
+                toErr.setLength(0);
+            }
+            if (head != start) {
+                written.set(head);
+                continue; // more may have arrived while writing
+            }
+
+            parked.set(true);
+            if (!ready()) LockSupport.parkNanos(this, TimeUnit.SECONDS.toNanos(1));
+            parked.set(false);
+        }
+    }
+
+    /** Removes the record at {@code head}, or returns {@code null} if it is not published yet. */
+    private Entry take() {
+        if (!ready()) return null;
+        int i = (int) (head & mask);
+        Entry e = slots.get(i);
+        slots.set(i, null);
+        seq.set(i, head + mask + 1); // free for the producer one lap ahead
+        head++;
+        return e;
+    }
+
+    private boolean ready() {
+        return seq.get((int) (head & mask)) == head + 1;
+    }
+
+    private void append(StringBuilder sb, Entry e) {
+        if (keyValue) {
+            sb.append("ts=").append(Instant.ofEpochMilli(e.timeMs()))
+              .append(" level=").append(e.level())
+              .append(" thread=").append(e.thread())
+              .append(" msg=\"").append(e.message().replace("\"", "\\\"").replace("\n", "\\n")).append('"');
+        } else {
+            sb.append(e.message());
+        }
+        sb.append(System.lineSeparator());
+    }
+
+    private static AsyncLogger fromSystemProperties() {
+        Level level;
+        try {
+            level = Level.valueOf(System.getProperty("agg.log.level", "DEBUG").trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            level = Level.DEBUG;
+        }
+        AsyncLogger log = new AsyncLogger(level,
+                Integer.getInteger("agg.log.buffer", 8192),
+                "kv".equalsIgnoreCase(System.getProperty("agg.log.format", "plain")),
+                System.out, System.err);
+        Runtime.getRuntime().addShutdownHook(new Thread(log::flush, "async-logger-flush"));
+        return log;
+    }
+}
@@ -64,6 +64,17 @@ public final class AtomicLamportClock implements LamportClock {
         }
     }
 
+    /**
+     * Raises the clock to {@code timestamp} if it is behind; never moves it backwards.
+     *
+     * @param timestamp timestamp to resume from (e.g. recorded with a snapshot)
+     * @return the updated clock value
+     */
+    @Override
+    public long advanceTo(long timestamp) {
+        return time.accumulateAndGet(timestamp, Math::max);
+    }
+
     /**
      * Returns a human-readable string form of the clock for debugging.
      */
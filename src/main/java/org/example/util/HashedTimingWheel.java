@@ -0,0 +1,138 @@
+package org.example.util;
+
+import org.example.interfaces.ExpiryScheduler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * HashedTimingWheel schedules key deadlines in a ring of buckets, one bucket per tick.
+ * <p>
+ * A key lives in the bucket of the first tick after its deadline, in a doubly linked list, so
+ * {@link #schedule} and {@link #cancel} are O(1). {@link #advance} visits only the buckets of the
+ * ticks that elapsed; keys whose deadline is a later revolution are skipped and seen again one
+ * revolution later. With the wheel spanning at least the usual TTL, each key is visited about
+ * once, so expiry costs O(1) amortized per key instead of a scan of all keys.
+ * </p>
+ * <b>SonarQube notes:</b>
+ * <ul>
+ *   <li>Not thread-safe: confine an instance to one thread or guard it externally.</li>
+ *   <li>Expiry is detected at tick granularity: a key is reported at most one tick after its deadline.</li>
+ *   <li>After a long pause, one call sweeps at most one full revolution, never more.</li>
+ * </ul>
+ *
+ * @param <K> key type (must have stable {@code equals}/{@code hashCode})
+ */
+public final class HashedTimingWheel<K> implements ExpiryScheduler<K> {
+
+    /** Bucket list node. */
+    private static final class Node<K> {
+        final K key;
+        long deadline;
+        int bucket;
+        Node<K> prev;
+        Node<K> next;
+
+        Node(K key) {
+            this.key = key;
+        }
+    }
+
+    private final long tickMs;
+    private final int mask;
+    private final Node<K>[] heads;
+    private final Map<K, Node<K>> nodes = new HashMap<>();
+
+    /** Last tick whose bucket has been swept; -1 until the first {@link #advance}. */
+    private long sweptTick = -1L;
+
+    /**
+     * Constructs a wheel.
+     *
+     * @param tickMs   tick length in ms (expiry precision)
+     * @param spanMs   time the wheel should cover in one revolution (normally the TTL);
+     *                 the bucket count is rounded up to a power of two
+     */
+    @SuppressWarnings("unchecked")
+    public HashedTimingWheel(long tickMs, long spanMs) {
+        this.tickMs = Math.max(1L, tickMs);
+        long wanted = Math.max(1L, (spanMs + this.tickMs - 1) / this.tickMs);
+        int size = 1;
+        while (size < wanted && size < (1 << 20)) size <<= 1;
+        this.mask = size - 1;
+        this.heads = (Node<K>[]) new Node<?>[size];
+    }
+
+    @Override
+    public void schedule(K key, long deadline) {
+        Node<K> n = nodes.get(key);
+        if (n == null) {
+            n = new Node<>(key);
+            nodes.put(key, n);
+        } else {
+            unlink(n);
+        }
+        n.deadline = deadline;
+        // First tick strictly after the deadline; never a tick that has already been swept.
+        long tick = Math.max(Math.floorDiv(deadline, tickMs) + 1, sweptTick + 1);
+        link(n, (int) (tick & mask));
+    }
+
+    @Override
+    public boolean cancel(K key) {
+        Node<K> n = nodes.remove(key);
+        if (n == null) return false;
+        unlink(n);
+        return true;
+    }
+
+    @Override
+    public List<K> advance(long now) {
+        long nowTick = Math.floorDiv(now, tickMs);
+        if (sweptTick < 0) sweptTick = nowTick - heads.length; // first call: sweep one full revolution
+        List<K> expired = new ArrayList<>();
+        long ticks = Math.min(nowTick - sweptTick, heads.length);
+        for (long t = nowTick - ticks + 1; t <= nowTick; t++) {
+            Node<K> n = heads[(int) (t & mask)];
+            while (n != null) {
+                Node<K> next = n.next;
+                if (n.deadline < now) {
+                    unlink(n);
+                    nodes.remove(n.key);
+                    expired.add(n.key);
+                }
+                n = next;
+            }
+        }
+        if (nowTick > sweptTick) sweptTick = nowTick;
+        return expired;
+    }
+
+    @Override
+    public int size() {
+        return nodes.size();
+    }
+
+    /* -------------------- helpers -------------------- */
+
+    private void link(Node<K> n, int bucket) {
+        n.bucket = bucket;
+        n.prev = null;
+        n.next = heads[bucket];
+        if (n.next != null) n.next.prev = n;
+        heads[bucket] = n;
+    }
+
+    private void unlink(Node<K> n) {
+        if (n.prev != null) {
+            n.prev.next = n.next;
+        } else {
+            heads[n.bucket] = n.next;
+        }
+        if (n.next != null) n.next.prev = n.prev;
+        n.prev = null;
+        n.next = null;
+    }
+}
@@ -0,0 +1,205 @@
+package org.example.util;
+
+import org.example.interfaces.LamportSynchronizer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * LamportSynchronizer that indexes waiting GETs by their target Lamport timestamp and wakes only
+ * the ones whose target has been reached.
+ * <p>
+ * Waiters park with {@link LockSupport#parkNanos} until their deadline instead of polling; an
+ * {@link #onPutApplied} detaches every bucket at or below the new watermark and unparks exactly
+ * those threads. Waiters for later timestamps keep sleeping, and an apply with nobody waiting never
+ * takes the lock.
+ * </p>
+ * <p>
+ * {@link #whenApplied} indexes a future instead of a thread; timeouts are scheduled on the JDK's
+ * shared {@link CompletableFuture#completeOnTimeout} timer, so a pending GET holds no thread at all.
+ * </p>
+ * <b>SonarQube notes:</b>
+ * <ul>
+ *   <li>{@code lastApplied} is advanced by CAS and {@code waiting} is raised before a waiter
+ *       re-checks it; both are sequentially consistent, so either the applier sees the waiter or
+ *       the waiter sees the new timestamp (no lost wake-ups, hence no periodic re-check).</li>
+ *   <li>The index lock is held only to add, detach or remove waiters, never while parked.</li>
+ *   <li>Interrupts do not end the wait (same contract as {@link SimpleLamportSynchronizer}) but are
+ *       restored before returning.</li>
+ * </ul>
+ */
+public final class IndexedLamportSynchronizer implements LamportSynchronizer {
+
+    /** One indexed GET, released (outside the lock) once its target is applied. */
+    private abstract static class Waiter {
+        abstract void release();
+    }
+
+    /** A GET thread parked in {@link #awaitUpTo}. */
+    private static final class ParkedWaiter extends Waiter {
+        final Thread thread = Thread.currentThread();
+        volatile boolean released;
+
+        @Override
+        void release() {
+            released = true;
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /** A pending {@link #whenApplied} future. */
+    private static final class FutureWaiter extends Waiter {
+        final CompletableFuture<Boolean> future = new CompletableFuture<>();
+
+        @Override
+        void release() {
+            future.complete(Boolean.TRUE);
+        }
+    }
+
+    private final Object lock = new Object();
+
+    // Guarded by lock: target Lamport timestamp -> threads waiting for it
+    private final NavigableMap<Long, List<Waiter>> waiters = new TreeMap<>();
+
+    // Written under lock; read lock-free by onPutApplied to skip the lock when nobody waits
+    private volatile int waiting = 0;
+
+    /** Highest Lamport timestamp that has been successfully applied. */
+    private final AtomicLong lastApplied = new AtomicLong();
+
+    /**
+     * Records progress and unparks the waiters whose target is now covered.
+     *
+     * @param lamportTs Lamport timestamp of the completed PUT (smaller values are ignored)
+     */
+    @Override
+    public void onPutApplied(long lamportTs) {
+        long cur;
+        do {
+            cur = lastApplied.get();
+            if (lamportTs <= cur) return;
+        } while (!lastApplied.compareAndSet(cur, lamportTs));
+
+        if (waiting == 0) return; // fast path: no GET is parked
+
+        List<Waiter> ready = new ArrayList<>();
+        synchronized (lock) {
+            Iterator<List<Waiter>> it = waiters.headMap(lamportTs, true).values().iterator();
+            while (it.hasNext()) {
+                List<Waiter> bucket = it.next();
+                ready.addAll(bucket);
+                it.remove();
+            }
+            waiting -= ready.size(); // Sonar: single writer under the lock
+        }
+        for (Waiter w : ready) w.release();
+    }
+
+    /**
+     * Waits until {@code lastApplied >= targetLamport} or the timeout expires.
+     *
+     * @param targetLamport the Lamport value the caller wants to catch up to
+     * @param timeoutMs     maximum wait time in milliseconds
+     * @return {@code true} if target was reached before timeout, {@code false} otherwise
+     */
+    @Override
+    public boolean awaitUpTo(long targetLamport, long timeoutMs) {
+        if (lastApplied.get() >= targetLamport) return true;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0L, timeoutMs));
+
+        ParkedWaiter w = new ParkedWaiter();
+        if (!register(targetLamport, w)) return true;
+
+        boolean interrupted = false;
+        try {
+            while (!w.released) {
+                long left = deadline - System.nanoTime();
+                if (left <= 0L) break;
+                LockSupport.parkNanos(this, left);
+                // Sonar: clear the flag so park keeps blocking; it is restored in finally
+                if (Thread.interrupted()) interrupted = true;
+            }
+            if (w.released) return true;
+            synchronized (lock) {
+                // Released between the last check and taking the lock counts as caught up.
+                return !removeLocked(targetLamport, w);
+            }
+        } finally {
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns a future completed with {@code true} once {@code lastApplied >= targetLamport}, or with
+     * {@code false} after the timeout. Completion by an apply runs on the applying thread.
+     *
+     * @param targetLamport the Lamport value the caller wants to catch up to
+     * @param timeout       maximum wait
+     * @return future of the catch-up outcome; cancelling it removes the waiter
+     */
+    @Override
+    public CompletableFuture<Boolean> whenApplied(long targetLamport, Duration timeout) {
+        if (lastApplied.get() >= targetLamport) return CompletableFuture.completedFuture(Boolean.TRUE);
+
+        FutureWaiter w = new FutureWaiter();
+        if (!register(targetLamport, w)) return CompletableFuture.completedFuture(Boolean.TRUE);
+        w.future.completeOnTimeout(Boolean.FALSE, Math.max(0L, timeout.toNanos()), TimeUnit.NANOSECONDS);
+        w.future.whenComplete((ok, e) -> {
+            if (!Boolean.TRUE.equals(ok)) {
+                synchronized (lock) {
+                    removeLocked(targetLamport, w); // timed out or cancelled: drop from the index
+                }
+            }
+        });
+        return w.future;
+    }
+
+    /** @return most recently applied Lamport timestamp */
+    @Override
+    public long lastApplied() {
+        return lastApplied.get();
+    }
+
+    /** @return number of GETs currently waiting (parked threads and pending futures) */
+    public int waiting() {
+        return waiting;
+    }
+
+    /* -------------------- helpers -------------------- */
+
+    /**
+     * Indexes a waiter, then re-checks: an apply that raced the caller's fast path may have read
+     * {@code waiting == 0} and skipped the index.
+     *
+     * @return {@code false} if the target was already reached (the waiter is not indexed)
+     */
+    private boolean register(long target, Waiter w) {
+        synchronized (lock) {
+            waiters.computeIfAbsent(target, k -> new ArrayList<>(2)).add(w);
+            waiting++;
+            if (lastApplied.get() >= target) {
+                removeLocked(target, w);
+                return false;
+            }
+            return true;
+        }
+    }
+
+    /** Removes a still-indexed waiter. @return {@code false} if it had already been detached */
+    private boolean removeLocked(long target, Waiter w) {
+        List<Waiter> bucket = waiters.get(target);
+        if (bucket == null || !bucket.remove(w)) return false;
+        if (bucket.isEmpty()) waiters.remove(target);
+        waiting--;
+        return true;
+    }
+}
@@ -0,0 +1,131 @@
+package org.example.util;
+
+import org.example.interfaces.ApplyQueue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * MpscApplyQueue is a multi-producer / single-consumer priority queue.
+ * <p>
+ * Producers append to a lock-free {@link ConcurrentLinkedQueue} (one CAS per offer) and unpark
+ * the consumer only if it is parked. The consumer moves everything that arrived into a private
+ * heap ordered by the comparator and takes the smallest element from there, so ordering work is
+ * done on one thread and never under a shared lock.
+ * </p>
+ * <b>SonarQube notes:</b>
+ * <ul>
+ *   <li>{@link #poll} must only be called from one thread (the first caller becomes the consumer).</li>
+ *   <li>The consumer publishes {@code parked} before re-checking the inbox, so a wake-up cannot be lost.</li>
+ *   <li>Ordering is over everything that has arrived when the consumer polls, like the
+ *       synchronized {@link PriorityQueue} it replaces.</li>
+ * </ul>
+ *
+ * @param <T> element type
+ */
+public final class MpscApplyQueue<T> implements ApplyQueue<T> {
+
+    private final ConcurrentLinkedQueue<T> inbox = new ConcurrentLinkedQueue<>();
+    private final PriorityQueue<T> heap; // consumer-local
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicBoolean parked = new AtomicBoolean();
+    private volatile Thread consumer;
+
+    /**
+     * Constructs an empty queue.
+     *
+     * @param order consumer-side ordering (e.g. Lamport timestamp, node id, arrival sequence)
+     */
+    public MpscApplyQueue(Comparator<? super T> order) {
+        this.heap = new PriorityQueue<>(order);
+    }
+
+    @Override
+    public void offer(T item) {
+        inbox.offer(item);
+        size.incrementAndGet();
+        if (parked.get() && parked.compareAndSet(true, false)) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    @Override
+    public T poll(long timeoutMs) {
+        if (!awaitAny(deadlineAfter(timeoutMs))) return null;
+        size.decrementAndGet();
+        return heap.poll();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Arrivals during the linger are merged into the heap before the batch is taken, so a late
+     * update with a lower Lamport timestamp still comes out first.
+     * </p>
+     */
+    @Override
+    public List<T> pollBatch(int max, long timeoutMs, long lingerMs) {
+        if (!awaitAny(deadlineAfter(timeoutMs))) return List.of();
+        int limit = Math.max(1, max);
+        if (lingerMs > 0 && heap.size() < limit) {
+            long lingerUntil = deadlineAfter(lingerMs);
+            while (heap.size() < limit && awaitMore(heap.size(), lingerUntil)) {
+                // keep collecting until the batch is full or the linger elapses
+            }
+        }
+        List<T> batch = new ArrayList<>(Math.min(limit, heap.size()));
+        T next;
+        while (batch.size() < limit && (next = heap.poll()) != null) {
+            batch.add(next);
+        }
+        size.addAndGet(-batch.size());
+        return batch;
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    /* -------------------- helpers -------------------- */
+
+    private static long deadlineAfter(long ms) {
+        return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0L, ms));
+    }
+
+    /** Parks until the heap is non-empty or the deadline passes; returns whether it is non-empty. */
+    private boolean awaitAny(long deadline) {
+        return awaitMore(0, deadline);
+    }
+
+    /** Parks until the heap holds more than {@code have} elements or the deadline passes. */
+    private boolean awaitMore(int have, long deadline) {
+        if (consumer == null) consumer = Thread.currentThread();
+        while (true) {
+            drainInbox();
+            if (heap.size() > have) return true;
+            long left = deadline - System.nanoTime();
+            if (left <= 0L || Thread.interrupted()) return false; // Sonar: interrupt consumed, like the wait() it replaces
+
+            parked.set(true);
+            if (inbox.isEmpty()) { // re-check after announcing, or an offer in between would be missed
+                LockSupport.parkNanos(this, left);
+            }
+            parked.set(false);
+        }
+    }
+
+    private void drainInbox() {
+        T item;
+        while ((item = inbox.poll()) != null) {
+            heap.add(item);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package org.example.util;
+
+import org.example.interfaces.ApplyQueue;
+import org.example.interfaces.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * ShardedApplier runs N applier threads, each owning a hash partition of keys (station ids) with
+ * its own Lamport-ordered {@link MpscApplyQueue}.
+ * <p>
+ * Updates for one key always land on the same shard, so each key is applied in strict queue
+ * order; different keys apply in parallel. After every batch the shard publishes a global
+ * watermark: the highest Lamport timestamp applied by every shard that still has pending work
+ * (or, when none has, the highest applied anywhere). Waiters released at the watermark therefore
+ * never observe a shard lagging behind it.
+ * </p>
+ * <b>SonarQube notes:</b>
+ * <ul>
+ *   <li>A shard's applied timestamp is written before its pending count drops, so the last shard to
+ *       go idle always sees every other shard idle and publishes the maximum.</li>
+ *   <li>Failed batches still count as processed, so one bad update cannot stall the watermark.</li>
+ *   <li>{@link #execute} runs a task on a key's shard between batches, so it never interleaves with
+ *       that key's updates (e.g. evicting a station that another shard found expired).</li>
+ *   <li>With one shard this is exactly the single batched applier.</li>
+ * </ul>
+ *
+ * @param <T> update type
+ */
+public final class ShardedApplier<T> {
+
+    private static final Logger LOG = AsyncLogger.shared();
+
+    /** Applies one batch on the shard's thread. */
+    @FunctionalInterface
+    public interface BatchHandler<T> {
+        void apply(List<T> batch) throws Exception;
+    }
+
+    /** Per-shard queue, thread and progress. */
+    private static final class Shard<T> {
+        final ApplyQueue<T> queue;
+        final ApplierStats stats;
+        final AtomicLong pending = new AtomicLong();
+        final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        volatile long appliedTs = 0L;
+
+        Shard(Comparator<? super T> order, int batchMax, long lingerMs) {
+            this.queue = new MpscApplyQueue<>(order);
+            this.stats = new ApplierStats(batchMax, lingerMs);
+        }
+    }
+
+    private final List<Shard<T>> shards;
+    private final Function<? super T, ?> partitionKey;
+    private final ToLongFunction<? super T> lamportOf;
+    private final BatchHandler<T> handler;
+    private final Runnable tick;
+    private final LongConsumer onWatermark;
+    private final long idleWaitMs;
+
+    /**
+     * Constructs and starts the shard threads (daemons named {@code <name>-<i>}, or {@code <name>} for one shard).
+     *
+     * @param name         thread name prefix
+     * @param shardCount   number of shards (minimum 1)
+     * @param order        per-shard apply order
+     * @param partitionKey key whose hash picks the shard
+     * @param lamportOf    Lamport timestamp of an update
+     * @param batchMax     maximum updates per batch
+     * @param lingerMs     maximum wait for a batch to fill once an update is ready
+     * @param idleWaitMs   maximum idle wait before {@code tick} runs again
+     * @param handler      applies a batch (called on the shard thread)
+     * @param tick         periodic work run on shard 0 after each wakeup (e.g. expiry detection)
+     * @param onWatermark  receives the global watermark after each batch
+     */
+    public ShardedApplier(String name, int shardCount, Comparator<? super T> order,
+                          Function<? super T, ?> partitionKey, ToLongFunction<? super T> lamportOf,
+                          int batchMax, long lingerMs, long idleWaitMs,
+                          BatchHandler<T> handler, Runnable tick, LongConsumer onWatermark) {
+        int n = Math.max(1, shardCount);
+        List<Shard<T>> list = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) list.add(new Shard<>(order, batchMax, lingerMs));
+        this.shards = Collections.unmodifiableList(list);
+        this.partitionKey = partitionKey;
+        this.lamportOf = lamportOf;
+        this.handler = handler;
+        this.tick = tick;
+        this.onWatermark = onWatermark;
+        this.idleWaitMs = idleWaitMs;
+
+        for (int i = 0; i < n; i++) {
+            int index = i;
+            Thread t = new Thread(() -> runShard(index), (n == 1) ? name : name + "-" + i);
+            t.setDaemon(true);
+            t.start();
+        }
+    }
+
+    /** Routes an update to its key's shard; never blocks. */
+    public void submit(T update) {
+        Shard<T> s = shards.get(shardOf(partitionKey.apply(update)));
+        s.pending.incrementAndGet();
+        s.queue.offer(update);
+    }
+
+    /** @return index of the shard that applies updates with partition key {@code key} */
+    public int shardOf(Object key) {
+        return Math.floorMod(key.hashCode(), shards.size());
+    }
+
+    /**
+     * Runs {@code task} on shard {@code shard}'s thread at its next wakeup (at most {@code idleWaitMs}
+     * away), before the shard applies its next batch; never blocks.
+     */
+    public void execute(int shard, Runnable task) {
+        shards.get(shard).tasks.offer(task);
+    }
+
+    /** @return number of shards */
+    public int shardCount() {
+        return shards.size();
+    }
+
+    /** @return per-shard batching stats, indexed by shard */
+    public List<ApplierStats> stats() {
+        List<ApplierStats> out = new ArrayList<>(shards.size());
+        for (Shard<T> s : shards) out.add(s.stats);
+        return out;
+    }
+
+    /** @return updates submitted but not yet applied, over all shards */
+    public long pending() {
+        long n = 0;
+        for (Shard<T> s : shards) n += s.pending.get();
+        return n;
+    }
+
+    /** @return updates submitted to shard {@code shard} but not yet applied */
+    public long pending(int shard) {
+        return shards.get(shard).pending.get();
+    }
+
+    /**
+     * Highest Lamport timestamp such that no shard with pending work has applied less.
+     * When all shards are idle, the highest timestamp applied by any shard.
+     */
+    public long watermark() {
+        long busyMin = Long.MAX_VALUE;
+        long max = 0L;
+        for (Shard<T> s : shards) {
+            long applied = s.appliedTs;
+            if (s.pending.get() > 0) busyMin = Math.min(busyMin, applied);
+            max = Math.max(max, applied);
+        }
+        return (busyMin == Long.MAX_VALUE) ? max : busyMin;
+    }
+
+    /* -------------------- helpers -------------------- */
+
+    private void runShard(int index) {
+        Shard<T> s = shards.get(index);
+        while (true) {
+            List<T> batch = s.queue.pollBatch(s.stats.batchMax(), idleWaitMs, s.stats.lingerMs());
+            if (index == 0) tick.run();
+            for (Runnable task; (task = s.tasks.poll()) != null; ) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    // Sonar: keep the shard alive; a failed task is logged for diagnosis
+                    LOG.error("Shard task failed: " + e.getMessage());
+                }
+            }
+            if (batch.isEmpty()) continue;
+
+            long t0 = System.nanoTime();
+            try {
+                handler.apply(batch);
+            } catch (Exception e) {
+                // Sonar: keep the shard alive; failed apply is logged for diagnosis
+                LOG.error("Apply failed: " + e.getMessage());
+            }
+            long highest = s.appliedTs;
+            for (T u : batch) highest = Math.max(highest, lamportOf.applyAsLong(u));
+            s.appliedTs = highest;                    // before pending drops (see class notes)
+            s.pending.addAndGet(-batch.size());
+            s.stats.recordBatch(batch.size(), System.nanoTime() - t0);
+
+            onWatermark.accept(watermark());
+        }
+    }
+}
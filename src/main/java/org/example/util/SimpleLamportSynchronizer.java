@@ -2,6 +2,13 @@ package org.example.util;
 
 import org.example.interfaces.LamportSynchronizer;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Minimal, thread-safe synchronizer for Lamport-ordered GET/PUT consistency.
  * <p>
@@ -10,6 +17,8 @@ import org.example.interfaces.LamportSynchronizer;
  *   <li>Implements a simple monitor-based coordination pattern using {@code wait/notifyAll()}.</li>
  *   <li>Volatile field {@code lastApplied} ensures visibility across threads without heavy locking.</li>
  *   <li>Designed for low contention and short-lived waits; fairness scheduling is unnecessary.</li>
+ *   <li>{@link #whenApplied} futures are kept in a plain list scanned on each apply and completed
+ *       outside the monitor.</li>
  * </ul>
  */
 public final class SimpleLamportSynchronizer implements LamportSynchronizer {
@@ -20,6 +29,11 @@ public final class SimpleLamportSynchronizer implements LamportSynchronizer {
     /** Highest Lamport timestamp that has been successfully applied. */
     private volatile long lastApplied = 0L;
 
+    /** Pending {@link #whenApplied} futures; guarded by {@code mon}. */
+    private final List<Pending> pending = new ArrayList<>();
+
+    private record Pending(long target, CompletableFuture<Boolean> future) {}
+
     /**
      * Called after a PUT has been applied, notifying waiting GETs that progress was made.
      * <p>
@@ -30,13 +44,16 @@ public final class SimpleLamportSynchronizer implements LamportSynchronizer {
      */
     @Override
     public void onPutApplied(long lamportTs) {
+        List<Pending> ready = List.of();
         synchronized (mon) {
             // Update only if newer Lamport timestamp is applied
             if (lamportTs > lastApplied) {
                 lastApplied = lamportTs;
                 mon.notifyAll(); // wake up any waiting GET threads
+                ready = takeReached(lamportTs);
             }
         }
+        for (Pending p : ready) p.future().complete(Boolean.TRUE);
     }
 
     /**
@@ -68,6 +85,30 @@ public final class SimpleLamportSynchronizer implements LamportSynchronizer {
         }
     }
 
+    /**
+     * Returns a future completed with {@code true} once {@code lastApplied >= targetLamport}, or with
+     * {@code false} after the timeout.
+     *
+     * @param targetLamport the Lamport value the caller wants to catch up to
+     * @param timeout       maximum wait
+     * @return future of the catch-up outcome
+     */
+    @Override
+    public CompletableFuture<Boolean> whenApplied(long targetLamport, Duration timeout) {
+        Pending p = new Pending(targetLamport, new CompletableFuture<>());
+        synchronized (mon) {
+            if (lastApplied >= targetLamport) return CompletableFuture.completedFuture(Boolean.TRUE);
+            pending.add(p);
+        }
+        p.future().completeOnTimeout(Boolean.FALSE, Math.max(0L, timeout.toNanos()), TimeUnit.NANOSECONDS);
+        p.future().whenComplete((ok, e) -> {
+            synchronized (mon) {
+                pending.remove(p);
+            }
+        });
+        return p.future();
+    }
+
     /**
      * Returns the most recently applied Lamport timestamp.
      *
@@ -77,4 +118,18 @@ public final class SimpleLamportSynchronizer implements LamportSynchronizer {
     public long lastApplied() {
         return lastApplied;
     }
+
+    /** Removes and returns the pending futures whose target is covered; caller holds {@code mon}. */
+    private List<Pending> takeReached(long applied) {
+        if (pending.isEmpty()) return List.of();
+        List<Pending> ready = new ArrayList<>();
+        for (Iterator<Pending> it = pending.iterator(); it.hasNext(); ) {
+            Pending p = it.next();
+            if (p.target() <= applied) {
+                ready.add(p);
+                it.remove();
+            }
+        }
+        return ready;
+    }
 }
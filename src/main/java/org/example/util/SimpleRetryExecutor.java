@@ -1,5 +1,6 @@
 package org.example.util;
 
+import org.example.interfaces.Logger;
 import org.example.interfaces.RetryExecutor;
 
 import java.util.concurrent.Callable;
@@ -18,6 +19,8 @@ import java.util.concurrent.ThreadLocalRandom;
  */
 public final class SimpleRetryExecutor implements RetryExecutor {
 
+    private static final Logger LOG = AsyncLogger.shared();
+
     /** Maximum number of attempts (inclusive of first try). */
     private final int maxAttempts;     // e.g., 4
 
@@ -79,7 +82,7 @@ public final class SimpleRetryExecutor implements RetryExecutor {
                 // Add jitter for desynchronization of concurrent retries
                 long sleep = delay + (jitterMs > 0 ? ThreadLocalRandom.current().nextLong(jitterMs) : 0L);
 
-                System.out.println("[Retry] attempt " + (attempt + 1) + " in " + sleep +
+                LOG.info("[Retry] attempt " + (attempt + 1) + " in " + sleep +
                         "ms (error: " + e.getMessage() + ")");
 
                 try {
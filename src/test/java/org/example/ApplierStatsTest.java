@@ -0,0 +1,29 @@
+package org.example;
+
+import org.example.util.ApplierStats;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ApplierStatsTest {
+
+    @Test
+    void recordsBatchesAndKeepsConfiguration() {
+        ApplierStats stats = new ApplierStats(64, 5L);
+        assertEquals(0.0, stats.meanBatchSize());
+
+        stats.recordBatch(10, 2_000L);
+        stats.recordBatch(2, 1_000L);
+
+        assertEquals(64, stats.batchMax());
+        assertEquals(5L, stats.lingerMs());
+        assertEquals(2, stats.batches());
+        assertEquals(12, stats.updates());
+        assertEquals(2, stats.lastBatchSize());
+        assertEquals(10, stats.largestBatchSize());
+        assertEquals(1_000L, stats.lastCommitNanos());
+        assertEquals(3_000L, stats.totalCommitNanos());
+        assertEquals(6.0, stats.meanBatchSize());
+        assertTrue(stats.toString().contains("batches=2"));
+    }
+}
@@ -0,0 +1,92 @@
+package org.example;
+
+import org.example.interfaces.Logger.Level;
+import org.example.util.AsyncLogger;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncLoggerTest {
+
+    @Test
+    void writesInOrderAndFiltersByLevel() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        AsyncLogger log = new AsyncLogger(Level.INFO, 256, false, print(out), print(err));
+
+        log.debug("hidden");
+        for (int i = 0; i < 200; i++) log.info("line " + i);
+        log.warn("careful");
+        log.flush();
+
+        String text = out.toString(StandardCharsets.UTF_8);
+        assertFalse(log.isEnabled(Level.DEBUG));
+        assertFalse(text.contains("hidden"));
+        assertEquals(0L, log.dropped());
+        int last = -1;
+        for (int i = 0; i < 200; i++) {
+            int at = text.indexOf("line " + i + System.lineSeparator());
+            assertTrue(at > last, "records must all be written, in order");
+            last = at;
+        }
+        assertTrue(err.toString(StandardCharsets.UTF_8).contains("careful"));
+    }
+
+    @Test
+    void fullRingDropsInsteadOfBlocking() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        OutputStream stalled = new OutputStream() {
+            @Override
+            public void write(int b) {
+                write(new byte[] {(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                try { release.await(5, TimeUnit.SECONDS); } catch (InterruptedException ignored) {}
+                sink.write(b, off, len);
+            }
+        };
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        AsyncLogger log = new AsyncLogger(Level.DEBUG, 4, false, print(stalled), print(err));
+
+        log.info("first");           // the writer takes it and stalls on the stream
+        Thread.sleep(50);
+        long t0 = System.nanoTime();
+        for (int i = 0; i < 50; i++) log.info("burst " + i);
+        assertTrue(System.nanoTime() - t0 < TimeUnit.SECONDS.toNanos(1), "logging must not block");
+        assertTrue(log.dropped() > 0);
+
+        release.countDown();
+        log.flush();                 // drain the burst so "after" finds room
+        log.info("after");
+        log.flush();
+        assertTrue(sink.toString(StandardCharsets.UTF_8).contains("after"));
+        assertTrue(err.toString(StandardCharsets.UTF_8).contains("[Log] dropped"));
+    }
+
+    @Test
+    void keyValueFormatCarriesLevelAndThread() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AsyncLogger log = new AsyncLogger(Level.DEBUG, 16, true, print(out), print(new ByteArrayOutputStream()));
+        log.info("two\nlines \"quoted\"");
+        log.flush();
+
+        String line = out.toString(StandardCharsets.UTF_8);
+        assertTrue(line.startsWith("ts="), line);
+        assertTrue(line.contains(" level=INFO thread=" + Thread.currentThread().getName() + " "), line);
+        assertTrue(line.contains("msg=\"two\\nlines \\\"quoted\\\"\""), line);
+    }
+
+    private static PrintStream print(OutputStream out) {
+        return new PrintStream(out, true, StandardCharsets.UTF_8);
+    }
+}
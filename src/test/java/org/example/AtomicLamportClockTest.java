@@ -29,4 +29,12 @@ class AtomicLamportClockTest {
         assertEquals(13, b);
         assertEquals(13, c.get());
     }
+
+    @Test
+    void advanceToResumesWithoutTickingOrGoingBack() {
+        LamportClock c = new AtomicLamportClock();
+        assertEquals(40, c.advanceTo(40));
+        assertEquals(40, c.advanceTo(7));
+        assertEquals(41, c.tick());
+    }
 }
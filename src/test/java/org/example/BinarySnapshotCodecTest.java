@@ -0,0 +1,71 @@
+package org.example;
+
+import com.google.gson.JsonParser;
+import org.example.persistance.BinarySnapshotCodec;
+import org.example.persistance.SnapshotFormat;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinarySnapshotCodecTest {
+
+    @Test
+    void roundTripKeepsEveryValueExactlyAndIsSmaller() throws IOException {
+        String station = Files.readString(Path.of("src", "main", "resources", "weatherA.json"), StandardCharsets.UTF_8);
+        String feed = "[" + station + ",{\"id\":\"X\",\"temp\":\"-0\",\"hum\":\"007\",\"p\":\"10.50\",\"n\":-3.25,"
+                + "\"big\":12345678901234567890,\"e\":1e3,\"ok\":true,\"none\":null,\"tags\":[\"a\",{\"b\":1}],"
+                + "\"q\":\"say \\\"hi\\\"\\n\\u0001 Ü\"}]";
+
+        byte[] bin = BinarySnapshotCodec.encode(feed);
+        String back = BinarySnapshotCodec.decode(bin);
+
+        assertEquals(JsonParser.parseString(feed), JsonParser.parseString(back));
+        assertTrue(back.contains("\"p\":\"10.50\"") && back.contains("\"lat\":\"-34.9\"")
+                && back.contains("\"temp\":\"-0\"") && back.contains("\"hum\":\"007\""), back);
+        assertTrue(bin.length < feed.getBytes(StandardCharsets.UTF_8).length, bin.length + " bytes");
+    }
+
+    @Test
+    void documentsAreKeyedByIdWithoutParsing() throws IOException {
+        String feed = "[{\"id\":\"A\",\"t\":\"1.5\"},{\"name\":\"no id\"},{\"id\":42,\"x\":[1]},{\"id\":\" \"}]";
+        Map<String, String> docs = BinarySnapshotCodec.decodeDocuments(BinarySnapshotCodec.encode(feed));
+
+        assertEquals(List.of("A", "42"), List.copyOf(docs.keySet()));
+        assertEquals("{\"id\":\"A\",\"t\":\"1.5\"}", docs.get("A"));
+        assertEquals("{\"id\":42,\"x\":[1]}", docs.get("42"));
+        assertEquals(docs, SnapshotFormat.JSON.decodeDocuments(feed.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void singleDocumentStaysAnObject() throws IOException {
+        String doc = "{\"id\":\"A\",\"air_temp\":\"13.3\"}";
+        assertEquals(doc, BinarySnapshotCodec.decode(BinarySnapshotCodec.encode(doc)));
+        assertEquals("[]", BinarySnapshotCodec.decode(BinarySnapshotCodec.encode("[]")));
+        assertThrows(IOException.class, () -> BinarySnapshotCodec.encode("[1,2]"));
+        assertThrows(IOException.class, () -> BinarySnapshotCodec.encode("not json"));
+    }
+
+    @Test
+    void corruptionAndTruncationAreDetected() throws IOException {
+        byte[] bin = BinarySnapshotCodec.encode("[{\"id\":\"A\",\"name\":\"Adelaide\"},{\"id\":\"B\",\"name\":\"Brisbane\"}]");
+
+        for (int i = 0; i < bin.length; i++) {
+            byte[] bad = bin.clone();
+            bad[i] ^= 0x10;
+            int at = i;
+            assertThrows(IOException.class, () -> BinarySnapshotCodec.decode(bad), "flipped byte " + at);
+        }
+        for (int n = 0; n < bin.length; n++) {
+            byte[] cut = Arrays.copyOf(bin, n);
+            assertThrows(IOException.class, () -> BinarySnapshotCodec.decode(cut), "truncated to " + n);
+        }
+    }
+}
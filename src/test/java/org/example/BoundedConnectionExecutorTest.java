@@ -0,0 +1,75 @@
+package org.example;
+
+import org.example.util.BoundedConnectionExecutor;
+import org.example.util.BoundedConnectionExecutor.Mode;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedConnectionExecutorTest {
+
+    @Test
+    void rejectsWhenCapReachedThenRecovers() throws Exception {
+        try (BoundedConnectionExecutor exec = new BoundedConnectionExecutor(Mode.POOL, 2, 2)) {
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch finished = new CountDownLatch(2);
+            Runnable blocker = () -> {
+                try { release.await(2, TimeUnit.SECONDS); } catch (InterruptedException ignored) {}
+                finished.countDown();
+            };
+
+            assertTrue(exec.trySubmit(blocker));
+            assertTrue(exec.trySubmit(blocker));
+            assertFalse(exec.trySubmit(() -> {}), "third connection must be rejected");
+            assertEquals(2, exec.inFlight());
+            assertEquals(1, exec.rejectedCount());
+
+            release.countDown();
+            assertTrue(finished.await(2, TimeUnit.SECONDS));
+            // slots are released after the task returns
+            long end = System.currentTimeMillis() + 1000;
+            while (exec.inFlight() > 0 && System.currentTimeMillis() < end) Thread.sleep(5);
+            assertTrue(exec.trySubmit(() -> {}));
+        }
+    }
+
+    @Test
+    void closeInterruptsPerConnectionThreadsAndStopsAdmission() throws Exception {
+        BoundedConnectionExecutor exec = new BoundedConnectionExecutor(Mode.THREAD_PER_CONNECTION, 4, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        assertTrue(exec.trySubmit(() -> {
+            started.countDown();
+            try {
+                new CountDownLatch(1).await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+        }));
+        assertTrue(started.await(2, TimeUnit.SECONDS));
+        assertEquals(1, exec.connectionThreads());
+
+        exec.close();
+        assertTrue(interrupted.await(2, TimeUnit.SECONDS), "close() must interrupt the running connection");
+        assertFalse(exec.trySubmit(() -> {}), "a closed executor admits nothing");
+
+        long end = System.currentTimeMillis() + 1000;
+        while ((exec.inFlight() > 0 || exec.connectionThreads() > 0) && System.currentTimeMillis() < end) {
+            Thread.sleep(5);
+        }
+        assertEquals(0, exec.inFlight());
+        assertEquals(0, exec.connectionThreads());
+    }
+
+    @Test
+    void virtualModeFallsBackWhenUnavailable() {
+        try (BoundedConnectionExecutor exec = new BoundedConnectionExecutor(Mode.VIRTUAL, 4, 1)) {
+            assertTrue(exec.mode() == Mode.VIRTUAL || exec.mode() == Mode.POOL);
+        }
+        assertEquals(Mode.THREAD_PER_CONNECTION, Mode.parse("thread-per-connection"));
+        assertEquals(Mode.POOL, Mode.parse("bogus"));
+    }
+}
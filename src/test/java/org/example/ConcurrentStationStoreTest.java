@@ -0,0 +1,55 @@
+package org.example;
+
+import org.example.interfaces.StationStore.Station;
+import org.example.util.ConcurrentStationStore;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentStationStoreTest {
+
+    @Test
+    void putReportsNewIdsAndReplacesExisting() {
+        ConcurrentStationStore store = new ConcurrentStationStore();
+        assertTrue(store.put(new Station("A", "{\"id\":\"A\",\"v\":1}", 1L)));
+        assertTrue(store.put(new Station("B", "{\"id\":\"B\"}", 1L)));
+        assertFalse(store.put(new Station("A", "{\"id\":\"A\",\"v\":2}", 2L)));
+
+        assertEquals(2, store.size());
+        assertEquals("{\"id\":\"A\",\"v\":2}", store.get("A").json());
+        assertTrue(store.contains("B"));
+        assertNull(store.get(null));
+        assertFalse(store.contains("C"));
+    }
+
+    @Test
+    void readersIterateWhileWriterUpdates() throws Exception {
+        ConcurrentStationStore store = new ConcurrentStationStore(10_000);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        CountDownLatch done = new CountDownLatch(1);
+        try {
+            pool.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    store.put(new Station("S" + i, "{}", i));
+                }
+                done.countDown();
+            });
+            for (int r = 0; r < 3; r++) {
+                pool.submit(() -> {
+                    while (done.getCount() > 0) {
+                        for (Station st : store.all()) assertNotNull(st.id());
+                    }
+                });
+            }
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(10_000, store.size());
+    }
+}
@@ -0,0 +1,64 @@
+package org.example;
+
+import org.example.util.ContentServerLeases;
+import org.example.util.FixedTtlPolicy;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentServerLeasesTest {
+
+    @Test
+    void anyUpdateFromAContentServerRenewsAllItsStations() {
+        ContentServerLeases leases = new ContentServerLeases(new FixedTtlPolicy(1_000L), 100L);
+        leases.expire(0L);
+        leases.renew("CS-1", "A", 0L);
+        leases.renew("CS-1", "B", 800L);   // renews A as well
+        leases.renew("CS-2", "C", 0L);
+
+        assertEquals(List.of("C"), leases.expire(1_200L));
+        assertEquals(List.of(), leases.expire(1_700L));
+        assertEquals(Set.of("A", "B"), new HashSet<>(leases.expire(1_900L)));
+        assertEquals(0, leases.owners());
+    }
+
+    @Test
+    void stationsWithoutSenderExpireIndividually() {
+        ContentServerLeases leases = new ContentServerLeases(new FixedTtlPolicy(1_000L), 100L);
+        leases.expire(0L);
+        leases.renew(null, "A", 0L);
+        leases.renew("", "B", 500L);
+
+        assertEquals(List.of("A"), leases.expire(1_100L));
+        assertEquals(List.of("B"), leases.expire(1_600L));
+    }
+
+    @Test
+    void stationRenewedAfterExpiringIsLeasedAgain() {
+        ContentServerLeases leases = new ContentServerLeases(new FixedTtlPolicy(1_000L), 100L);
+        leases.expire(0L);
+        leases.renew("CS-1", "A", 0L);
+        assertTrue(leases.isLeased("A"));
+
+        assertEquals(List.of("A"), leases.expire(1_100L));
+        assertFalse(leases.isLeased("A"));
+        leases.renew("CS-1", "A", 1_150L); // an update applied before the eviction ran
+        assertTrue(leases.isLeased("A"), "the evicting shard must keep it");
+    }
+
+    @Test
+    void stationMovesToTheServerThatLastUpdatedIt() {
+        ContentServerLeases leases = new ContentServerLeases(new FixedTtlPolicy(1_000L), 100L);
+        leases.expire(0L);
+        leases.renew("CS-1", "A", 0L);
+        leases.renew("CS-2", "A", 600L);   // CS-1 now owns nothing and its lease is dropped
+
+        assertEquals(1, leases.owners());
+        assertEquals(List.of(), leases.expire(1_200L));
+        assertEquals(List.of("A"), leases.expire(1_700L));
+    }
+}
@@ -0,0 +1,85 @@
+package org.example;
+
+import org.example.http.DefaultHttpHandler;
+import org.example.http.FeedDocument;
+import org.example.util.AtomicLamportClock;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FeedDocumentTest {
+
+    @Test
+    void upsertReplacesOnlyThatSegment() throws IOException {
+        FeedDocument feed = new FeedDocument("AGG", new DefaultHttpHandler());
+        feed.upsert("A", "{\"id\":\"A\",\"t\":1}");
+        feed.upsert("B", "{\"id\":\"B\"}");
+        feed.upsert("A", "{\"id\":\"A\",\"t\":2}");
+
+        assertEquals(2, feed.size());
+        assertEquals("[{\"id\":\"A\",\"t\":2},{\"id\":\"B\"}]", body(feed));
+    }
+
+    @Test
+    void snapshotIsReusedUntilTheFeedChanges() {
+        FeedDocument feed = new FeedDocument("AGG", new DefaultHttpHandler());
+        feed.upsert("A", "{}");
+        FeedDocument.Snapshot first = feed.snapshot();
+        assertSame(first, feed.snapshot());
+
+        feed.upsert("B", "{}");
+        FeedDocument.Snapshot second = feed.snapshot();
+        assertNotSame(first, second);
+        assertEquals(2, second.count());
+    }
+
+    @Test
+    void removeSwapsLastSegmentIntoTheHole() throws IOException {
+        FeedDocument feed = new FeedDocument("AGG", new DefaultHttpHandler());
+        feed.upsert("A", "1");
+        feed.upsert("B", "2");
+        feed.upsert("C", "3");
+
+        assertTrue(feed.remove("A"));
+        assertFalse(feed.remove("A"));
+        assertEquals("[3,2]", body(feed));
+
+        feed.upsert("C", "33"); // slot index of the moved segment must have been updated
+        assertEquals("[33,2]", body(feed));
+    }
+
+    @Test
+    void emptyFeedHasNoResponse() {
+        FeedDocument feed = new FeedDocument("AGG", new DefaultHttpHandler());
+        feed.upsert("A", "1");
+        assertTrue(feed.remove("A"));
+        assertEquals(0, feed.snapshot().count());
+        assertNull(feed.snapshot().response());
+    }
+
+    @Test
+    void contentLengthMatchesWrittenBody() throws IOException {
+        FeedDocument feed = new FeedDocument("AGG", new DefaultHttpHandler());
+        feed.upsert("A", "{\"city\":\"Mérida\"}");
+        feed.upsert("B", "{\"city\":\"Zürich\"}");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        feed.snapshot().response().writeTo(out, new AtomicLamportClock(), false);
+        byte[] all = out.toByteArray();
+        String text = new String(all, StandardCharsets.UTF_8);
+        int headEnd = text.indexOf("\r\n\r\n") + 4;
+        int declared = Integer.parseInt(text.replaceAll("(?s).*Content-Length: (\\d+).*", "$1"));
+        assertEquals(all.length - text.substring(0, headEnd).getBytes(StandardCharsets.UTF_8).length, declared);
+        assertTrue(text.contains("Connection: close\r\n"), text);
+    }
+
+    private static String body(FeedDocument feed) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        feed.snapshot().response().writeBody(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
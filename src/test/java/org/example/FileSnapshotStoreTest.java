@@ -2,12 +2,17 @@ package org.example;
 
 import org.example.interfaces.SnapshotStore;
 import org.example.persistance.FileSnapshotStore;
+import org.example.persistance.SnapshotFormat;
+import org.example.persistance.SnapshotManifest;
+import org.example.util.MetricsRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.util.List;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -44,4 +49,64 @@ class FileSnapshotStoreTest {
                 .count();
         assertTrue(count >= 2);
     }
+
+    @Test
+    void rapidSavesGetDistinctOrderedFiles() throws IOException {
+        SnapshotStore store = new FileSnapshotStore(tmp, "weather");
+        for (int i = 0; i < 20; i++) store.save("{\"id\":\"R" + i + "\"}"); // many in the same millisecond
+
+        List<Path> files;
+        try (Stream<Path> s = Files.list(tmp)) {
+            files = s.filter(p -> p.getFileName().toString().startsWith("weather-")).sorted().toList();
+        }
+        assertEquals(20, files.size());
+        assertEquals("{\"id\":\"R19\"}", Files.readString(files.get(19), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void manifestRecordsNewestFileAndLamportForRestart() throws IOException {
+        new FileSnapshotStore(tmp, "weather").save("{\"id\":\"A\"}", 17L);
+        new FileSnapshotStore(tmp, "weather").save("{\"id\":\"Ü\"}", 42L);
+
+        SnapshotManifest m = SnapshotManifest.read(tmp.resolve("weather.manifest"));
+        assertNotNull(m);
+        assertEquals(42L, m.lamport());
+        assertTrue(m.matches(Files.readAllBytes(tmp.resolve(m.file()))));
+
+        Files.delete(tmp.resolve("latest.json")); // the manifest alone is enough
+        SnapshotStore restarted = new FileSnapshotStore(tmp, "weather");
+        assertEquals(0L, restarted.lastAppliedLamport());
+        assertEquals("{\"id\":\"Ü\"}", restarted.load());
+        assertEquals(42L, restarted.lastAppliedLamport());
+    }
+
+    @Test
+    void corruptSnapshotNamedByManifestFallsBackToLatest() throws IOException {
+        SnapshotStore store = new FileSnapshotStore(tmp, "weather");
+        store.save("{\"id\":\"GOOD\"}", 5L);
+        SnapshotManifest m = SnapshotManifest.read(tmp.resolve("weather.manifest"));
+        Files.writeString(tmp.resolve(m.file()), "{\"id\":\"BAD!\"}", StandardCharsets.UTF_8);
+
+        SnapshotStore restarted = new FileSnapshotStore(tmp, "weather");
+        assertEquals("{\"id\":\"GOOD\"}", restarted.load());
+        assertEquals(5L, restarted.lastAppliedLamport());
+    }
+
+    @Test
+    void binaryFormatLoadsLegacyJsonThenWritesSnapFiles() throws IOException {
+        new FileSnapshotStore(tmp, "weather").save("[{\"id\":\"OLD\",\"air_temp\":\"9.5\"}]", 3L);
+
+        SnapshotStore binary = new FileSnapshotStore(tmp, "weather", new MetricsRegistry(), SnapshotFormat.BINARY);
+        assertEquals("[{\"id\":\"OLD\",\"air_temp\":\"9.5\"}]", binary.load()); // manifest names the .json file
+
+        binary.save("[{\"id\":\"NEW\",\"air_temp\":\"13.3\"}]", 8L);
+        assertTrue(Files.exists(tmp.resolve("latest.snap")));
+        SnapshotManifest m = SnapshotManifest.read(tmp.resolve("weather.manifest"));
+        assertTrue(m.file().endsWith(".snap"));
+
+        Files.delete(tmp.resolve("weather.manifest"));
+        Files.delete(tmp.resolve("latest.json"));
+        SnapshotStore restarted = new FileSnapshotStore(tmp, "weather", new MetricsRegistry(), SnapshotFormat.BINARY);
+        assertEquals("[{\"id\":\"NEW\",\"air_temp\":\"13.3\"}]", restarted.load()); // via latest.snap
+    }
 }
@@ -0,0 +1,38 @@
+package org.example;
+
+import org.example.http.GzipCodec;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GzipCodecTest {
+
+    @Test
+    void roundTripsUpToTheCapInclusive() throws IOException {
+        byte[] json = "{\"id\":\"IDS60901\",\"city\":\"Adelaide\",\"air_temp\":\"13.3\"}".repeat(40)
+                .getBytes(StandardCharsets.UTF_8);
+        byte[] gz = GzipCodec.compress(json);
+
+        assertTrue(gz.length < json.length / 4, gz.length + " bytes");
+        assertArrayEquals(json, GzipCodec.inflate(gz, json.length));
+        assertArrayEquals(new byte[0], GzipCodec.inflate(GzipCodec.compress(new byte[0]), 0));
+    }
+
+    @Test
+    void stopsAtTheCapAndRejectsNonGzip() {
+        byte[] bomb = GzipCodec.compress(new byte[8 << 20]);
+        assertTrue(bomb.length < 16 * 1024, bomb.length + " bytes");
+
+        IOException e = assertThrows(IOException.class, () -> GzipCodec.inflate(bomb, 64 * 1024));
+        assertInstanceOf(GzipCodec.TooLargeException.class, e);
+        assertThrows(GzipCodec.TooLargeException.class, () -> GzipCodec.inflate(GzipCodec.compress(new byte[11]), 10));
+
+        IOException corrupt = assertThrows(IOException.class,
+                () -> GzipCodec.inflate("plain text".getBytes(StandardCharsets.UTF_8), 1024));
+        assertFalse(corrupt instanceof GzipCodec.TooLargeException);
+        assertThrows(IOException.class, () -> GzipCodec.inflate(new byte[0], 1024));
+    }
+}
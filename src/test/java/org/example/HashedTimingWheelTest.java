@@ -0,0 +1,70 @@
+package org.example;
+
+import org.example.util.HashedTimingWheel;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashedTimingWheelTest {
+
+    @Test
+    void keysExpireWithinOneTickOfTheirDeadline() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(100L, 1_000L);
+        wheel.advance(0L);
+        wheel.schedule("a", 250L);
+        wheel.schedule("b", 520L);
+
+        assertEquals(List.of(), wheel.advance(200L));
+        assertEquals(List.of("a"), wheel.advance(300L));
+        assertEquals(List.of(), wheel.advance(500L));
+        assertEquals(List.of("b"), wheel.advance(600L));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void rescheduleMovesAndCancelRemoves() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(100L, 1_000L);
+        wheel.advance(0L);
+        wheel.schedule("a", 150L);
+        wheel.schedule("b", 150L);
+        wheel.schedule("a", 950L);      // renewed before expiry
+        assertTrue(wheel.cancel("b"));
+        assertFalse(wheel.cancel("b"));
+
+        assertEquals(List.of(), wheel.advance(400L));
+        assertEquals(List.of("a"), wheel.advance(1_000L));
+    }
+
+    @Test
+    void deadlinesBeyondOneRevolutionWaitForTheirRound() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(10L, 80L); // 8 buckets = 80 ms
+        wheel.advance(0L);
+        wheel.schedule("far", 250L);
+
+        assertEquals(List.of(), wheel.advance(90L));
+        assertEquals(List.of(), wheel.advance(170L));
+        assertEquals(List.of(), wheel.advance(250L));
+        assertEquals(List.of("far"), wheel.advance(260L));
+    }
+
+    @Test
+    void longPauseSweepsEverythingDueOnce() {
+        HashedTimingWheel<Integer> wheel = new HashedTimingWheel<>(10L, 100L);
+        wheel.advance(0L);
+        for (int i = 0; i < 1_000; i++) wheel.schedule(i, 5L + i);
+
+        List<Integer> expired = wheel.advance(1_000_000L);
+        assertEquals(1_000, expired.size());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void pastDeadlineScheduledLateIsNotLost() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(100L, 1_000L);
+        wheel.advance(5_000L);
+        wheel.schedule("late", 1_000L); // already past: goes to the next unswept tick
+        assertEquals(List.of("late"), wheel.advance(5_100L));
+    }
+}
@@ -0,0 +1,111 @@
+package org.example;
+
+import org.example.http.HttpRequest;
+import org.example.http.HttpRequestParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpRequestParserTest {
+
+    @Test
+    void extractsRoutedFieldsInOnePass() throws IOException {
+        String raw = "PUT /weather.json?id=A HTTP/1.1\r\n" +
+                "Host: x\r\n" +
+                "content-LENGTH:  5 \r\n" +
+                "X-Lamport-Clock: 42\r\n" +
+                "x-lamport-node: CS-9\r\n" +
+                "Connection: close\r\n\r\nhello";
+        HttpRequestParser p = new HttpRequestParser(stream(raw));
+
+        HttpRequest r = p.next();
+        assertEquals("PUT", r.method());
+        assertEquals("/weather.json?id=A", r.target());
+        assertEquals("/weather.json", r.path());
+        assertEquals("HTTP/1.1", r.version());
+        assertEquals(5, r.contentLength());
+        assertEquals(42L, r.lamportClock());
+        assertEquals("CS-9", r.lamportNode());
+        assertFalse(r.keepAliveRequested());
+        assertEquals("hello", new String(p.readBody(r.contentLength()), StandardCharsets.UTF_8));
+        assertNull(p.next(), "clean EOF after the last request");
+    }
+
+    @Test
+    void acceptEncodingDecidesGzip() throws IOException {
+        assertTrue(head("Accept-Encoding: gzip, deflate, br").acceptsGzip());
+        assertTrue(head("accept-encoding: br;q=1.0, GZIP;q=0.5").acceptsGzip());
+        assertTrue(head("Accept-Encoding: *").acceptsGzip());
+        assertFalse(head("Accept-Encoding: gzip;q=0").acceptsGzip());
+        assertFalse(head("Accept-Encoding: *, gzip;q=0.000").acceptsGzip());
+        assertFalse(head("Accept-Encoding: identity").acceptsGzip());
+        assertFalse(head("Host: x").acceptsGzip());
+        assertEquals("br, gzip", head("Accept-Encoding:  br, gzip ").acceptEncoding());
+    }
+
+    @Test
+    void contentEncodingDescribesTheBody() throws IOException {
+        assertTrue(head("Content-Encoding: GZIP").hasGzipBody());
+        assertTrue(head("Host: x").hasIdentityBody());
+        assertTrue(head("Content-Encoding: identity").hasIdentityBody());
+        HttpRequest br = head("Content-Encoding: br");
+        assertEquals("br", br.contentEncoding());
+        assertFalse(br.hasGzipBody() || br.hasIdentityBody());
+    }
+
+    private static HttpRequest head(String header) throws IOException {
+        return new HttpRequestParser(stream("GET /weather.json HTTP/1.1\r\n" + header + "\r\n\r\n")).next();
+    }
+
+    @Test
+    void pipelinedRequestsSurviveSmallReads() throws IOException {
+        String one = "PUT /weather.json HTTP/1.1\r\nContent-Length: 3\r\n\r\nabc";
+        String two = "GET /weather.json HTTP/1.1\r\nX-Lamport-Clock: bogus\r\n\r\n";
+        HttpRequestParser p = new HttpRequestParser(trickle(one + two));
+
+        HttpRequest a = p.next();
+        assertEquals("abc", new String(p.readBody(a.contentLength()), StandardCharsets.UTF_8));
+        HttpRequest b = p.next();
+        assertEquals("GET", b.method());
+        assertEquals(0L, b.lamportClock(), "invalid clock is ignored");
+        assertTrue(b.keepAliveRequested());
+        assertNull(p.next());
+    }
+
+    @Test
+    void malformedAndOversizedHeads() throws IOException {
+        assertTrue(new HttpRequestParser(stream("\r\n\r\n")).next().isMalformed());
+        assertTrue(new HttpRequestParser(stream("NOSPACE\r\n\r\n")).next().isMalformed());
+
+        String huge = "GET /weather.json HTTP/1.1\r\nX-Pad: " + "a".repeat(20_000) + "\r\n\r\n";
+        assertTrue(new HttpRequestParser(stream(huge), 8 * 1024).next().isMalformed());
+        assertFalse(new HttpRequestParser(stream(huge)).next().isMalformed());
+    }
+
+    @Test
+    void truncatedHeadIsParsedAtEof() throws IOException {
+        HttpRequest r = new HttpRequestParser(stream("GET /weather.json HTTP/1.0\r\nConnection: keep-alive")).next();
+        assertEquals("GET", r.method());
+        assertTrue(r.keepAliveRequested());
+    }
+
+    // ---- helpers ----
+    private static InputStream stream(String s) {
+        return new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Delivers at most 7 bytes per read to exercise buffer refills across boundaries. */
+    private static InputStream trickle(String s) {
+        return new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 7));
+            }
+        };
+    }
+}
@@ -0,0 +1,111 @@
+package org.example;
+
+import org.example.util.IndexedLamportSynchronizer;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexedLamportSynchronizerTest {
+
+    @Test
+    void awaitUpToSignals() {
+        IndexedLamportSynchronizer s = new IndexedLamportSynchronizer();
+
+        Thread t = new Thread(() -> {
+            try { Thread.sleep(25); } catch (InterruptedException ignored) {}
+            s.onPutApplied(5L);
+        });
+        t.start();
+
+        assertTrue(s.awaitUpTo(5L, 1000L));
+        assertEquals(5L, s.lastApplied());
+        assertEquals(0, s.waiting());
+    }
+
+    @Test
+    void awaitTimesOutAndDeregisters() {
+        IndexedLamportSynchronizer s = new IndexedLamportSynchronizer();
+        assertFalse(s.awaitUpTo(1L, 20L));
+        assertEquals(0L, s.lastApplied());
+        assertEquals(0, s.waiting());
+    }
+
+    @Test
+    void wakesOnlyWaitersWhoseTargetWasReached() throws Exception {
+        IndexedLamportSynchronizer s = new IndexedLamportSynchronizer();
+        AtomicBoolean lowDone = new AtomicBoolean();
+        AtomicBoolean highDone = new AtomicBoolean();
+        CountDownLatch lowReturned = new CountDownLatch(1);
+
+        Thread low = new Thread(() -> {
+            lowDone.set(s.awaitUpTo(3L, 5000L));
+            lowReturned.countDown();
+        });
+        Thread high = new Thread(() -> highDone.set(s.awaitUpTo(10L, 5000L)));
+        low.start();
+        high.start();
+        while (s.waiting() < 2) Thread.sleep(1);
+
+        s.onPutApplied(5L);
+        assertTrue(lowReturned.await(1, TimeUnit.SECONDS));
+        assertTrue(lowDone.get());
+        assertTrue(high.isAlive(), "waiter for a later timestamp must keep sleeping");
+        assertEquals(1, s.waiting());
+
+        s.onPutApplied(10L);
+        high.join(1000L);
+        assertTrue(highDone.get());
+        assertEquals(0, s.waiting());
+    }
+
+    @Test
+    void interruptDoesNotEndWaitButIsRestored() throws Exception {
+        IndexedLamportSynchronizer s = new IndexedLamportSynchronizer();
+        AtomicBoolean result = new AtomicBoolean();
+        AtomicBoolean stillInterrupted = new AtomicBoolean();
+
+        Thread t = new Thread(() -> {
+            result.set(s.awaitUpTo(2L, 5000L));
+            stillInterrupted.set(Thread.currentThread().isInterrupted());
+        });
+        t.start();
+        while (s.waiting() < 1) Thread.sleep(1);
+        t.interrupt();
+        Thread.sleep(20);
+        assertTrue(t.isAlive());
+
+        s.onPutApplied(2L);
+        t.join(1000L);
+        assertTrue(result.get());
+        assertTrue(stillInterrupted.get());
+    }
+
+    @Test
+    void whenAppliedCompletesOnApply() throws Exception {
+        IndexedLamportSynchronizer s = new IndexedLamportSynchronizer();
+        CompletableFuture<Boolean> f = s.whenApplied(3L, Duration.ofSeconds(5));
+        assertFalse(f.isDone());
+
+        s.onPutApplied(2L);
+        assertFalse(f.isDone());
+        s.onPutApplied(3L);
+        assertTrue(f.get(1, TimeUnit.SECONDS));
+        assertTrue(s.whenApplied(3L, Duration.ZERO).isDone(), "already applied completes immediately");
+    }
+
+    @Test
+    void whenAppliedTimesOutWithFalse() throws Exception {
+        IndexedLamportSynchronizer s = new IndexedLamportSynchronizer();
+        CompletableFuture<Boolean> f = s.whenApplied(1L, Duration.ofMillis(20));
+        assertFalse(f.get(1, TimeUnit.SECONDS));
+        s.onPutApplied(1L); // completing a timed-out waiter is a no-op
+        assertFalse(f.get());
+        assertEquals(0, s.waiting(), "timed-out future is removed from the index");
+    }
+}
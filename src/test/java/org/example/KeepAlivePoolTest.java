@@ -0,0 +1,108 @@
+package org.example;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.example.NetTestUtils.waitForPortOpen;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Fills every worker of a small connection pool with idle keep-alive clients and checks that a new
+ * connection is still served well before the idle limit. The server runs in its own JVM, since the
+ * connection executor is configured once per process.
+ */
+class KeepAlivePoolTest {
+
+    private static final int POOL_THREADS = 4;
+
+    private Process server;
+    private final List<Socket> idle = new ArrayList<>();
+
+    @AfterEach
+    void stopServer() throws Exception {
+        for (Socket s : idle) s.close();
+        if (server != null) {
+            server.destroy();
+            if (!server.waitFor(10, TimeUnit.SECONDS)) server.destroyForcibly().waitFor();
+        }
+    }
+
+    @Test
+    void idleKeepAliveConnectionsDoNotStarveNewOnes() throws Exception {
+        int port;
+        try (ServerSocket ss = new ServerSocket(0)) { port = ss.getLocalPort(); }
+        Path dir = Files.createTempDirectory("keepalive-pool");
+        ProcessBuilder pb = new ProcessBuilder(
+                System.getProperty("java.home") + File.separator + "bin" + File.separator + "java",
+                "-Dagg.connections.mode=pool", "-Dagg.connections.poolThreads=" + POOL_THREADS,
+                "-Dagg.keepAlive.idleMs=5000",
+                "-cp", System.getProperty("java.class.path"),
+                "org.example.server.AggregationServer", String.valueOf(port)).directory(dir.toFile());
+        pb.redirectErrorStream(true);
+        pb.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+        server = pb.start();
+        waitForPortOpen("localhost", port, 8000);
+
+        // Each client gets one keep-alive response, then sits idle holding its connection open
+        for (int i = 0; i < POOL_THREADS; i++) {
+            Socket s = new Socket("localhost", port);
+            idle.add(s);
+            s.setSoTimeout(3000);
+            s.getOutputStream().write(request("keep-alive"));
+            String resp = readResponse(s.getInputStream());
+            assertTrue(resp.startsWith("HTTP/1.1 200") && resp.contains("Connection: keep-alive"), resp);
+        }
+
+        long t0 = System.nanoTime();
+        try (Socket s = new Socket("localhost", port)) {
+            s.setSoTimeout(3000);
+            s.getOutputStream().write(request("close"));
+            String resp = readResponse(s.getInputStream());
+            assertTrue(resp.startsWith("HTTP/1.1 200"), resp);
+        }
+        long ms = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0);
+        assertTrue(ms < 2000, "new connection waited " + ms + " ms behind idle keep-alive clients");
+    }
+
+    /* -------------------- helpers -------------------- */
+
+    private static byte[] request(String connection) {
+        return ("GET /metrics HTTP/1.1\r\nHost: x\r\nConnection: " + connection + "\r\n\r\n")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** Reads one response (head plus Content-Length body) without waiting for the connection to close. */
+    private static String readResponse(InputStream in) throws IOException {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        int bodyAt = -1;
+        int length = 0;
+        while (bodyAt < 0 || buf.size() < bodyAt + length) {
+            int b = in.read();
+            if (b < 0) break;
+            buf.write(b);
+            if (bodyAt < 0 && buf.toString(StandardCharsets.ISO_8859_1).endsWith("\r\n\r\n")) {
+                String head = buf.toString(StandardCharsets.ISO_8859_1);
+                bodyAt = buf.size();
+                for (String line : head.split("\r\n")) {
+                    if (line.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+                        length = Integer.parseInt(line.substring(15).trim());
+                    }
+                }
+            }
+        }
+        return buf.toString(StandardCharsets.UTF_8);
+    }
+}
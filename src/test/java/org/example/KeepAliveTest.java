@@ -0,0 +1,103 @@
+package org.example;
+
+import org.example.server.AggregationServer;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import static org.example.NetTestUtils.waitForPortOpen;
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeepAliveTest {
+
+    private static int port;
+
+    @BeforeAll
+    static void startServer() throws Exception {
+        try (ServerSocket ss = new ServerSocket(0)) { port = ss.getLocalPort(); }
+        Thread t = new Thread(() -> {
+            try { AggregationServer.main(new String[]{ String.valueOf(port) }); }
+            catch (Exception ignored) {}
+        }, "agg-keepalive-test");
+        t.setDaemon(true);
+        t.start();
+        waitForPortOpen("localhost", port, 5000);
+    }
+
+    @Test
+    void sequentialRequestsReuseTheSocket() throws Exception {
+        try (Socket s = new Socket("localhost", port)) {
+            OutputStream out = s.getOutputStream();
+            InputStream in = s.getInputStream();
+
+            out.write(put("KA-1", false));
+            out.flush();
+            String first = readOneResponse(in);
+            assertTrue(first.startsWith("HTTP/1.1 20"), first);
+            assertTrue(first.contains("Connection: keep-alive"), first);
+
+            out.write(put("KA-1", true));
+            out.flush();
+            String second = readOneResponse(in);
+            assertTrue(second.startsWith("HTTP/1.1 200"), second);
+            assertTrue(second.contains("Connection: close"), second);
+            assertEquals(-1, in.read(), "server must close after Connection: close");
+        }
+    }
+
+    @Test
+    void pipelinedRequestsAreAnsweredInOrder() throws Exception {
+        try (Socket s = new Socket("localhost", port)) {
+            ByteArrayOutputStream batch = new ByteArrayOutputStream();
+            batch.write(put("KA-2", false));
+            batch.write("GET /nope HTTP/1.1\r\nHost: x\r\n\r\n".getBytes(StandardCharsets.UTF_8));
+            s.getOutputStream().write(batch.toByteArray());
+            s.getOutputStream().flush();
+
+            String all = new String(s.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            int second = all.indexOf("HTTP/1.1 400");
+            assertTrue(all.startsWith("HTTP/1.1 20"), all);
+            assertTrue(second > 0, "pipelined 400 must follow the PUT response:\n" + all);
+        }
+    }
+
+    @Test
+    void http10DefaultsToClose() throws Exception {
+        try (Socket s = new Socket("localhost", port)) {
+            s.getOutputStream().write("GET /nope HTTP/1.0\r\n\r\n".getBytes(StandardCharsets.UTF_8));
+            String resp = new String(s.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            assertTrue(resp.contains("Connection: close"), resp);
+        }
+    }
+
+    // ---- helpers ----
+    private static byte[] put(String id, boolean close) {
+        String body = "{\"id\":\"" + id + "\"}";
+        return ("PUT /weather.json HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "X-Lamport-Clock: 1\r\n" +
+                (close ? "Connection: close\r\n" : "") +
+                "Content-Length: " + body.length() + "\r\n\r\n" + body).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** Reads exactly one response (all tests here use bodiless responses: Content-Length: 0). */
+    private static String readOneResponse(InputStream in) throws Exception {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        int state = 0, b;
+        while ((b = in.read()) != -1) {
+            buf.write(b);
+            if (state == 0 && b == '\r') state = 1;
+            else if (state == 1 && b == '\n') state = 2;
+            else if (state == 2 && b == '\r') state = 3;
+            else if (state == 3 && b == '\n') break;
+            else state = 0;
+        }
+        return buf.toString(StandardCharsets.UTF_8);
+    }
+}
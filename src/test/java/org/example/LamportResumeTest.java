@@ -0,0 +1,115 @@
+package org.example;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.example.NetTestUtils.waitForPortOpen;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Restarts a server process on the same snapshot directory and checks that its Lamport clock resumes
+ * past the last applied PUT. Each server runs in its own JVM, since the server's state is static.
+ */
+class LamportResumeTest {
+
+    private Process server;
+    private int port;
+
+    @AfterEach
+    void stopServer() throws Exception {
+        stop();
+    }
+
+    @Test
+    void clockResumesPastTheOnlyAppliedPutAfterRestart() throws Exception {
+        assertClockResumes("file");
+    }
+
+    @Test
+    void clockResumesWithWriteAheadLogStore() throws Exception {
+        assertClockResumes("wal");
+    }
+
+    @Test
+    void clockResumesWithMappedStore() throws Exception {
+        assertClockResumes("mmap");
+    }
+
+    /* -------------------- helpers -------------------- */
+
+    private void assertClockResumes(String store) throws Exception {
+        Path dir = Files.createTempDirectory("lamport-resume");
+
+        start(dir, store);
+        assertTrue(send(put("RESUME-1", 100L)).startsWith("HTTP/1.1 201"));
+        // A GET at the PUT's timestamp returns once it is applied, i.e. once its snapshot is written
+        assertTrue(send(get(100L)).contains("RESUME-1"));
+        stop();
+
+        start(dir, store);
+        String next = send(put("RESUME-2", 0L));
+        assertTrue(next.startsWith("HTTP/1.1 201"), next);
+        assertTrue(lamportOf(next) > 100L, "clock must resume past the applied PUT:\n" + next);
+    }
+
+    private void start(Path dir, String store) throws Exception {
+        try (ServerSocket ss = new ServerSocket(0)) { port = ss.getLocalPort(); }
+        List<String> cmd = new ArrayList<>(List.of(
+                System.getProperty("java.home") + File.separator + "bin" + File.separator + "java",
+                "-Dagg.store=" + store, "-cp", System.getProperty("java.class.path"),
+                "org.example.server.AggregationServer", String.valueOf(port)));
+        ProcessBuilder pb = new ProcessBuilder(cmd).directory(dir.toFile());
+        pb.redirectErrorStream(true);
+        pb.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+        server = pb.start();
+        waitForPortOpen("localhost", port, 8000);
+    }
+
+    private void stop() throws Exception {
+        if (server == null) return;
+        server.destroy(); // graceful: shutdown hooks run
+        if (!server.waitFor(10, TimeUnit.SECONDS)) server.destroyForcibly().waitFor();
+        server = null;
+    }
+
+    private static byte[] put(String id, long lamport) {
+        String json = "{\"id\":\"" + id + "\"}";
+        String clock = (lamport > 0) ? "X-Lamport-Clock: " + lamport + "\r\nX-Lamport-Node: CS-1\r\n" : "";
+        return ("PUT /weather.json HTTP/1.1\r\nHost: x\r\nConnection: close\r\n" + clock +
+                "Content-Length: " + json.length() + "\r\n\r\n" + json).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] get(long lamport) {
+        return ("GET /weather.json HTTP/1.1\r\nHost: x\r\nConnection: close\r\nX-Lamport-Clock: " + lamport +
+                "\r\n\r\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static long lamportOf(String response) {
+        for (String line : response.split("\r\n")) {
+            if (line.startsWith("X-Lamport-Clock:")) return Long.parseLong(line.substring(16).trim());
+        }
+        return fail("no X-Lamport-Clock header:\n" + response);
+    }
+
+    private String send(byte[] request) throws Exception {
+        try (Socket s = new Socket("localhost", port)) {
+            OutputStream out = s.getOutputStream();
+            InputStream in = s.getInputStream();
+            out.write(request);
+            out.flush();
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package org.example;
+
+import org.example.client.LoadGenerator;
+import org.example.server.AggregationServer;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.net.ServerSocket;
+
+import static org.example.NetTestUtils.waitForPortOpen;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadGeneratorTest {
+
+    private static int port;
+
+    @BeforeAll
+    static void startServer() throws Exception {
+        try (ServerSocket ss = new ServerSocket(0)) { port = ss.getLocalPort(); }
+        Thread t = new Thread(() -> {
+            try { AggregationServer.main(new String[]{ String.valueOf(port) }); }
+            catch (Exception ignored) {}
+        }, "agg-load-test");
+        t.setDaemon(true);
+        t.start();
+        waitForPortOpen("localhost", port, 5000);
+    }
+
+    @Test
+    void openLoopRunSendsTheScheduleAndReportsOrderedPercentiles() throws Exception {
+        LoadGenerator.Config cfg = new LoadGenerator.Config(40, 1, 0, 100, 4, 3);
+        LoadGenerator.Report report = LoadGenerator.run("localhost", port, cfg);
+
+        LoadGenerator.OpStats put = report.ops().get(LoadGenerator.Op.PUT);
+        assertEquals(40, put.responses() + put.failures(), report.toString()); // 40 req/s for 1 s
+        assertEquals(0, put.failures(), report.toString());
+        assertEquals(0, put.non2xx(), report.toString());
+        assertEquals(0, report.ops().get(LoadGenerator.Op.GET).responses());
+        assertTrue(report.throughput() > 0, report.toString());
+
+        long[] c = put.corrected();
+        long[] s = put.service();
+        for (int i = 1; i < c.length; i++) assertTrue(c[i - 1] <= c[i]);
+        // Latency from the due time can never be shorter than from the actual send
+        assertTrue(c[c.length - 1] >= s[s.length - 1], report.toString());
+        assertTrue(report.toString().contains("corrected"), report.toString());
+    }
+
+    @Test
+    void percentileUsesNearestRank() throws Exception {
+        Method p = LoadGenerator.class.getDeclaredMethod("percentile", long[].class, double.class);
+        p.setAccessible(true);
+        long[] sorted = new long[1000];
+        for (int i = 0; i < sorted.length; i++) sorted[i] = i + 1;
+
+        assertEquals(500L, p.invoke(null, sorted, 0.50));
+        assertEquals(990L, p.invoke(null, sorted, 0.99));
+        assertEquals(999L, p.invoke(null, sorted, 0.999));
+        assertEquals(1000L, p.invoke(null, sorted, 1.0));
+        assertEquals(1L, p.invoke(null, sorted, 0.0));
+        assertEquals(0L, p.invoke(null, new long[0], 0.5));
+    }
+
+    @Test
+    void invalidConfigIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new LoadGenerator.Config(0, 1, 0, 50, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new LoadGenerator.Config(10, 1, 0, 101, 1, 1));
+    }
+}
@@ -0,0 +1,140 @@
+package org.example;
+
+import org.example.persistance.LogSnapshotStore;
+import org.example.util.MetricsRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogSnapshotStoreTest {
+
+    @TempDir Path tmp;
+
+    private LogSnapshotStore open(LogSnapshotStore.Fsync fsync, long checkpointBytes) {
+        return new LogSnapshotStore(tmp, "weather", fsync, 10L, checkpointBytes, new MetricsRegistry());
+    }
+
+    @Test
+    void restartReplaysLogToNewestState() {
+        LogSnapshotStore store = open(LogSnapshotStore.Fsync.ALWAYS, 1L << 20);
+        assertNull(store.load());
+        store.save("[{\"id\":\"A\"}]");
+        store.save("[{\"id\":\"A\"},{\"id\":\"B\"}]");
+        store.close();
+
+        LogSnapshotStore reopened = open(LogSnapshotStore.Fsync.OS, 1L << 20);
+        assertEquals("[{\"id\":\"A\"},{\"id\":\"B\"}]", reopened.load());
+        reopened.save("[{\"id\":\"C\"}]"); // appends after the replayed records
+        reopened.close();
+        assertEquals("[{\"id\":\"C\"}]", open(LogSnapshotStore.Fsync.OS, 1L << 20).load());
+    }
+
+    @Test
+    void lamportIsRecordedPerRecordAndSurvivesCheckpoint() {
+        LogSnapshotStore store = open(LogSnapshotStore.Fsync.ALWAYS, 1L << 20);
+        assertEquals(0L, store.lastAppliedLamport());
+        store.save("{\"id\":\"A\"}", 7L);
+        store.save("{\"id\":\"B\"}", 12L);
+        store.close();
+        assertEquals(12L, open(LogSnapshotStore.Fsync.OS, 1L << 20).lastAppliedLamport());
+
+        LogSnapshotStore cp = open(LogSnapshotStore.Fsync.OS, 1L); // every save checkpoints
+        cp.save("{\"id\":\"C\"}", 20L);
+        cp.save("{\"id\":\"C\"}"); // an untracked save keeps the recorded timestamp
+        cp.close();
+        assertEquals(20L, open(LogSnapshotStore.Fsync.OS, 1L << 20).lastAppliedLamport());
+    }
+
+    @Test
+    void tornTailIsIgnoredAndTruncated() throws IOException {
+        LogSnapshotStore store = open(LogSnapshotStore.Fsync.ALWAYS, 1L << 20);
+        store.save("{\"id\":\"OK\"}");
+        store.save("{\"id\":\"TORN\"}");
+        store.close();
+
+        Path wal = tmp.resolve("weather.wal");
+        long full = Files.size(wal);
+        try (FileChannel ch = FileChannel.open(wal, StandardOpenOption.WRITE)) {
+            ch.truncate(full - 3); // crash in the middle of the second append
+        }
+
+        LogSnapshotStore reopened = open(LogSnapshotStore.Fsync.ALWAYS, 1L << 20);
+        assertEquals("{\"id\":\"OK\"}", reopened.load());
+        reopened.save("{\"id\":\"NEXT\"}");
+        reopened.close();
+        assertEquals("{\"id\":\"NEXT\"}", open(LogSnapshotStore.Fsync.OS, 1L << 20).load());
+    }
+
+    @Test
+    void corruptRecordStopsReplay() throws IOException {
+        LogSnapshotStore store = open(LogSnapshotStore.Fsync.ALWAYS, 1L << 20);
+        store.save("{\"id\":\"GOOD\"}");
+        store.save("{\"id\":\"FLIP\"}");
+        store.close();
+
+        Path wal = tmp.resolve("weather.wal");
+        byte[] bytes = Files.readAllBytes(wal);
+        bytes[bytes.length - 3] ^= 0x20; // bit rot inside the last payload
+        Files.write(wal, bytes);
+
+        assertEquals("{\"id\":\"GOOD\"}", open(LogSnapshotStore.Fsync.OS, 1L << 20).load());
+    }
+
+    @Test
+    void recordsLargerThanTheReadBufferReplayAndStopAtCorruption() throws IOException {
+        LogSnapshotStore store = open(LogSnapshotStore.Fsync.OS, 1L << 30);
+        String first = "{\"id\":\"BIG-1\",\"pad\":\"" + "a".repeat(200_000) + "\"}";
+        String second = "{\"id\":\"BIG-2\",\"pad\":\"" + "b".repeat(300_000) + "\"}";
+        store.save(first, 1L);
+        store.save(second, 2L);
+        store.save("{\"id\":\"BIG-3\",\"pad\":\"" + "c".repeat(150_000) + "\"}", 3L);
+        store.close();
+
+        Path wal = tmp.resolve("weather.wal");
+        long full = Files.size(wal);
+        try (FileChannel ch = FileChannel.open(wal, StandardOpenOption.WRITE)) {
+            ch.write(ByteBuffer.wrap(new byte[]{'X'}), full - 100_000); // deep inside the last record
+        }
+
+        LogSnapshotStore reopened = open(LogSnapshotStore.Fsync.OS, 1L << 30);
+        assertEquals(second, reopened.load());
+        assertEquals(2L, reopened.lastAppliedLamport());
+        reopened.close();
+        assertTrue(Files.size(wal) < full - 150_000, "corrupt tail is truncated");
+    }
+
+    @Test
+    void checkpointTruncatesLogAndSurvivesRestart() throws IOException {
+        LogSnapshotStore store = open(LogSnapshotStore.Fsync.INTERVAL, 64L);
+        for (int i = 0; i < 10; i++) store.save("{\"id\":\"S" + i + "\",\"pad\":\"xxxxxxxxxxxxxxxxxxxx\"}");
+        store.save("{\"id\":\"TAIL\"}");
+        store.close();
+
+        assertTrue(Files.exists(tmp.resolve("weather.ckpt")));
+        assertTrue(Files.size(tmp.resolve("weather.wal")) < 64L);
+        assertEquals("{\"id\":\"TAIL\"}", open(LogSnapshotStore.Fsync.OS, 64L).load());
+    }
+
+    @Test
+    void staleLogRecordsBehindCheckpointAreSkipped() throws IOException {
+        LogSnapshotStore store = open(LogSnapshotStore.Fsync.ALWAYS, 1L << 20);
+        store.save("{\"id\":\"OLD\"}");
+        store.close();
+        byte[] staleLog = Files.readAllBytes(tmp.resolve("weather.wal"));
+
+        LogSnapshotStore cp = open(LogSnapshotStore.Fsync.ALWAYS, 1L);
+        cp.save("{\"id\":\"NEW\"}"); // checkpoints immediately
+        cp.close();
+        Files.write(tmp.resolve("weather.wal"), staleLog); // crash before the log was truncated
+
+        assertEquals("{\"id\":\"NEW\"}", open(LogSnapshotStore.Fsync.OS, 1L << 20).load());
+    }
+}
@@ -0,0 +1,108 @@
+package org.example;
+
+import org.example.persistance.LogSnapshotStore;
+import org.example.persistance.MappedSnapshotStore;
+import org.example.util.MetricsRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedSnapshotStoreTest {
+
+    @TempDir Path tmp;
+
+    private MappedSnapshotStore open(long segmentBytes) {
+        return new MappedSnapshotStore(tmp, "weather", segmentBytes, LogSnapshotStore.Fsync.ALWAYS, 10L,
+                new MetricsRegistry());
+    }
+
+    @Test
+    void restartFindsNewestRecordAndKeepsAppending() {
+        MappedSnapshotStore store = open(4096);
+        assertNull(store.load());
+        store.save("[{\"id\":\"A\"}]");
+        store.save("[{\"id\":\"A\"},{\"id\":\"Ü\"}]"); // multi-byte UTF-8
+        store.close();
+
+        MappedSnapshotStore reopened = open(4096);
+        assertEquals("[{\"id\":\"A\"},{\"id\":\"Ü\"}]", reopened.load());
+        reopened.save("{\"id\":\"C\"}");
+        reopened.close();
+        assertEquals("{\"id\":\"C\"}", open(4096).load());
+    }
+
+    @Test
+    void lamportIsRecordedPerRecordAndSurvivesRestart() {
+        MappedSnapshotStore store = open(1024);
+        assertEquals(0L, store.lastAppliedLamport());
+        store.save("{\"id\":\"A\"}", 7L);
+        store.save("{\"big\":\"" + "y".repeat(2000) + "\"}", 12L); // rolls to a new segment
+        store.close();
+
+        MappedSnapshotStore reopened = open(1024);
+        assertEquals(12L, reopened.lastAppliedLamport());
+        reopened.save("{\"id\":\"B\"}"); // an untracked save keeps the recorded timestamp
+        reopened.close();
+        assertEquals(12L, open(1024).lastAppliedLamport());
+    }
+
+    @Test
+    void segmentsRollOverAndOnlyTheLastTwoAreKept() throws IOException {
+        MappedSnapshotStore store = open(1024);
+        String pad = "x".repeat(300);
+        for (int i = 0; i < 20; i++) store.save("{\"id\":\"S" + i + "\",\"pad\":\"" + pad + "\"}");
+        store.save("{\"big\":\"" + "y".repeat(5000) + "\"}"); // larger than a segment: gets its own
+        store.close();
+
+        List<Path> segments = segments();
+        assertEquals(2, segments.size(), segments.toString());
+        long rolled = Files.size(segments.get(1));
+        assertTrue(rolled > 5000 && rolled < 2 * 5000, "sized to the encoded bytes, not 3 per char: " + rolled);
+        assertTrue(open(1024).load().startsWith("{\"big\":\"yyy"));
+    }
+
+    @Test
+    void tornLastRecordIsSkippedAndOverwritten() throws IOException {
+        MappedSnapshotStore store = open(4096);
+        store.save("{\"id\":\"GOOD\"}");
+        store.save("{\"id\":\"TORN\"}");
+        store.close();
+
+        Path seg = segments().get(0);
+        corruptLastPayload(seg);
+
+        MappedSnapshotStore reopened = open(4096);
+        assertEquals("{\"id\":\"GOOD\"}", reopened.load());
+        reopened.save("{\"id\":\"NEW\"}");
+        reopened.close();
+        assertEquals("{\"id\":\"NEW\"}", open(4096).load());
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> s = Files.list(tmp)) {
+            return s.filter(p -> p.getFileName().toString().endsWith(".mseg")).sorted().toList();
+        }
+    }
+
+    /** Flips a byte inside the last record's payload (found via its footer). */
+    private static void corruptLastPayload(Path seg) throws IOException {
+        try (FileChannel ch = FileChannel.open(seg, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer all = ByteBuffer.allocate((int) ch.size());
+            ch.read(all, 0);
+            int end = all.capacity();
+            while (all.getLong(end - 8) == 0L) end -= 8;
+            int start = end - all.getInt(end - 8);
+            ch.write(ByteBuffer.wrap(new byte[]{(byte) (all.get(start + 26) ^ 0x20)}), start + 26);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.example;
+
+import org.example.server.AggregationServer;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.example.NetTestUtils.waitForPortOpen;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsEndpointTest {
+
+    private static int port;
+
+    @BeforeAll
+    static void startServer() throws Exception {
+        try (ServerSocket ss = new ServerSocket(0)) { port = ss.getLocalPort(); }
+        Thread t = new Thread(() -> {
+            try { AggregationServer.main(new String[]{ String.valueOf(port) }); }
+            catch (Exception ignored) {}
+        }, "agg-metrics-test");
+        t.setDaemon(true);
+        t.start();
+        waitForPortOpen("localhost", port, 5000);
+    }
+
+    @Test
+    void metricsReflectPutsAndApplies() throws Exception {
+        String json = "{\"id\":\"MET-" + System.nanoTime() + "\"}";
+        String put = "PUT /weather.json HTTP/1.1\r\nConnection: close\r\nContent-Length: " + json.length() +
+                "\r\n\r\n" + json;
+        assertTrue(send(put).startsWith("HTTP/1.1 20"));
+
+        String resp = "";
+        for (int i = 0; i < 50 && value(resp, "agg_apply_delay_seconds_count") < 1; i++) {
+            resp = send("GET /metrics HTTP/1.1\r\nConnection: close\r\n\r\n");
+            Thread.sleep(20);
+        }
+        assertTrue(resp.startsWith("HTTP/1.1 200"), resp);
+        assertTrue(resp.contains("Content-Type: text/plain; version=0.0.4"), resp);
+        assertTrue(value(resp, "agg_request_seconds_count{route=\"put\"}") >= 1, resp);
+        assertTrue(value(resp, "agg_apply_delay_seconds_count") >= 1, resp);
+        assertTrue(value(resp, "agg_snapshot_save_seconds_count") >= 1, resp);
+        assertTrue(resp.contains("\nagg_apply_queue_depth "), resp);
+        assertTrue(resp.contains("# TYPE agg_apply_batches_total counter\n"), resp);
+        assertEquals(256, value(resp, "agg_apply_batch_max{shard=\"0\"}"), resp);
+        assertTrue(value(resp, "agg_apply_batch_size_largest{shard=\"0\"}") >= 1, resp);
+        assertTrue(resp.contains("\nagg_apply_batch_size_mean{shard=\"0\"} "), resp);
+        assertTrue(value(resp, "agg_apply_batch_size_count") >= 1, resp);
+        assertTrue(value(resp, "agg_apply_queue_backlog_count") >= 1, resp);
+        assertTrue(resp.contains("\nagg_apply_shard_queue_depth{shard=\"0\"} "), resp);
+        assertTrue(resp.contains("# TYPE agg_get_catch_up_timeouts_total counter"), resp);
+    }
+
+    /** Value of the first sample whose series is exactly {@code series}, or -1. */
+    private static long value(String text, String series) {
+        Matcher m = Pattern.compile("\n" + Pattern.quote(series) + " (\\d+)").matcher(text);
+        return m.find() ? Long.parseLong(m.group(1)) : -1L;
+    }
+
+    private static String send(String raw) throws Exception {
+        try (Socket s = new Socket("localhost", port)) {
+            OutputStream out = s.getOutputStream();
+            InputStream in = s.getInputStream();
+            out.write(raw.getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package org.example;
+
+import org.example.util.CountHistogram;
+import org.example.util.LatencyHistogram;
+import org.example.util.MetricsRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsRegistryTest {
+
+    @Test
+    void histogramUsesPowerOfTwoMicrosecondBuckets() {
+        LatencyHistogram h = new LatencyHistogram();
+        h.record(500);            // ≤ 1 µs
+        h.record(3_000);          // ≤ 4 µs
+        h.record(4_000);          // ≤ 4 µs
+        h.record(1_000_000);      // ≤ 1024 µs
+        h.record(Long.MAX_VALUE); // overflow
+
+        assertEquals(1, h.countAt(0));
+        assertEquals(2, h.countAt(2));
+        assertEquals(1, h.countAt(10));
+        assertEquals(1, h.countAt(LatencyHistogram.BUCKETS));
+        assertEquals(5, h.count());
+        assertEquals(4_000L, h.quantileNanos(0.5));
+        assertEquals(1_024_000L, h.quantileNanos(0.8));
+    }
+
+    @Test
+    void rendersPrometheusTextFormat() {
+        MetricsRegistry m = new MetricsRegistry();
+        LongAdder hits = m.counter("t_hits_total", "route=\"a\"", "Hits");
+        assertSame(hits, m.counter("t_hits_total", "route=\"a\"", "Hits"), "re-registering returns the same counter");
+        hits.add(3);
+        m.gauge("t_depth", "", "Depth", () -> 7L);
+        m.counter("t_batches_total", "", "Batches", () -> 11L);
+        m.doubleGauge("t_mean", "shard=\"0\"", "Mean", () -> 2.5);
+        LatencyHistogram h = m.histogram("t_seconds", "route=\"a\"", "Latency");
+        h.record(2_000);
+        h.record(2_000_000_000L);
+
+        String text = m.render();
+        assertTrue(text.contains("# HELP t_hits_total Hits\n# TYPE t_hits_total counter\n"), text);
+        assertTrue(text.contains("t_hits_total{route=\"a\"} 3\n"), text);
+        assertTrue(text.contains("# TYPE t_depth gauge\nt_depth 7\n"), text);
+        assertTrue(text.contains("# TYPE t_batches_total counter\nt_batches_total 11\n"), text);
+        assertTrue(text.contains("# TYPE t_mean gauge\nt_mean{shard=\"0\"} 2.5\n"), text);
+        assertTrue(text.contains("# TYPE t_seconds histogram\n"), text);
+        assertTrue(text.contains("t_seconds_bucket{route=\"a\",le=\"2.0E-6\"} 1\n"), text);
+        assertTrue(text.contains("t_seconds_bucket{route=\"a\",le=\"+Inf\"} 2\n"), text);
+        assertTrue(text.contains("t_seconds_count{route=\"a\"} 2\n"), text);
+        assertTrue(text.contains("t_seconds_sum{route=\"a\"} 2.000002\n"), text);
+        assertThrows(IllegalArgumentException.class, () -> m.histogram("t_depth", "", "clash"));
+    }
+
+    @Test
+    void countHistogramRendersPlainUnitBuckets() {
+        MetricsRegistry m = new MetricsRegistry();
+        CountHistogram h = m.countHistogram("t_batch_size", "", "Batch size");
+        h.record(1);
+        h.record(3);
+        h.record(4);
+        h.record(300);
+        assertEquals(1, h.countAt(0));
+        assertEquals(2, h.countAt(2));
+        assertEquals(1, h.countAt(9));
+
+        String text = m.render();
+        assertTrue(text.contains("# TYPE t_batch_size histogram\n"), text);
+        assertTrue(text.contains("t_batch_size_bucket{le=\"4\"} 3\n"), text);
+        assertTrue(text.contains("t_batch_size_bucket{le=\"+Inf\"} 4\n"), text);
+        assertTrue(text.contains("t_batch_size_sum 308\n"), text);
+        assertTrue(text.contains("t_batch_size_count 4\n"), text);
+    }
+}
@@ -0,0 +1,107 @@
+package org.example;
+
+import org.example.util.MpscApplyQueue;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MpscApplyQueueTest {
+
+    @Test
+    void pollReturnsSmallestOfEverythingQueued() {
+        MpscApplyQueue<Long> q = new MpscApplyQueue<>(Comparator.naturalOrder());
+        q.offer(30L);
+        q.offer(10L);
+        q.offer(20L);
+        assertEquals(3, q.size());
+        assertEquals(10L, q.poll(0));
+        assertEquals(20L, q.poll(0));
+        assertEquals(30L, q.poll(0));
+        assertNull(q.poll(0));
+        assertEquals(0, q.size());
+    }
+
+    @Test
+    void parkedConsumerIsWokenByOffer() throws Exception {
+        MpscApplyQueue<Long> q = new MpscApplyQueue<>(Comparator.naturalOrder());
+        long[] waitedMs = new long[1];
+        Long[] got = new Long[1];
+        Thread consumer = new Thread(() -> {
+            long t0 = System.nanoTime();
+            got[0] = q.poll(5_000);
+            waitedMs[0] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0);
+        });
+        consumer.start();
+        Thread.sleep(100);
+        q.offer(7L);
+        consumer.join(5_000);
+
+        assertEquals(7L, got[0]);
+        assertTrue(waitedMs[0] < 2_000, "consumer should be unparked, waited " + waitedMs[0] + "ms");
+    }
+
+    @Test
+    void pollTimesOutWhenEmpty() {
+        MpscApplyQueue<Long> q = new MpscApplyQueue<>(Comparator.naturalOrder());
+        long t0 = System.nanoTime();
+        assertNull(q.poll(50));
+        assertTrue(System.nanoTime() - t0 >= TimeUnit.MILLISECONDS.toNanos(40));
+    }
+
+    @Test
+    void pollBatchTakesReadyItemsInOrderUpToMax() {
+        MpscApplyQueue<Long> q = new MpscApplyQueue<>(Comparator.naturalOrder());
+        for (long v : new long[] {5, 3, 9, 1, 7}) q.offer(v);
+
+        assertEquals(List.of(1L, 3L, 5L), q.pollBatch(3, 0, 0));
+        assertEquals(List.of(7L, 9L), q.pollBatch(10, 0, 0));
+        assertEquals(List.of(), q.pollBatch(10, 0, 0));
+        assertEquals(0, q.size());
+    }
+
+    @Test
+    void pollBatchLingersForLateArrivals() throws Exception {
+        MpscApplyQueue<Long> q = new MpscApplyQueue<>(Comparator.naturalOrder());
+        q.offer(10L);
+        Thread late = new Thread(() -> {
+            try { Thread.sleep(20); } catch (InterruptedException ignored) { }
+            q.offer(2L); // lower timestamp arriving during the linger must come out first
+        });
+        late.start();
+
+        assertEquals(List.of(2L, 10L), q.pollBatch(2, 1_000, 2_000));
+        late.join();
+    }
+
+    @Test
+    void manyProducersLoseNothing() throws Exception {
+        MpscApplyQueue<Long> q = new MpscApplyQueue<>(Comparator.naturalOrder());
+        int producers = 16;
+        int each = 5_000;
+        CountDownLatch start = new CountDownLatch(1);
+        for (int p = 0; p < producers; p++) {
+            long base = (long) p * each;
+            Thread t = new Thread(() -> {
+                try { start.await(); } catch (InterruptedException e) { return; }
+                for (int i = 0; i < each; i++) q.offer(base + i);
+            });
+            t.setDaemon(true);
+            t.start();
+        }
+        start.countDown();
+
+        Set<Long> seen = new HashSet<>();
+        while (seen.size() < producers * each) {
+            Long v = q.poll(5_000);
+            assertNotNull(v, "timed out after " + seen.size());
+            assertTrue(seen.add(v), "duplicate " + v);
+        }
+    }
+}
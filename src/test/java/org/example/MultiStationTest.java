@@ -0,0 +1,148 @@
+package org.example;
+
+import org.example.client.ContentServer;
+import org.example.client.GetClient;
+import org.example.http.GzipCodec;
+import org.example.server.AggregationServer;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+import static org.example.NetTestUtils.waitForPortOpen;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultiStationTest {
+
+    private static int port;
+
+    @BeforeAll
+    static void startServer() throws Exception {
+        try (ServerSocket ss = new ServerSocket(0)) { port = ss.getLocalPort(); }
+        Thread t = new Thread(() -> {
+            try { AggregationServer.main(new String[]{ String.valueOf(port) }); }
+            catch (Exception ignored) {}
+        }, "agg-multistation-test");
+        t.setDaemon(true);
+        t.start();
+        waitForPortOpen("localhost", port, 5000);
+    }
+
+    @Test
+    void feedAggregatesStationsAndQueryReturnsOne() throws Exception {
+        String a = "MS-A-" + System.nanoTime();
+        String b = "MS-B-" + System.nanoTime();
+
+        assertTrue(send(put(a, "Hobart")).startsWith("HTTP/1.1 201"), "new station → 201");
+        assertTrue(send(put(b, "Perth")).startsWith("HTTP/1.1 201"), "other new station → 201");
+
+        String all = send(get("/weather.json"));
+        assertTrue(all.startsWith("HTTP/1.1 200"), all);
+        String body = all.substring(all.indexOf("\r\n\r\n") + 4);
+        assertTrue(body.startsWith("[") && body.endsWith("]"), body);
+        assertTrue(body.contains(a) && body.contains(b), "feed must hold both stations:\n" + body);
+        String head = all.substring(0, all.indexOf("\r\n\r\n") + 2);
+        assertTrue(head.contains("\r\nVary: Accept-Encoding\r\n") && !head.contains("Content-Encoding"),
+                "identity feed must vary on Accept-Encoding:\n" + head);
+
+        String one = send(get("/weather.json?id=" + a));
+        assertTrue(one.startsWith("HTTP/1.1 200"), one);
+        assertTrue(one.contains("Hobart") && !one.contains("Perth"), one);
+
+        assertTrue(send(put(a, "Launceston")).startsWith("HTTP/1.1 200"), "existing station → 200");
+        String updated = send(get("/weather.json?id=" + a));
+        assertTrue(updated.contains("Launceston") && !updated.contains("Hobart"), updated);
+    }
+
+    @Test
+    void feedIsGzippedForClientsThatAcceptIt() throws Exception {
+        String id = "MS-GZ-" + System.nanoTime();
+        assertTrue(send(put(id, "Darwin " + "windy ".repeat(300))).startsWith("HTTP/1.1 2"));
+
+        byte[] raw = sendRaw(("GET /weather.json HTTP/1.1\r\nHost: x\r\nAccept-Encoding: gzip\r\n" +
+                "Connection: close\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        String head = new String(raw, StandardCharsets.ISO_8859_1);
+        int bodyAt = head.indexOf("\r\n\r\n") + 4;
+        assertTrue(head.startsWith("HTTP/1.1 200") && head.substring(0, bodyAt).contains("Content-Encoding: gzip"),
+                head.substring(0, bodyAt));
+        String body;
+        try (InputStream gz = new GZIPInputStream(new ByteArrayInputStream(raw, bodyAt, raw.length - bodyAt))) {
+            body = new String(gz.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        assertTrue(body.startsWith("[") && body.contains(id), body);
+        assertTrue(raw.length - bodyAt < body.length() / 2, "compressed body is smaller");
+
+        String plain = send(get("/weather.json"));
+        assertFalse(plain.contains("Content-Encoding"), "no gzip unless asked");
+        assertTrue(plain.contains("\r\nVary: Accept-Encoding\r\n"), plain);
+
+        String printed = new GetClient().fetch("localhost:" + port, "/weather.json");
+        assertTrue(printed.startsWith("200") && printed.contains(id), printed);
+    }
+
+    @Test
+    void gzipPutBodiesAreInflatedUnderACap() throws Exception {
+        String id = "MS-GZPUT-" + System.nanoTime();
+        Path file = Files.createTempFile("weather", ".txt");
+        Files.writeString(file, "id: " + id + "\ncity: Hobart\n", StandardCharsets.UTF_8);
+        ContentServer.main(new String[]{"localhost:" + port, file.toString(), "--gzip"});
+        String stored = send(get("/weather.json?id=" + id));
+        assertTrue(stored.startsWith("HTTP/1.1 200") && stored.contains("Hobart"), stored);
+
+        byte[] bomb = GzipCodec.compress(("{\"id\":\"" + id + "\",\"pad\":\"" + "0".repeat(2 << 20) + "\"}")
+                .getBytes(StandardCharsets.UTF_8));
+        assertTrue(bomb.length < 16 * 1024);
+        assertTrue(send(coded(bomb, "gzip")).startsWith("HTTP/1.1 413"));
+        assertTrue(send(coded("not gzip".getBytes(StandardCharsets.UTF_8), "gzip")).startsWith("HTTP/1.1 400"));
+        assertTrue(send(coded("{\"id\":\"x\"}".getBytes(StandardCharsets.UTF_8), "br")).startsWith("HTTP/1.1 415"));
+        assertTrue(send(coded("{\"id\":\"x\"}".getBytes(StandardCharsets.UTF_8), "identity")).startsWith("HTTP/1.1 2"));
+    }
+
+    @Test
+    void unknownStationIs404() throws Exception {
+        String resp = send(get("/weather.json?id=does-not-exist-" + System.nanoTime()));
+        assertTrue(resp.startsWith("HTTP/1.1 404"), resp);
+        assertTrue(resp.contains("unknown station") || resp.contains("no weather data") || resp.contains("expired"), resp);
+    }
+
+    private static byte[] put(String id, String city) {
+        String json = "{\"id\":\"" + id + "\",\"city\":\"" + city + "\"}";
+        return ("PUT /weather.json HTTP/1.1\r\nHost: x\r\nConnection: close\r\n" +
+                "Content-Length: " + json.length() + "\r\n\r\n" + json).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] coded(byte[] body, String encoding) {
+        byte[] head = ("PUT /weather.json HTTP/1.1\r\nHost: x\r\nConnection: close\r\nContent-Encoding: " + encoding +
+                "\r\nContent-Length: " + body.length + "\r\n\r\n").getBytes(StandardCharsets.UTF_8);
+        byte[] request = Arrays.copyOf(head, head.length + body.length);
+        System.arraycopy(body, 0, request, head.length, body.length);
+        return request;
+    }
+
+    private static byte[] get(String target) {
+        return ("GET " + target + " HTTP/1.1\r\nHost: x\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String send(byte[] request) throws Exception {
+        return new String(sendRaw(request), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] sendRaw(byte[] request) throws Exception {
+        try (Socket s = new Socket("localhost", port)) {
+            OutputStream out = s.getOutputStream();
+            InputStream in = s.getInputStream();
+            out.write(request);
+            out.flush();
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package org.example;
+
+import org.example.server.NioServerEngine;
+import org.example.util.BoundedConnectionExecutor;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import static org.example.NetTestUtils.waitForPortOpen;
+import static org.junit.jupiter.api.Assertions.*;
+
+class NioServerEngineTest {
+
+    private static int port;
+    private static NioServerEngine engine;
+
+    @BeforeAll
+    static void startEngine() throws Exception {
+        try (ServerSocket ss = new ServerSocket(0)) { port = ss.getLocalPort(); }
+        engine = new NioServerEngine(port, 2,
+                new BoundedConnectionExecutor(BoundedConnectionExecutor.Mode.POOL, 64, 8));
+        Thread t = new Thread(() -> {
+            try { engine.run(); } catch (Exception ignored) {}
+        }, "nio-engine-test");
+        t.setDaemon(true);
+        t.start();
+        waitForPortOpen("localhost", port, 5000);
+    }
+
+    @Test
+    void putArrivingInSlowChunksIsParsedIncrementally() throws Exception {
+        byte[] body = "{\"id\":\"NIO-1\",\"name\":\"Nio\"}".getBytes(StandardCharsets.UTF_8);
+        String head = "PUT /weather.json HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "X-Lamport-Clock: 3\r\n" +
+                "X-Lamport-Node: NIO-TEST\r\n" +
+                "Connection: close\r\n" +
+                "Content-Length: " + body.length + "\r\n\r\n";
+
+        try (Socket s = new Socket("localhost", port)) {
+            OutputStream out = s.getOutputStream();
+            byte[] h = head.getBytes(StandardCharsets.UTF_8);
+            out.write(h, 0, 10); out.flush(); Thread.sleep(30);   // split inside the request line
+            out.write(h, 10, h.length - 12); out.flush(); Thread.sleep(30); // split inside CRLFCRLF
+            out.write(h, h.length - 2, 2); out.write(body, 0, 5); out.flush(); Thread.sleep(30);
+            out.write(body, 5, body.length - 5); out.flush();
+
+            String resp = new String(s.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            assertTrue(resp.startsWith("HTTP/1.1 20"), resp);
+            assertTrue(resp.contains("X-Lamport-Clock:"), resp);
+        }
+    }
+
+    @Test
+    void unknownRouteAndEmptyRequestGet400() throws Exception {
+        assertTrue(send("GET /nope HTTP/1.1\r\nHost: x\r\n\r\n").startsWith("HTTP/1.1 400"));
+        assertTrue(send("\r\n\r\n").startsWith("HTTP/1.1 400"));
+    }
+
+    @Test
+    void invalidJsonGets500() throws Exception {
+        String resp = send("PUT /weather.json HTTP/1.1\r\nConnection: close\r\nContent-Length: 2\r\n\r\n{}");
+        assertTrue(resp.startsWith("HTTP/1.1 500"), resp);
+        assertTrue(resp.contains("invalid JSON"), resp);
+    }
+
+    @Test
+    void pipelinedRequestsShareOneConnectionInOrder() throws Exception {
+        String put = "PUT /weather.json HTTP/1.1\r\nX-Lamport-Clock: 4\r\nContent-Length: 14\r\n\r\n{\"id\":\"NIO-P\"}";
+        String last = "PUT /weather.json HTTP/1.1\r\nConnection: close\r\nContent-Length: 2\r\n\r\n{}";
+        String resp = send(put + put + last); // three requests in a single write
+
+        String[] parts = resp.split("HTTP/1.1 ", -1);
+        assertEquals(4, parts.length, resp); // leading "" + three responses
+        assertTrue(parts[1].startsWith("20") && parts[1].contains("Connection: keep-alive"), resp);
+        assertTrue(parts[2].startsWith("200") && parts[2].contains("Connection: keep-alive"), resp);
+        assertTrue(parts[3].startsWith("500") && parts[3].contains("Connection: close"), resp);
+    }
+
+    @Test
+    void getWaitsForCatchUpWithoutBlockingAndKeepsPipelineOrder() throws Exception {
+        String put = "PUT /weather.json HTTP/1.1\r\nX-Lamport-Clock: 5\r\nContent-Length: 14\r\n\r\n{\"id\":\"NIO-G\"}";
+        String get = "GET /weather.json?id=NIO-G HTTP/1.1\r\n\r\n";
+        String last = "GET /weather.json?id=NIO-G HTTP/1.1\r\nConnection: close\r\n\r\n";
+        String resp = send(put + get + last);
+
+        String[] parts = resp.split("HTTP/1.1 ", -1);
+        assertEquals(4, parts.length, resp);
+        assertTrue(parts[2].startsWith("200") && parts[2].contains("{\"id\":\"NIO-G\"}"), resp);
+        assertTrue(parts[2].contains("Connection: keep-alive"), resp);
+        assertTrue(parts[3].startsWith("200") && parts[3].contains("Connection: close"), resp);
+    }
+
+    @Test
+    void gzipFeedIsServedByTheNioEngine() throws Exception {
+        String json = "{\"id\":\"NIO-GZ\",\"pad\":\"" + "breezy ".repeat(400) + "\"}";
+        String put = "PUT /weather.json HTTP/1.1\r\nX-Lamport-Clock: 6\r\nContent-Length: " + json.length() +
+                "\r\n\r\n" + json;
+        String get = "GET /weather.json HTTP/1.1\r\nAccept-Encoding: gzip\r\nConnection: close\r\n\r\n";
+        String resp = send(put + get);
+
+        String[] parts = resp.split("HTTP/1.1 ", -1);
+        assertEquals(3, parts.length, resp);
+        assertTrue(parts[2].startsWith("200") && parts[2].contains("Content-Encoding: gzip"), parts[2]);
+    }
+
+    @Test
+    void declaredContentLengthDoesNotSizeTheReadBuffer() throws Exception {
+        String head = "PUT /weather.json HTTP/1.1\r\nConnection: close\r\nContent-Length: 8000000\r\n\r\n";
+        try (Socket s = new Socket("localhost", port)) {
+            OutputStream out = s.getOutputStream();
+            out.write(head.getBytes(StandardCharsets.UTF_8));
+            out.write(new byte[20_000]); // a sliver of the announced 8 MB body
+            out.flush();
+            Thread.sleep(200);
+            assertTrue(engine.readBufferBytes() < 1024 * 1024,
+                    "buffers grow with the bytes received, not the claim: " + engine.readBufferBytes());
+        }
+    }
+
+    private static String send(String raw) throws Exception {
+        try (Socket s = new Socket("localhost", port)) {
+            s.getOutputStream().write(raw.getBytes(StandardCharsets.UTF_8));
+            s.getOutputStream().flush();
+            InputStream in = s.getInputStream();
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
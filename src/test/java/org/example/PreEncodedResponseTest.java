@@ -0,0 +1,108 @@
+package org.example;
+
+import org.example.http.DefaultHttpHandler;
+import org.example.http.PreEncodedResponse;
+import org.example.interfaces.HttpHandler;
+import org.example.util.AtomicLamportClock;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PreEncodedResponseTest {
+
+    private static final String JSON = "{\"id\":\"IDS60901\",\"name\":\"Adelaide (West Terrace /  ngayirdapira)\",\"air_temp\":13.3,\"note\":\"°C\"}";
+
+    @Test
+    void bytesMatchWriteJsonForBothConnectionModes() throws IOException {
+        DefaultHttpHandler http = new DefaultHttpHandler();
+        PreEncodedResponse cached = new PreEncodedResponse(7L, HttpHandler.OK, JSON, "AGG", http);
+        assertEquals(7L, cached.version());
+
+        for (boolean keepAlive : new boolean[] {true, false}) {
+            AtomicLamportClock a = new AtomicLamportClock();
+            AtomicLamportClock b = new AtomicLamportClock();
+            a.update(123_456L);
+            b.update(123_456L);
+
+            ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            http.writeJson(expected, HttpHandler.OK, JSON, a, "AGG", keepAlive);
+            ByteArrayOutputStream actual = new ByteArrayOutputStream();
+            cached.writeTo(actual, b, keepAlive);
+
+            assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+            assertEquals(a.get(), b.get(), "clock ticked once per send");
+        }
+    }
+
+    @Test
+    void gzipTwinIsBuiltOnceAndInflatesToTheSameBody() throws IOException {
+        byte[][] parts = new byte[50][];
+        for (int i = 0; i < parts.length; i++) parts[i] = JSON.replace("IDS60901", "IDS" + i).getBytes(StandardCharsets.UTF_8);
+        PreEncodedResponse feed = PreEncodedResponse.jsonArray(3L, HttpHandler.OK, parts, "AGG", new DefaultHttpHandler());
+
+        PreEncodedResponse gz = feed.gzipped();
+        assertSame(gz, feed.gzipped(), "compressed once per response");
+        assertSame(gz, gz.gzipped());
+        assertEquals(3L, gz.version());
+        assertTrue(gz.bodyLength() < feed.bodyLength() / 4, gz.bodyLength() + " vs " + feed.bodyLength());
+
+        ByteArrayOutputStream identity = new ByteArrayOutputStream();
+        feed.writeTo(identity, new AtomicLamportClock(), true);
+        assertTrue(identity.toString(StandardCharsets.ISO_8859_1).contains("Content-Length: " + feed.bodyLength()
+                + "\r\nVary: Accept-Encoding\r\nConnection: keep-alive\r\n\r\n["), "identity feed varies too");
+
+        ByteArrayOutputStream wire = new ByteArrayOutputStream();
+        gz.writeTo(wire, new AtomicLamportClock(), false);
+        byte[] raw = wire.toByteArray();
+        String head = new String(raw, StandardCharsets.ISO_8859_1);
+        int bodyAt = head.indexOf("\r\n\r\n") + 4;
+        assertTrue(head.startsWith("HTTP/1.1 200 OK\r\n"));
+        assertTrue(head.contains("Content-Length: " + gz.bodyLength() + "\r\nContent-Encoding: gzip\r\n"
+                + "Vary: Accept-Encoding\r\nConnection: close\r\n\r\n"), head.substring(0, bodyAt));
+
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        feed.writeBody(plain);
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(raw, bodyAt, raw.length - bodyAt))) {
+            assertArrayEquals(plain.toByteArray(), in.readAllBytes());
+        }
+    }
+
+    @Test
+    void arrayLengthIsFixedAtConstructionAndBoundedByInt() {
+        byte[][] parts = {"{}".getBytes(StandardCharsets.UTF_8), "{\"a\":1}".getBytes(StandardCharsets.UTF_8)};
+        PreEncodedResponse feed = PreEncodedResponse.jsonArray(1L, HttpHandler.OK, parts, "AGG", new DefaultHttpHandler());
+        assertEquals("[{},{\"a\":1}]".length(), feed.bodyLength());
+
+        byte[] mib = new byte[1 << 20];
+        byte[][] huge = new byte[2048][];
+        Arrays.fill(huge, mib); // 2 GiB of body from one shared MiB
+        assertThrows(IllegalArgumentException.class,
+                () -> PreEncodedResponse.jsonArray(2L, HttpHandler.OK, huge, "AGG", new DefaultHttpHandler()));
+    }
+
+    @Test
+    void clockValueIsRenderedPerSend() throws IOException {
+        PreEncodedResponse cached = new PreEncodedResponse(1L, HttpHandler.NOT_FOUND, "{}", "AGG", new DefaultHttpHandler());
+        AtomicLamportClock clock = new AtomicLamportClock();
+
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        cached.writeTo(first, clock, true);
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        cached.writeTo(second, clock, true);
+
+        String s1 = first.toString(StandardCharsets.UTF_8);
+        String s2 = second.toString(StandardCharsets.UTF_8);
+        assertTrue(s1.startsWith("HTTP/1.1 404 Not Found\r\n"));
+        assertTrue(s1.contains("X-Lamport-Clock: 1\r\n"));
+        assertTrue(s2.contains("X-Lamport-Clock: 2\r\n"));
+        assertTrue(s2.endsWith("Content-Length: 2\r\nConnection: keep-alive\r\n\r\n{}"));
+    }
+}
@@ -0,0 +1,117 @@
+package org.example;
+
+import org.example.util.ShardedApplier;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedApplierTest {
+
+    private record Upd(String key, long ts) {}
+
+    @Test
+    void eachKeyIsAppliedInOrderAcrossShards() throws Exception {
+        int keys = 32;
+        int perKey = 200;
+        List<Upd> applied = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch all = new CountDownLatch(keys * perKey);
+
+        ShardedApplier<Upd> applier = new ShardedApplier<>("test-applier", 4,
+                Comparator.comparingLong(Upd::ts), Upd::key, Upd::ts, 64, 0L, 50L,
+                batch -> batch.forEach(u -> { applied.add(u); all.countDown(); }),
+                () -> { }, ts -> { });
+
+        assertEquals(4, applier.shardCount());
+        for (int i = 0; i < perKey; i++) {
+            for (int k = 0; k < keys; k++) applier.submit(new Upd("K" + k, i));
+        }
+        assertTrue(all.await(10, TimeUnit.SECONDS));
+
+        Map<String, Long> last = new HashMap<>();
+        synchronized (applied) {
+            for (Upd u : applied) {
+                Long prev = last.put(u.key(), u.ts());
+                assertTrue(prev == null || prev <= u.ts(), "out of order for " + u.key());
+            }
+        }
+        // The callback runs before the shard drops its pending count; wait for the last batch to settle
+        long until = System.currentTimeMillis() + 5_000;
+        while (applier.pending() > 0 && System.currentTimeMillis() < until) Thread.sleep(5);
+        assertEquals(0, applier.pending());
+        assertEquals(perKey - 1, applier.watermark());
+        long batches = applier.stats().stream().mapToLong(s -> s.batches()).sum();
+        assertTrue(batches > 0);
+    }
+
+    @Test
+    void watermarkWaitsForABusyShard() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch slowStarted = new CountDownLatch(1);
+        AtomicLong published = new AtomicLong();
+
+        // Keys "slow" and "fast" must land on different shards of 2
+        String slow = "a";
+        String fast = "b";
+        assertNotEquals(Math.floorMod(slow.hashCode(), 2), Math.floorMod(fast.hashCode(), 2));
+
+        ShardedApplier<Upd> applier = new ShardedApplier<>("test-watermark", 2,
+                Comparator.comparingLong(Upd::ts), Upd::key, Upd::ts, 16, 0L, 50L,
+                batch -> {
+                    if (batch.get(0).key().equals(slow)) {
+                        slowStarted.countDown();
+                        release.await();
+                    }
+                },
+                () -> { }, ts -> published.accumulateAndGet(ts, Math::max));
+
+        applier.submit(new Upd(slow, 5));
+        assertTrue(slowStarted.await(5, TimeUnit.SECONDS));
+        applier.submit(new Upd(fast, 9));
+
+        long until = System.currentTimeMillis() + 2_000;
+        while (applier.pending() > 1 && System.currentTimeMillis() < until) Thread.sleep(5);
+        assertEquals(1, applier.pending());
+        assertTrue(published.get() < 5, "must not pass the busy shard, got " + published.get());
+
+        release.countDown();
+        until = System.currentTimeMillis() + 2_000;
+        while (published.get() < 9 && System.currentTimeMillis() < until) Thread.sleep(5);
+        assertEquals(9, published.get());
+    }
+
+    @Test
+    void tasksRunOnTheKeysShardBetweenBatches() throws Exception {
+        Map<String, String> applyThread = new ConcurrentHashMap<>();
+        ShardedApplier<Upd> applier = new ShardedApplier<>("test-tasks", 4,
+                Comparator.comparingLong(Upd::ts), Upd::key, Upd::ts, 16, 0L, 20L,
+                batch -> batch.forEach(u -> applyThread.put(u.key(), Thread.currentThread().getName())),
+                () -> { }, ts -> { });
+
+        for (int k = 0; k < 8; k++) applier.submit(new Upd("K" + k, 1));
+        CountDownLatch ran = new CountDownLatch(8);
+        Map<String, String> taskThread = new ConcurrentHashMap<>();
+        for (int k = 0; k < 8; k++) {
+            String key = "K" + k;
+            applier.execute(applier.shardOf(key), () -> {
+                taskThread.put(key, Thread.currentThread().getName());
+                ran.countDown();
+            });
+        }
+        assertTrue(ran.await(5, TimeUnit.SECONDS)); // idle shards still wake within idleWaitMs
+
+        long until = System.currentTimeMillis() + 5_000;
+        while (applier.pending() > 0 && System.currentTimeMillis() < until) Thread.sleep(5);
+        assertEquals(applyThread, taskThread);
+    }
+}
@@ -3,6 +3,10 @@ package org.example;
 import org.example.util.SimpleLamportSynchronizer;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class SimpleLamportSynchronizerTest {
@@ -27,4 +31,26 @@ class SimpleLamportSynchronizerTest {
         assertFalse(s.awaitUpTo(1L, 20L));
         assertEquals(0L, s.lastApplied());
     }
+
+    @Test
+    void whenAppliedCompletesOnApply() throws Exception {
+        SimpleLamportSynchronizer s = new SimpleLamportSynchronizer();
+        CompletableFuture<Boolean> f = s.whenApplied(3L, Duration.ofSeconds(5));
+        assertFalse(f.isDone());
+
+        s.onPutApplied(2L);
+        assertFalse(f.isDone());
+        s.onPutApplied(3L);
+        assertTrue(f.get(1, TimeUnit.SECONDS));
+        assertTrue(s.whenApplied(3L, Duration.ZERO).isDone(), "already applied completes immediately");
+    }
+
+    @Test
+    void whenAppliedTimesOutWithFalse() throws Exception {
+        SimpleLamportSynchronizer s = new SimpleLamportSynchronizer();
+        CompletableFuture<Boolean> f = s.whenApplied(1L, Duration.ofMillis(20));
+        assertFalse(f.get(1, TimeUnit.SECONDS));
+        s.onPutApplied(1L); // completing a timed-out waiter is a no-op
+        assertFalse(f.get());
+    }
 }
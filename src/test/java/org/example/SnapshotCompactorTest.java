@@ -0,0 +1,80 @@
+package org.example;
+
+import org.example.persistance.FileSnapshotStore;
+import org.example.persistance.SnapshotCompactor;
+import org.example.persistance.SnapshotRetention;
+import org.example.util.MetricsRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotCompactorTest {
+
+    @TempDir Path tmp;
+
+    @Test
+    void retentionAppliesWhicheverLimitHitsFirstButKeepsNewest() {
+        long now = 100_000L;
+        long[] sizes = {10, 10, 10, 10};
+        long[] modified = {now, now - 1_000, now - 2_000, now - 60_000};
+
+        assertEquals(4, SnapshotRetention.unlimited().retainedCount(sizes, modified, now));
+        assertEquals(2, new SnapshotRetention(2, null, 0L, false, 0).retainedCount(sizes, modified, now));
+        assertEquals(3, new SnapshotRetention(0, Duration.ofSeconds(5), 0L, false, 0).retainedCount(sizes, modified, now));
+        assertEquals(2, new SnapshotRetention(0, null, 25L, false, 0).retainedCount(sizes, modified, now));
+        assertEquals(1, new SnapshotRetention(0, Duration.ofMillis(1), 1L, false, 0)
+                .retainedCount(new long[]{50}, new long[]{0L}, now)); // newest survives any limit
+        assertEquals(0, new SnapshotRetention(1, null, 0L, false, 0).retainedCount(new long[0], new long[0], now));
+    }
+
+    @Test
+    void deletesSnapshotsBeyondKeepLastButNotLatest() throws IOException {
+        FileSnapshotStore store = new FileSnapshotStore(tmp, "weather");
+        for (int i = 0; i < 10; i++) store.save("{\"id\":\"S" + i + "\"}");
+
+        SnapshotCompactor compactor = new SnapshotCompactor(tmp, "weather",
+                new SnapshotRetention(3, null, 0L, false, 0), 1000L, new MetricsRegistry());
+        assertEquals(7, compactor.compactOnce());
+        assertEquals(0, compactor.compactOnce());
+
+        assertEquals(3, names("weather-").size());
+        assertTrue(Files.exists(tmp.resolve("latest.json")));
+        assertEquals("{\"id\":\"S9\"}", store.load());
+    }
+
+    @Test
+    void archivesDroppedSnapshotsOldestFirstAndPrunesSegments() throws IOException {
+        FileSnapshotStore store = new FileSnapshotStore(tmp, "weather");
+        SnapshotCompactor compactor = new SnapshotCompactor(tmp, "weather",
+                new SnapshotRetention(2, null, 0L, true, 1), 1000L, new MetricsRegistry());
+
+        for (int i = 0; i < 5; i++) store.save("{\"id\":\"A" + i + "\"}");
+        assertEquals(3, compactor.compactOnce());
+        List<String> segments = names("weather-archive-");
+        assertEquals(1, segments.size());
+        Map<String, String> archived = SnapshotCompactor.readArchive(tmp.resolve(segments.get(0)));
+        assertEquals(List.of("{\"id\":\"A0\"}", "{\"id\":\"A1\"}", "{\"id\":\"A2\"}"), List.copyOf(archived.values()));
+
+        for (int i = 0; i < 3; i++) store.save("{\"id\":\"B" + i + "\"}");
+        assertEquals(3, compactor.compactOnce());
+        List<String> after = names("weather-archive-");
+        assertEquals(1, after.size()); // maxArchives = 1: the older segment was pruned
+        assertNotEquals(segments.get(0), after.get(0));
+        assertEquals(2, names("weather-").stream().filter(n -> n.endsWith(".json")).count());
+    }
+
+    private List<String> names(String prefix) throws IOException {
+        try (Stream<Path> s = Files.list(tmp)) {
+            return s.map(p -> p.getFileName().toString()).filter(n -> n.startsWith(prefix)).sorted().toList();
+        }
+    }
+}
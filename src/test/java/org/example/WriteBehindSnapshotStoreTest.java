@@ -0,0 +1,111 @@
+package org.example;
+
+import org.example.interfaces.SnapshotStore;
+import org.example.persistance.WriteBehindSnapshotStore;
+import org.example.util.MetricsRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteBehindSnapshotStoreTest {
+
+    /** Delegate whose writes block until released, recording what reached it. */
+    private static final class GatedStore implements SnapshotStore, AutoCloseable {
+        final List<String> written = new CopyOnWriteArrayList<>();
+        final CountDownLatch gate;
+        final CountDownLatch entered = new CountDownLatch(1);
+        volatile boolean closed;
+
+        GatedStore(CountDownLatch gate) {
+            this.gate = gate;
+        }
+
+        @Override public String load() {
+            return written.isEmpty() ? null : written.get(written.size() - 1);
+        }
+
+        @Override public void save(String json) {
+            entered.countDown();
+            try {
+                gate.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            written.add(json);
+        }
+
+        @Override public void close() {
+            closed = true;
+        }
+    }
+
+    @Test
+    void savesReturnWhileWriterIsBlockedAndOnlyNewestPendingIsWritten() {
+        CountDownLatch gate = new CountDownLatch(1);
+        GatedStore disk = new GatedStore(gate);
+        MetricsRegistry metrics = new MetricsRegistry();
+        WriteBehindSnapshotStore store = new WriteBehindSnapshotStore(disk, 100, 1000L, metrics);
+
+        store.save("s1", 1L);
+        await(disk.entered); // s1 taken by the writer, which now blocks on the gate
+        for (int i = 2; i <= 5; i++) store.save("s" + i, i); // none of these may block
+        assertEquals("s5", store.load(), "load sees the newest accepted state");
+        assertEquals(0L, store.durableLamport());
+
+        gate.countDown();
+        assertTrue(store.flush(5000L));
+        assertEquals(5L, store.durableLamport());
+        assertTrue(disk.written.size() <= 2, "superseded states are coalesced: " + disk.written);
+        assertEquals("s5", disk.written.get(disk.written.size() - 1));
+        assertTrue(metrics.render().contains("agg_snapshot_coalesced_total 3"), metrics.render());
+    }
+
+    @Test
+    void fullBacklogMakesSaveWaitForTheWriter() {
+        CountDownLatch gate = new CountDownLatch(1);
+        GatedStore disk = new GatedStore(gate);
+        WriteBehindSnapshotStore store = new WriteBehindSnapshotStore(disk, 2, 200L, new MetricsRegistry());
+
+        store.save("a", 1L);
+        store.save("b", 2L);
+        long t0 = System.nanoTime();
+        store.save("c", 3L); // backlog 3 > 2: waits up to 200 ms since the writer is stuck
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0) >= 150L);
+
+        gate.countDown();
+        assertTrue(store.flush(5000L));
+        assertEquals(0L, store.backlog());
+    }
+
+    @Test
+    void coverRaisesDurableWatermarkAndCloseFlushesAndClosesDelegate() {
+        GatedStore disk = new GatedStore(new CountDownLatch(0));
+        WriteBehindSnapshotStore store = new WriteBehindSnapshotStore(disk, 8, 1000L, new MetricsRegistry());
+
+        store.save("x", 3L);
+        assertTrue(store.flush(5000L));
+        assertEquals(3L, store.durableLamport());
+        store.cover(7L); // nothing newer applied: the written state covers 7 as well
+        assertEquals(7L, store.durableLamport());
+
+        store.save("y", 9L);
+        store.close();
+        assertEquals("y", disk.load());
+        assertEquals(9L, store.durableLamport());
+        assertTrue(disk.closed);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(e);
+        }
+    }
+}